@@ -35,7 +35,9 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 @EqualsAndHashCode
 @Entity
-@Table(name = "HARDWARE", indexes = { @Index(name = "idx_hardware_id", columnList = "ID") })
+@Table(name = "HARDWARE", indexes = { @Index(name = "idx_hardware_id", columnList = "ID"),
+                                      @Index(name = "idx_hardware_cores", columnList = "CORES"),
+                                      @Index(name = "idx_hardware_ram", columnList = "RAM") })
 public class Hardware implements Serializable {
 
     // JSON property constants
@@ -40,7 +40,9 @@ import lombok.extern.log4j.Log4j2;
 @Getter
 @Setter
 @Entity
-@Table(name = "NODE_CANDIDATE", indexes = { @Index(name = "idx_nodecandidate_id", columnList = "ID") })
+@Table(name = "NODE_CANDIDATE", indexes = { @Index(name = "idx_nodecandidate_id", columnList = "ID"),
+                                            @Index(name = "idx_nodecandidate_type", columnList = "NODE_CANDIDATE_TYPE"),
+                                            @Index(name = "idx_nodecandidate_deployable", columnList = "DEPLOYABLE") })
 public class NodeCandidate implements Serializable {
     public static final String JSON_ID = "id";
 
@@ -158,6 +160,14 @@ public class NodeCandidate implements Serializable {
     @JsonProperty(JSON_ENVIRONMENT)
     private Environment environment = null;
 
+    /**
+     * Whether the node candidate can be deployed, i.e. its instance type is handled. Computed when the node candidate
+     * is stored, null when it is not known yet.
+     */
+    @Column(name = "DEPLOYABLE")
+    @JsonIgnore
+    private Boolean deployable = null;
+
     /**
      * Check if a node candidate is of BYON type
      * @return true if yes, false if not
@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ow2.proactive.sal.util.ModelUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Explanation of a node candidate search: how many of the node candidates each requirement rejected.
+ * Every requirement is checked against every node candidate, so a node candidate rejected by several requirements is
+ * counted by each of them.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class NodeCandidateExplanation {
+
+    // JSON property constants
+    public static final String JSON_CHECKED_COUNT = "checkedCount";
+
+    public static final String JSON_MATCHED_COUNT = "matchedCount";
+
+    public static final String JSON_UNDEPLOYABLE_COUNT = "undeployableCount";
+
+    public static final String JSON_UNDEPLOYABLE_SAMPLE = "undeployableSample";
+
+    public static final String JSON_REQUIREMENTS = "requirements";
+
+    @JsonProperty(JSON_CHECKED_COUNT)
+    private long checkedCount = 0;
+
+    /**
+     * Number of deployable node candidates satisfying all the requirements
+     */
+    @JsonProperty(JSON_MATCHED_COUNT)
+    private long matchedCount = 0;
+
+    /**
+     * Number of node candidates rejected because they cannot be deployed
+     */
+    @JsonProperty(JSON_UNDEPLOYABLE_COUNT)
+    private long undeployableCount = 0;
+
+    @JsonProperty(JSON_UNDEPLOYABLE_SAMPLE)
+    private List<String> undeployableSample = new ArrayList<>();
+
+    /**
+     * One explanation per requirement, in the order of the requirements
+     */
+    @JsonProperty(JSON_REQUIREMENTS)
+    private List<RequirementExplanation> requirements = new ArrayList<>();
+
+    @Override
+    public String toString() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(JSON_CHECKED_COUNT, checkedCount);
+        fields.put(JSON_MATCHED_COUNT, matchedCount);
+        fields.put(JSON_UNDEPLOYABLE_COUNT, undeployableCount);
+        fields.put(JSON_UNDEPLOYABLE_SAMPLE, undeployableSample);
+        fields.put(JSON_REQUIREMENTS, requirements);
+
+        return ModelUtils.buildToString(NodeCandidateExplanation.class.getSimpleName(), fields);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ow2.proactive.sal.util.ModelUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * A page of node candidates ordered by id
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class NodeCandidatePage {
+
+    // JSON property constants
+    public static final String JSON_NODE_CANDIDATES = "nodeCandidates";
+
+    public static final String JSON_NEXT_CURSOR = "nextCursor";
+
+    @JsonProperty(JSON_NODE_CANDIDATES)
+    private List<NodeCandidate> nodeCandidates = null;
+
+    /**
+     * Id of the last node candidate of the page, to be used as cursor for the next page.
+     * Null when there is no next page.
+     */
+    @JsonProperty(JSON_NEXT_CURSOR)
+    private String nextCursor = null;
+
+    @Override
+    public String toString() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(JSON_NODE_CANDIDATES, nodeCandidates);
+        fields.put(JSON_NEXT_CURSOR, nextCursor);
+
+        return ModelUtils.buildToString(NodeCandidatePage.class.getSimpleName(), fields);
+    }
+}
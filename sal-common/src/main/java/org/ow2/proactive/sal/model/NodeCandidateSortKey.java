@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.model;
+
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+
+/**
+ * Criteria used to rank node candidates, the cheapest first
+ */
+public enum NodeCandidateSortKey {
+
+    PRICE("PRICE"),
+
+    PRICE_PER_CORE("PRICE_PER_CORE"),
+
+    PRICE_PER_GB_RAM("PRICE_PER_GB_RAM"),
+
+    WEIGHTED_SCORE("WEIGHTED_SCORE");
+
+    private final String value;
+
+    NodeCandidateSortKey(String value) {
+        this.value = value;
+    }
+
+    @Override
+    @JsonValue
+    public String toString() {
+        return String.valueOf(value);
+    }
+
+    @JsonCreator
+    public static NodeCandidateSortKey fromValue(String text) {
+        for (NodeCandidateSortKey b : NodeCandidateSortKey.values()) {
+            if (String.valueOf(b.value).equals(text.toUpperCase(Locale.ROOT))) {
+                return b;
+            }
+        }
+        return null;
+    }
+}
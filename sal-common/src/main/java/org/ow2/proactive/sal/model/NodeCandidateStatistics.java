@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.ow2.proactive.sal.util.ModelUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Aggregate statistics of the stored node candidates
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class NodeCandidateStatistics {
+
+    // JSON property constants
+    public static final String JSON_COUNT = "count";
+
+    public static final String JSON_COUNT_BY_CLOUD = "countByCloud";
+
+    public static final String JSON_COUNT_BY_REGION = "countByRegion";
+
+    public static final String JSON_COUNT_BY_NODE_TYPE = "countByNodeType";
+
+    public static final String JSON_MIN_PRICE = "minPrice";
+
+    public static final String JSON_MEDIAN_PRICE = "medianPrice";
+
+    public static final String JSON_MAX_PRICE = "maxPrice";
+
+    public static final String JSON_CORES_HISTOGRAM = "coresHistogram";
+
+    public static final String JSON_RAM_HISTOGRAM = "ramHistogram";
+
+    @JsonProperty(JSON_COUNT)
+    private long count = 0;
+
+    @JsonProperty(JSON_COUNT_BY_CLOUD)
+    private Map<String, Long> countByCloud = new TreeMap<>();
+
+    @JsonProperty(JSON_COUNT_BY_REGION)
+    private Map<String, Long> countByRegion = new TreeMap<>();
+
+    @JsonProperty(JSON_COUNT_BY_NODE_TYPE)
+    private Map<String, Long> countByNodeType = new TreeMap<>();
+
+    @JsonProperty(JSON_MIN_PRICE)
+    private Double minPrice = null;
+
+    /**
+     * Lower median of the known prices
+     */
+    @JsonProperty(JSON_MEDIAN_PRICE)
+    private Double medianPrice = null;
+
+    @JsonProperty(JSON_MAX_PRICE)
+    private Double maxPrice = null;
+
+    /**
+     * Number of node candidates per number of cores
+     */
+    @JsonProperty(JSON_CORES_HISTOGRAM)
+    private Map<Integer, Long> coresHistogram = new TreeMap<>();
+
+    /**
+     * Number of node candidates per amount of RAM, in MB
+     */
+    @JsonProperty(JSON_RAM_HISTOGRAM)
+    private Map<Long, Long> ramHistogram = new TreeMap<>();
+
+    @Override
+    public String toString() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(JSON_COUNT, count);
+        fields.put(JSON_COUNT_BY_CLOUD, countByCloud);
+        fields.put(JSON_COUNT_BY_REGION, countByRegion);
+        fields.put(JSON_COUNT_BY_NODE_TYPE, countByNodeType);
+        fields.put(JSON_MIN_PRICE, minPrice);
+        fields.put(JSON_MEDIAN_PRICE, medianPrice);
+        fields.put(JSON_MAX_PRICE, maxPrice);
+        fields.put(JSON_CORES_HISTOGRAM, coresHistogram);
+        fields.put(JSON_RAM_HISTOGRAM, ramHistogram);
+
+        return ModelUtils.buildToString(NodeCandidateStatistics.class.getSimpleName(), fields);
+    }
+}
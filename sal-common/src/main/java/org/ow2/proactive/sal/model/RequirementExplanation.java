@@ -0,0 +1,62 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ow2.proactive.sal.util.ModelUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * The node candidates rejected by one requirement, see {@link NodeCandidateExplanation}
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class RequirementExplanation {
+
+    // JSON property constants
+    public static final String JSON_REQUIREMENT = "requirement";
+
+    public static final String JSON_REJECTED_COUNT = "rejectedCount";
+
+    public static final String JSON_REJECTED_SAMPLE = "rejectedSample";
+
+    @JsonProperty(JSON_REQUIREMENT)
+    private Requirement requirement = null;
+
+    @JsonProperty(JSON_REJECTED_COUNT)
+    private long rejectedCount = 0;
+
+    /**
+     * Ids of some of the rejected node candidates
+     */
+    @JsonProperty(JSON_REJECTED_SAMPLE)
+    private List<String> rejectedSample = new ArrayList<>();
+
+    public RequirementExplanation(Requirement requirement) {
+        this.requirement = requirement;
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(JSON_REQUIREMENT, requirement);
+        fields.put(JSON_REJECTED_COUNT, rejectedCount);
+        fields.put(JSON_REJECTED_SAMPLE, rejectedSample);
+
+        return ModelUtils.buildToString(RequirementExplanation.class.getSimpleName(), fields);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.ow2.proactive.sal.model.GeoLocationData;
+import org.ow2.proactive.sal.service.util.GeoLocationUtils;
+
+
+/**
+ * Lookups of the cloud regions geo locations, done for every new location of the node candidates, and spatial
+ * queries, done for the distance requirements
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeoLocationBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    private GeoLocationUtils geoLocationUtils;
+
+    private final String[][] regions = new String[QUERIES][];
+
+    private final double[][] points = new double[QUERIES][];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geoLocationUtils = GeoLocationUtils.getInstance();
+        List<GeoLocationData> known = geoLocationUtils.getCloudsGeoLocationData();
+        Random random = new Random(42);
+        for (int i = 0; i < QUERIES; i++) {
+            GeoLocationData geoLocationData = known.get(random.nextInt(known.size()));
+            // one lookup out of ten is for a region missing from the database
+            regions[i] = new String[] { geoLocationData.getCloud(),
+                                        random.nextInt(10) == 0 ? "unknown-" + i : geoLocationData.getRegion() };
+            points[i] = new double[] { random.nextDouble() * 140 - 60, random.nextDouble() * 360 - 180 };
+        }
+    }
+
+    @Benchmark
+    public GeoLocationData findGeoLocation() {
+        String[] region = regions[next++ & (QUERIES - 1)];
+        return geoLocationUtils.findGeoLocation(region[0], region[1]);
+    }
+
+    @Benchmark
+    public List<GeoLocationData> findGeoLocationsWithin() {
+        double[] point = points[next++ & (QUERIES - 1)];
+        return geoLocationUtils.findGeoLocationsWithin(point[0], point[1], 2000);
+    }
+
+    @Benchmark
+    public List<GeoLocationData> findNearestGeoLocations() {
+        double[] point = points[next++ & (QUERIES - 1)];
+        return geoLocationUtils.findNearestGeoLocations(point[0], point[1], 5);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ow2.proactive.sal.model.Cloud;
+import org.ow2.proactive.sal.model.Hardware;
+import org.ow2.proactive.sal.model.Image;
+import org.ow2.proactive.sal.model.Location;
+import org.ow2.proactive.sal.service.service.RepositoryService;
+
+
+/**
+ * Keeps the node candidate dimensions in memory, so that the node candidate mapping is measured without the database
+ */
+public class InMemoryRepositoryService extends RepositoryService {
+
+    private final Map<String, Cloud> clouds = new ConcurrentHashMap<>();
+
+    private final Map<String, Location> locations = new ConcurrentHashMap<>();
+
+    private final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private final Map<String, Hardware> hardwares = new ConcurrentHashMap<>();
+
+    @Override
+    public Cloud getCloud(String cloudId) {
+        return clouds.get(cloudId);
+    }
+
+    @Override
+    public Cloud saveCloud(Cloud cloud) {
+        clouds.put(cloud.getId(), cloud);
+        return cloud;
+    }
+
+    @Override
+    public Location getLocation(String locationId) {
+        return locations.get(locationId);
+    }
+
+    @Override
+    public Location saveLocation(Location location) {
+        locations.put(location.getId(), location);
+        return location;
+    }
+
+    @Override
+    public Image getImage(String imageId) {
+        return images.get(imageId);
+    }
+
+    @Override
+    public Image saveImage(Image image) {
+        images.put(image.getId(), image);
+        return image;
+    }
+
+    @Override
+    public Hardware getHardware(String hardwareId) {
+        return hardwares.get(hardwareId);
+    }
+
+    @Override
+    public Hardware saveHardware(Hardware hardware) {
+        hardwares.put(hardware.getId(), hardware);
+        return hardware;
+    }
+}
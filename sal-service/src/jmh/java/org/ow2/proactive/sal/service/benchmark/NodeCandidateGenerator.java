@@ -0,0 +1,201 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.nc.RequirementCompiler;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorHardware;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidate;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidatesPage;
+import org.ow2.proactive.sal.service.util.GeoLocationUtils;
+
+
+/**
+ * Generates synthetic but realistic node candidates for the benchmarks: the regions are the known cloud regions,
+ * and the clouds, images and hardware are shared between the node candidates, as when they are loaded from the
+ * database. The generation is seeded, so that every run measures the same catalog.
+ */
+public class NodeCandidateGenerator {
+
+    private static final String[][] HARDWARE_TYPES = { { "t3.micro", "2", "1024" }, { "t3.large", "2", "8192" },
+                                                       { "m5.xlarge", "4", "16384" }, { "c5.2xlarge", "8", "16384" },
+                                                       { "r5.4xlarge", "16", "131072" },
+                                                       { "Standard_D4s_v3", "4", "16384" },
+                                                       { "n1-standard-8", "8", "30720" }, { "b2-15", "4", "15360" },
+                                                       { "g4dn.xlarge", "4", "16384" },
+                                                       { "m5.24xlarge", "96", "393216" } };
+
+    private static final OperatingSystemFamily[] OPERATING_SYSTEM_FAMILIES = { OperatingSystemFamily.UBUNTU,
+                                                                               OperatingSystemFamily.UBUNTU,
+                                                                               OperatingSystemFamily.CENTOS,
+                                                                               OperatingSystemFamily.DEBIAN };
+
+    private static final String[] CLOUD_PROVIDERS = { "aws-ec2", "aws-ec2", "azure", "google-compute-engine",
+                                                      "openstack" };
+
+    private NodeCandidateGenerator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Typical mixes of requirements sent by the clients
+     */
+    public enum RequirementMix {
+        /**
+         * Only hardware requirements, the cheapest ones to check
+         */
+        HARDWARE,
+        /**
+         * Country and distance requirements
+         */
+        LOCATION,
+        /**
+         * Node type, cloud, image, hardware and nearest regions requirements
+         */
+        MIXED;
+
+        public List<Requirement> requirements() {
+            switch (this) {
+                case HARDWARE:
+                    return Arrays.asList(new AttributeRequirement("hardware", "cores", RequirementOperator.GEQ, "4"),
+                                         new AttributeRequirement("hardware",
+                                                                  "ram",
+                                                                  RequirementOperator.LEQ,
+                                                                  "65536"));
+                case LOCATION:
+                    return Arrays.asList(new AttributeRequirement("location",
+                                                                  "geoLocation.country",
+                                                                  RequirementOperator.NEQ,
+                                                                  "US"),
+                                         new AttributeRequirement("location",
+                                                                  RequirementCompiler.GEO_DISTANCE,
+                                                                  RequirementOperator.LEQ,
+                                                                  "50.11,8.68,1000"));
+                default:
+                    return Arrays.asList(new NodeTypeRequirement(Collections.singletonList(NodeType.IAAS),
+                                                                 null,
+                                                                 null),
+                                         new AttributeRequirement("cloud",
+                                                                  "type",
+                                                                  RequirementOperator.NEQ,
+                                                                  "PRIVATE"),
+                                         new AttributeRequirement("image",
+                                                                  "operatingSystem.family",
+                                                                  RequirementOperator.EQ,
+                                                                  "UBUNTU"),
+                                         new AttributeRequirement("hardware", "cores", RequirementOperator.GEQ, "2"),
+                                         new AttributeRequirement("hardware", "name", RequirementOperator.INC, "x"),
+                                         new AttributeRequirement("location",
+                                                                  RequirementCompiler.GEO_NEAREST,
+                                                                  RequirementOperator.EQ,
+                                                                  "48.85,2.35,10"));
+            }
+        }
+    }
+
+    /**
+     * Generate node candidates
+     * @param count The number of node candidates
+     * @param seed The seed of the generation
+     * @return The generated node candidates
+     */
+    public static List<NodeCandidate> generateNodeCandidates(int count, long seed) {
+        Random random = new Random(seed);
+        List<Cloud> clouds = new ArrayList<>();
+        for (int i = 0; i < CLOUD_PROVIDERS.length; i++) {
+            Cloud cloud = new Cloud();
+            cloud.setId("cloud-" + i);
+            cloud.setCloudType(CLOUD_PROVIDERS[i].equals("openstack") ? CloudType.PRIVATE : CloudType.PUBLIC);
+            cloud.setApi(new Api(CLOUD_PROVIDERS[i]));
+            clouds.add(cloud);
+        }
+        List<Location> locations = GeoLocationUtils.getInstance()
+                                                   .getCloudsGeoLocationData()
+                                                   .stream()
+                                                   .map(geoLocationData -> {
+                                                       Location location = new Location();
+                                                       location.setId(geoLocationData.getCloud() + "/" +
+                                                                      geoLocationData.getRegion());
+                                                       location.setName(geoLocationData.getRegion());
+                                                       location.setLocationScope(Location.LocationScopeEnum.REGION);
+                                                       location.setGeoLocation(new GeoLocation(geoLocationData));
+                                                       return location;
+                                                   })
+                                                   .collect(Collectors.toList());
+        List<Image> images = new ArrayList<>();
+        for (OperatingSystemFamily family : OPERATING_SYSTEM_FAMILIES) {
+            OperatingSystem operatingSystem = new OperatingSystem();
+            operatingSystem.setOperatingSystemFamily(family);
+            Image image = new Image();
+            image.setId("image-" + images.size());
+            image.setName(family.name().toLowerCase(Locale.ROOT) + " server");
+            image.setOperatingSystem(operatingSystem);
+            images.add(image);
+        }
+        List<Hardware> hardwares = new ArrayList<>();
+        for (String[] hardwareType : HARDWARE_TYPES) {
+            Hardware hardware = new Hardware();
+            hardware.setId(hardwareType[0]);
+            hardware.setName(hardwareType[0]);
+            hardware.setCores(Integer.parseInt(hardwareType[1]));
+            hardware.setRam(Long.parseLong(hardwareType[2]));
+            hardware.setDisk(8.0);
+            hardwares.add(hardware);
+        }
+
+        List<NodeCandidate> nodeCandidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Hardware hardware = hardwares.get(random.nextInt(hardwares.size()));
+            NodeCandidate nodeCandidate = new NodeCandidate();
+            nodeCandidate.setId(String.format("nc-%08d", i));
+            nodeCandidate.setNodeCandidateType(random.nextInt(20) == 0 ? NodeCandidate.NodeCandidateTypeEnum.BYON
+                                                                       : NodeCandidate.NodeCandidateTypeEnum.IAAS);
+            nodeCandidate.setCloud(clouds.get(random.nextInt(clouds.size())));
+            nodeCandidate.setLocation(locations.get(random.nextInt(locations.size())));
+            nodeCandidate.setImage(images.get(random.nextInt(images.size())));
+            nodeCandidate.setHardware(hardware);
+            nodeCandidate.setPrice(hardware.getCores() * (0.02 + random.nextDouble() * 0.03));
+            nodeCandidate.setDeployable(true);
+            nodeCandidates.add(nodeCandidate);
+        }
+        return nodeCandidates;
+    }
+
+    /**
+     * Generate a page of AWS node candidates, as returned by the connector-iaas
+     * @param count The number of node candidates
+     * @param seed The seed of the generation
+     * @return The generated page
+     */
+    public static ConnectorNodeCandidatesPage generateConnectorPage(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> regions = GeoLocationUtils.getInstance()
+                                               .getCloudsGeoLocationData()
+                                               .stream()
+                                               .filter(geoLocationData -> geoLocationData.getCloud().equals("AWS"))
+                                               .map(GeoLocationData::getRegion)
+                                               .collect(Collectors.toList());
+        ConnectorNodeCandidatesPage page = new ConnectorNodeCandidatesPage();
+        for (int i = 0; i < count; i++) {
+            String[] hardwareType = HARDWARE_TYPES[random.nextInt(HARDWARE_TYPES.length)];
+            ConnectorHardware hardware = new ConnectorHardware();
+            hardware.setType(hardwareType[0]);
+            hardware.setMinCores(hardwareType[1] + ".0");
+            hardware.setMinRam(hardwareType[2] + ".0");
+            hardware.setMinFreq("2.5");
+            ConnectorNodeCandidate nodeCandidate = new ConnectorNodeCandidate();
+            nodeCandidate.setCloud("aws-ec2");
+            nodeCandidate.setRegion(regions.get(random.nextInt(regions.size())));
+            nodeCandidate.setPrice(Integer.parseInt(hardwareType[1]) * (0.02 + random.nextDouble() * 0.03));
+            nodeCandidate.setHw(hardware);
+            page.getNodeCandidates().add(nodeCandidate);
+        }
+        return page;
+    }
+}
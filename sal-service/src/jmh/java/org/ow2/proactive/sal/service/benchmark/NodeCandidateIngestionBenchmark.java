@@ -0,0 +1,88 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.ow2.proactive.sal.model.CloudProviderType;
+import org.ow2.proactive.sal.model.CloudType;
+import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.PACloud;
+import org.ow2.proactive.sal.service.nc.NodeCandidateUtils;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorImage;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidate;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidatesPage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Ingestion of the node candidates returned by the connector-iaas: parsing of the JSON page and mapping of its node
+ * candidates. The dimensions are kept in memory, see {@link InMemoryRepositoryService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class NodeCandidateIngestionBenchmark {
+
+    private static final String IMAGE_JSON = "{\"id\":\"eu-west-1/ami-0a1b2c3d4e5f67890\",\"name\":\"ubuntu-22.04-server\"," +
+                                             "\"location\":\"eu-west-1\",\"operatingSystem\":{\"family\":\"ubuntu\"," +
+                                             "\"arch\":\"x86_64\",\"is64Bit\":true,\"version\":22.04}}";
+
+    @Param({ "1000", "100000", "1000000" })
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] pageJson;
+
+    private ConnectorNodeCandidatesPage page;
+
+    private ConnectorImage image;
+
+    private PACloud paCloud;
+
+    private NodeCandidateUtils nodeCandidateUtils;
+
+    @Setup
+    public void setUp() throws IOException, ReflectiveOperationException {
+        page = NodeCandidateGenerator.generateConnectorPage(size, 42);
+        pageJson = objectMapper.writeValueAsBytes(page);
+        image = objectMapper.readValue(IMAGE_JSON, ConnectorImage.class);
+
+        paCloud = new PACloud();
+        paCloud.setCloudId("aws-benchmark");
+        paCloud.setCloudProvider(CloudProviderType.AWS_EC2);
+        paCloud.setCloudType(CloudType.PUBLIC);
+
+        nodeCandidateUtils = new NodeCandidateUtils();
+        Field repositoryService = NodeCandidateUtils.class.getDeclaredField("repositoryService");
+        repositoryService.setAccessible(true);
+        repositoryService.set(nodeCandidateUtils, new InMemoryRepositoryService());
+    }
+
+    @Benchmark
+    public ConnectorNodeCandidatesPage parsePage() throws IOException {
+        return objectMapper.readValue(pageJson, ConnectorNodeCandidatesPage.class);
+    }
+
+    @Benchmark
+    public List<NodeCandidate> createNodeCandidates() {
+        List<NodeCandidate> nodeCandidates = new ArrayList<>(size);
+        for (ConnectorNodeCandidate nodeCandidate : page.getNodeCandidates()) {
+            nodeCandidates.add(nodeCandidateUtils.createNodeCandidate(nodeCandidate, image, paCloud));
+        }
+        return nodeCandidates;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.*;
+import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.Requirement;
+import org.ow2.proactive.sal.service.nc.NodeCandidateUtils;
+import org.ow2.proactive.sal.service.nc.RequirementCompiler;
+
+
+/**
+ * Filtering of a whole node candidate catalog, as done for every node candidate search
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class RequirementFilterBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    private int size;
+
+    @Param({ "HARDWARE", "LOCATION", "MIXED" })
+    private NodeCandidateGenerator.RequirementMix mix;
+
+    private List<NodeCandidate> nodeCandidates;
+
+    private List<Requirement> requirements;
+
+    @Setup
+    public void setUp() {
+        nodeCandidates = NodeCandidateGenerator.generateNodeCandidates(size, 42);
+        requirements = mix.requirements();
+    }
+
+    /**
+     * The requirements are compiled again for every node candidate
+     */
+    @Benchmark
+    public int verifyAllFilters() {
+        int matching = 0;
+        for (NodeCandidate nodeCandidate : nodeCandidates) {
+            if (NodeCandidateUtils.verifyAllFilters(requirements, nodeCandidate)) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * The requirements are compiled once per search, as in the node candidate service
+     */
+    @Benchmark
+    public int compiledRequirements() {
+        Predicate<NodeCandidate> filter = RequirementCompiler.compile(requirements);
+        int matching = 0;
+        for (NodeCandidate nodeCandidate : nodeCandidates) {
+            if (filter.test(nodeCandidate)) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.ow2.proactive.sal.model.RequirementOperator;
+
+
+/**
+ * The {@link RequirementOperator#compare} overloads, each call comparing {@value #VALUES} pairs of boxed values
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequirementOperatorBenchmark {
+
+    private static final int VALUES = 1024;
+
+    private static final String[] WORDS = { "ubuntu", "centos", "debian", "large", "xlarge", "eu-west-1", "us-east-1" };
+
+    @Param({ "EQ", "GEQ", "NEQ" })
+    private RequirementOperator numberOperator;
+
+    private final Integer[] integers = new Integer[VALUES];
+
+    private final Long[] longs = new Long[VALUES];
+
+    private final Float[] floats = new Float[VALUES];
+
+    private final Double[] doubles = new Double[VALUES];
+
+    private final String[] strings = new String[VALUES];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            integers[i] = random.nextInt(256);
+            longs[i] = (long) random.nextInt(1 << 20);
+            floats[i] = random.nextFloat() * 4;
+            doubles[i] = random.nextDouble() * 4;
+            strings[i] = WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? "" : "-" + i);
+        }
+    }
+
+    @Benchmark
+    public int compareIntegers() {
+        int matching = 0;
+        for (int i = 1; i < VALUES; i++) {
+            if (numberOperator.compare(integers[i], integers[i - 1])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    @Benchmark
+    public int compareLongs() {
+        int matching = 0;
+        for (int i = 1; i < VALUES; i++) {
+            if (numberOperator.compare(longs[i], longs[i - 1])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    @Benchmark
+    public int compareFloats() {
+        int matching = 0;
+        for (int i = 1; i < VALUES; i++) {
+            if (numberOperator.compare(floats[i], floats[i - 1])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    @Benchmark
+    public int compareDoubles() {
+        int matching = 0;
+        for (int i = 1; i < VALUES; i++) {
+            if (numberOperator.compare(doubles[i], doubles[i - 1])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    @Benchmark
+    public int compareStringsEquality() {
+        int matching = 0;
+        for (int i = 1; i < VALUES; i++) {
+            if (RequirementOperator.EQ.compare(strings[i], strings[i - 1])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    @Benchmark
+    public int compareStringsInclusion() {
+        int matching = 0;
+        for (int i = 0; i < VALUES; i++) {
+            if (RequirementOperator.INC.compare(strings[i], WORDS[i % WORDS.length])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidatesPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * On-disk cache of the node candidate pages returned by the connector-iaas, keyed by
+ * (cloud, region, image requirement, page token). It survives the restarts of SAL and the re-adding of clouds.
+ * Entries expire after a TTL and the oldest ones are evicted when the cache exceeds its maximum size.
+ * Any I/O failure is logged and handled as a cache miss.
+ */
+@Log4j2
+@Component
+public class ConnectorResponseCache {
+
+    private static final String ENTRY_EXTENSION = ".json";
+
+    @Value("${nc.connector-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nc.connector-cache.dir:}")
+    private String directory;
+
+    @Value("${nc.connector-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${nc.connector-cache.max-size-mb:256}")
+    private long maxSizeMb;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private Path root;
+
+    @PostConstruct
+    private void init() {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(directory.isEmpty() ? getDefaultDirectory() : directory);
+        try {
+            Files.createDirectories(root);
+            for (Path entry : listEntries()) {
+                if (isExpired(entry)) {
+                    Files.deleteIfExists(entry);
+                } else {
+                    size.addAndGet(Files.size(entry));
+                }
+            }
+            LOGGER.info("Connector response cache in {} holds {} bytes", root, size.get());
+        } catch (IOException e) {
+            LOGGER.warn("Connector response cache disabled, {} is not usable: {}", root, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * Get a cached node candidates page
+     * @return The page, or null if it is not cached or expired
+     */
+    public ConnectorNodeCandidatesPage get(String cloudId, String region, String imageReq, String token) {
+        if (!enabled) {
+            return null;
+        }
+        Path entry = entryPath(cloudId, region, imageReq, token);
+        try {
+            if (!Files.exists(entry)) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                delete(entry);
+                return null;
+            }
+            return objectMapper.readValue(entry.toFile(), ConnectorNodeCandidatesPage.class);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the cached connector response {}: {}", entry, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cache a node candidates page
+     */
+    public void put(String cloudId, String region, String imageReq, String token, ConnectorNodeCandidatesPage page) {
+        if (!enabled) {
+            return;
+        }
+        Path entry = entryPath(cloudId, region, imageReq, token);
+        try {
+            Files.createDirectories(entry.getParent());
+            // written aside then moved, so that readers never see a partial entry
+            Path tmp = Files.createTempFile(entry.getParent(), "entry", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), page);
+            long previousSize = Files.exists(entry) ? Files.size(entry) : 0;
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (size.addAndGet(Files.size(entry) - previousSize) > maxSizeMb * 1024 * 1024) {
+                evictOldest();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache the connector response {}: {}", entry, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove all the cached pages of a cloud
+     * @param cloudId The id of the cloud
+     */
+    public void evictCloud(String cloudId) {
+        if (!enabled) {
+            return;
+        }
+        Path cloudDirectory = root.resolve(sanitize(cloudId));
+        if (!Files.isDirectory(cloudDirectory)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(cloudDirectory)) {
+            entries.forEach(this::delete);
+        } catch (IOException e) {
+            LOGGER.warn("Could not evict the cached connector responses of the cloud {}: {}", cloudId, e.getMessage());
+        }
+    }
+
+    private synchronized void evictOldest() throws IOException {
+        long maxSize = maxSizeMb * 1024 * 1024;
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparingLong(entry -> entry.toFile().lastModified()));
+        for (Path entry : entries) {
+            if (size.get() <= maxSize) {
+                break;
+            }
+            delete(entry);
+        }
+    }
+
+    private void delete(Path entry) {
+        try {
+            long entrySize = Files.size(entry);
+            if (Files.deleteIfExists(entry)) {
+                size.addAndGet(-entrySize);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete the cached connector response {}: {}", entry, e.getMessage());
+        }
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> paths = Files.walk(root, 2)) {
+            return paths.filter(path -> path.toString().endsWith(ENTRY_EXTENSION)).collect(Collectors.toList());
+        }
+    }
+
+    private boolean isExpired(Path entry) {
+        return System.currentTimeMillis() - entry.toFile().lastModified() > TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+
+    private Path entryPath(String cloudId, String region, String imageReq, String token) {
+        String key = Hashing.sha256()
+                            .hashString(String.join("\n", region, imageReq, token), StandardCharsets.UTF_8)
+                            .toString();
+        return root.resolve(sanitize(cloudId)).resolve(key + ENTRY_EXTENSION);
+    }
+
+    private static String sanitize(String cloudId) {
+        return cloudId.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static String getDefaultDirectory() {
+        String proactiveHome = System.getProperty("proactive.home");
+
+        if (proactiveHome == null) {
+            return System.getProperty("java.io.tmpdir") + File.separator + "proactive" + File.separator +
+                   "sal-connector-cache";
+        }
+
+        return proactiveHome + File.separator + "data" + File.separator + "sal-connector-cache";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.ow2.proactive.sal.model.Cloud;
+import org.ow2.proactive.sal.model.Hardware;
+import org.ow2.proactive.sal.model.Image;
+import org.ow2.proactive.sal.model.Location;
+
+
+/**
+ * The clouds, locations, images and hardware resolved during one ingestion of node candidates, by id.
+ * Each of them is looked up (or created) once and then shared by all the node candidates referencing it.
+ * It is shared by the tasks of the refresh executor converting the pages of one ingestion. A miss is resolved outside
+ * of the map, as the resolvers query the repositories: two tasks may then resolve the same id at once, and the first
+ * recorded entity is kept.
+ * The ids of the stored dimensions whose attributes were updated from the connector are recorded, so that a
+ * synchronization can update the node candidates referencing them.
+ */
+class DimensionCache {
+
+    private final Map<String, Cloud> clouds = new ConcurrentHashMap<>();
+
+    private final Map<String, Location> locations = new ConcurrentHashMap<>();
+
+    private final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private final Map<String, Hardware> hardwares = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Set<String>> updatedIds = new ConcurrentHashMap<>();
+
+    Cloud getCloud(String cloudId, Function<String, Cloud> resolver) {
+        return resolve(clouds, cloudId, resolver);
+    }
+
+    Location getLocation(String locationId, Function<String, Location> resolver) {
+        return resolve(locations, locationId, resolver);
+    }
+
+    Image getImage(String imageId, Function<String, Image> resolver) {
+        return resolve(images, imageId, resolver);
+    }
+
+    Hardware getHardware(String hardwareId, Function<String, Hardware> resolver) {
+        return resolve(hardwares, hardwareId, resolver);
+    }
+
+    void markUpdated(Class<?> dimensionClass, String id) {
+        updatedIds.computeIfAbsent(dimensionClass, key -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    boolean isUpdated(Class<?> dimensionClass, String id) {
+        return updatedIds.getOrDefault(dimensionClass, Collections.emptySet()).contains(id);
+    }
+
+    private static <T> T resolve(Map<String, T> entities, String id, Function<String, T> resolver) {
+        T entity = entities.get(id);
+        if (entity == null) {
+            entity = resolver.apply(id);
+            if (entity != null) {
+                T recorded = entities.putIfAbsent(id, entity);
+                if (recorded != null) {
+                    entity = recorded;
+                }
+            }
+        }
+        return entity;
+    }
+}
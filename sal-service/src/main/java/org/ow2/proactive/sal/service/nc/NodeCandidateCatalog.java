@@ -0,0 +1,501 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.repository.NodeCandidateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * In-memory copy of the NODE_CANDIDATE table with secondary indexes on the attributes the optimizer
+ * usually filters on. Requirements that can be answered by an index are turned into index lookups and
+ * intersected, so only the remaining candidates have to be checked by the predicate of
+ * {@link RequirementCompiler#compile(List)}.
+ * The catalog is loaded lazily from the database and kept in sync by {@link org.ow2.proactive.sal.service.service.RepositoryService}.
+ */
+@Log4j2
+@Component
+public class NodeCandidateCatalog {
+
+    private static final String GEO_LOCATION_COUNTRY = "geoLocation.country";
+
+    private static final String OPERATING_SYSTEM_FAMILY = "operatingSystem.family";
+
+    @Autowired
+    private NodeCandidateRepository nodeCandidateRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ThreadLocal<List<Runnable>> deferredUpdates = new ThreadLocal<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile boolean loaded = false;
+
+    // sorted by id, so that the lookups return the node candidates in a stable order
+    private final NavigableMap<String, NodeCandidate> nodeCandidates = new TreeMap<>();
+
+    private final Map<String, Set<String>> byCloudId = new HashMap<>();
+
+    private final Map<String, Set<String>> byNodeType = new HashMap<>();
+
+    private final Map<String, Set<String>> byRegion = new HashMap<>();
+
+    private final Map<String, Set<String>> byCountry = new HashMap<>();
+
+    private final Map<String, Set<String>> byOsFamily = new HashMap<>();
+
+    private final NavigableMap<Integer, Set<String>> byCores = new TreeMap<>();
+
+    private final NavigableMap<Long, Set<String>> byRam = new TreeMap<>();
+
+    private final NavigableMap<Double, Set<String>> byDisk = new TreeMap<>();
+
+    private final NavigableMap<Integer, Set<String>> byGpu = new TreeMap<>();
+
+    private final NavigableMap<Double, Set<String>> byPrice = new TreeMap<>();
+
+    /**
+     * Find the node candidates that may satisfy the given requirements.
+     * Only the indexed requirements are applied here, the returned candidates still have to be checked
+     * against the full list of requirements.
+     * @param requirements List of NodeType or Attribute requirements
+     * @return The node candidates selected by the indexes, in id order
+     */
+    public List<NodeCandidate> findNodeCandidates(List<Requirement> requirements) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Set<String> selection = null;
+            if (requirements != null) {
+                for (Requirement requirement : requirements) {
+                    Set<String> matches = lookup(requirement);
+                    if (matches != null) {
+                        selection = intersect(selection, matches);
+                        if (selection.isEmpty()) {
+                            return new ArrayList<>();
+                        }
+                    }
+                }
+            }
+            if (selection == null) {
+                return new ArrayList<>(nodeCandidates.values());
+            }
+            List<String> ids = new ArrayList<>(selection);
+            Collections.sort(ids);
+            List<NodeCandidate> result = new ArrayList<>(ids.size());
+            ids.forEach(id -> result.add(nodeCandidates.get(id)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walk the node candidates in id order from a given id, without going through the ones before it, e.g. to read
+     * a page of node candidates from a cursor. The visitor runs under the read lock, so it must not block.
+     * @param after the id the walk starts after, null to start from the first node candidate
+     * @param visitor called with each node candidate, returns false to stop the walk
+     */
+    public void walkFrom(String after, Predicate<NodeCandidate> visitor) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Collection<NodeCandidate> following = after == null ? nodeCandidates.values()
+                                                                : nodeCandidates.tailMap(after, false).values();
+            for (NodeCandidate nodeCandidate : following) {
+                if (!visitor.test(nodeCandidate)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of node candidates held by the catalog
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return nodeCandidates.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The version of the node candidates, bumped by every change made through the catalog, whether the catalog is
+     * loaded or not (ingestion, synchronization, cleaning, BYON and EDGE registration...)
+     * @return the current version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return true if the catalog content is in memory, false if it would be loaded by the next lookup
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Compute the statistics of the node candidates from the indexes, which are maintained incrementally,
+     * so this costs a walk over the distinct indexed values rather than over the node candidates
+     * @return the statistics, or null if the catalog is not loaded
+     */
+    public NodeCandidateStatistics getStatistics() {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            NodeCandidateStatistics statistics = new NodeCandidateStatistics();
+            statistics.setCount(nodeCandidates.size());
+            byCloudId.forEach((cloudId, ids) -> statistics.getCountByCloud().put(cloudId, (long) ids.size()));
+            byRegion.forEach((region, ids) -> statistics.getCountByRegion().put(region, (long) ids.size()));
+            byNodeType.forEach((nodeType, ids) -> statistics.getCountByNodeType().put(nodeType, (long) ids.size()));
+            byCores.forEach((cores, ids) -> statistics.getCoresHistogram().put(cores, (long) ids.size()));
+            byRam.forEach((ram, ids) -> statistics.getRamHistogram().put(ram, (long) ids.size()));
+            if (!byPrice.isEmpty()) {
+                statistics.setMinPrice(byPrice.firstKey());
+                statistics.setMaxPrice(byPrice.lastKey());
+                long pricedCount = byPrice.values().stream().mapToLong(Set::size).sum();
+                long remaining = (pricedCount - 1) / 2;
+                for (Map.Entry<Double, Set<String>> entry : byPrice.entrySet()) {
+                    remaining -= entry.getValue().size();
+                    if (remaining < 0) {
+                        statistics.setMedianPrice(entry.getKey());
+                        break;
+                    }
+                }
+            }
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a node candidate in the catalog
+     * @param nodeCandidate the stored node candidate
+     */
+    public void put(NodeCandidate nodeCandidate) {
+        if (nodeCandidate == null || nodeCandidate.getId() == null) {
+            return;
+        }
+        update(() -> {
+            NodeCandidate previous = nodeCandidates.put(nodeCandidate.getId(), nodeCandidate);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(nodeCandidate);
+        });
+    }
+
+    /**
+     * Remove a node candidate from the catalog
+     * @param nodeCandidateId the id of the removed node candidate
+     */
+    public void remove(String nodeCandidateId) {
+        if (nodeCandidateId == null) {
+            return;
+        }
+        update(() -> {
+            NodeCandidate previous = nodeCandidates.remove(nodeCandidateId);
+            if (previous != null) {
+                unindex(previous);
+            }
+        });
+    }
+
+    /**
+     * Run some work whose catalog updates must be seen all at once. The updates made by the current thread
+     * while the work runs are buffered, then applied under a single write lock: the lookups keep seeing the
+     * previous content until the work is done, and never wait for it.
+     * @param work the work updating the catalog, e.g. the refresh of the node candidates of a cloud
+     */
+    public void updateAtomically(Runnable work) {
+        if (deferredUpdates.get() != null) {
+            work.run();
+            return;
+        }
+        List<Runnable> updates = new ArrayList<>();
+        deferredUpdates.set(updates);
+        try {
+            work.run();
+        } finally {
+            deferredUpdates.remove();
+            apply(updates);
+        }
+    }
+
+    /**
+     * Drop the catalog content, it will be reloaded from the database on the next lookup
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            clear();
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                clear();
+                nodeCandidateRepository.findAll().forEach(nodeCandidate -> {
+                    nodeCandidates.put(nodeCandidate.getId(), nodeCandidate);
+                    index(nodeCandidate);
+                });
+                loaded = true;
+                LOGGER.info("Node candidate catalog loaded with {} entries.", nodeCandidates.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable update) {
+        List<Runnable> updates = deferredUpdates.get();
+        if (updates != null) {
+            updates.add(update);
+        } else {
+            apply(Collections.singletonList(update));
+        }
+    }
+
+    private void apply(List<Runnable> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // the catalog may not be loaded or have been invalidated meanwhile, it will then be reloaded with
+            // these updates
+            if (loaded) {
+                updates.forEach(Runnable::run);
+            }
+            // bumped after the changes, so that a result computed meanwhile is never recorded with the new version
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        nodeCandidates.clear();
+        byCloudId.clear();
+        byNodeType.clear();
+        byRegion.clear();
+        byCountry.clear();
+        byOsFamily.clear();
+        byCores.clear();
+        byRam.clear();
+        byDisk.clear();
+        byGpu.clear();
+        byPrice.clear();
+    }
+
+    private void index(NodeCandidate nodeCandidate) {
+        updateIndexes(nodeCandidate, (index, key) -> index.computeIfAbsent(key, k -> new HashSet<>())
+                                                          .add(nodeCandidate.getId()));
+    }
+
+    private void unindex(NodeCandidate nodeCandidate) {
+        if (nodeCandidate == null) {
+            return;
+        }
+        updateIndexes(nodeCandidate, (index, key) -> {
+            Set<String> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(nodeCandidate.getId());
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        });
+    }
+
+    private void updateIndexes(NodeCandidate nodeCandidate, IndexUpdate update) {
+        if (nodeCandidate.getCloud() != null) {
+            apply(update, byCloudId, nodeCandidate.getCloud().getId());
+        }
+        if (nodeCandidate.getNodeCandidateType() != null) {
+            apply(update, byNodeType, nodeCandidate.getNodeCandidateType().name());
+        }
+        Location location = nodeCandidate.getLocation();
+        if (location != null) {
+            apply(update, byRegion, location.getName());
+            if (location.getGeoLocation() != null) {
+                apply(update, byCountry, location.getGeoLocation().getCountry());
+            }
+        }
+        Image image = nodeCandidate.getImage();
+        if (image != null && image.getOperatingSystem() != null &&
+            image.getOperatingSystem().getOperatingSystemFamily() != null) {
+            apply(update, byOsFamily, image.getOperatingSystem().getOperatingSystemFamily().name());
+        }
+        Hardware hardware = nodeCandidate.getHardware();
+        if (hardware != null) {
+            apply(update, byCores, hardware.getCores());
+            apply(update, byRam, hardware.getRam());
+            apply(update, byDisk, hardware.getDisk());
+            apply(update, byGpu, hardware.getGpu());
+        }
+        // a node candidate without price has a NaN one, which would be sorted after all the prices
+        if (nodeCandidate.getPrice() != null && !nodeCandidate.getPrice().isNaN()) {
+            apply(update, byPrice, nodeCandidate.getPrice());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> void apply(IndexUpdate update, Map<K, Set<String>> index, K key) {
+        if (key != null) {
+            update.apply((Map<Object, Set<String>>) (Map<?, ?>) index, key);
+        }
+    }
+
+    private Set<String> lookup(Requirement requirement) {
+        if (requirement instanceof NodeTypeRequirement) {
+            List<NodeType> nodeTypes = ((NodeTypeRequirement) requirement).getNodeTypes();
+            if (nodeTypes == null) {
+                return null;
+            }
+            Set<String> matches = new HashSet<>();
+            nodeTypes.forEach(nodeType -> matches.addAll(byNodeType.getOrDefault(nodeType.getLiteral(),
+                                                                                 Collections.emptySet())));
+            return matches;
+        }
+        if (requirement instanceof AttributeRequirement) {
+            try {
+                return lookup((AttributeRequirement) requirement);
+            } catch (NumberFormatException e) {
+                // Let the requirement be evaluated (and reported) by the regular filters
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Set<String> lookup(AttributeRequirement requirement) {
+        String requirementClass = requirement.getRequirementClass();
+        String attribute = requirement.getRequirementAttribute();
+        RequirementOperator operator = requirement.getRequirementOperator();
+        String value = requirement.getValue();
+        if (requirementClass == null || attribute == null || operator == null || value == null) {
+            return null;
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_HARDWARE)) {
+            switch (attribute) {
+                case Hardware.JSON_CORES:
+                    return lookupRange(byCores, operator, Integer.valueOf(value));
+                case Hardware.JSON_RAM:
+                    return lookupRange(byRam, operator, Long.valueOf(value));
+                case Hardware.JSON_DISK:
+                    return lookupRange(byDisk, operator, Double.valueOf(value));
+                case Hardware.JSON_GPU:
+                    return lookupRange(byGpu, operator, Integer.valueOf(value));
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_LOCATION)) {
+            switch (attribute) {
+                case GEO_LOCATION_COUNTRY:
+                    return lookupString(byCountry, operator, value);
+                case Location.JSON_NAME:
+                    return lookupString(byRegion, operator, value);
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_IMAGE) && attribute.equals(OPERATING_SYSTEM_FAMILY)) {
+            return lookupString(byOsFamily, operator, value);
+        }
+        if (requirementClass.toLowerCase(Locale.ROOT).equals(NodeCandidate.JSON_CLOUD) && attribute.equals("id")) {
+            return lookupString(byCloudId, operator, value);
+        }
+        return null;
+    }
+
+    private static <K> Set<String> lookupRange(NavigableMap<K, Set<String>> index, RequirementOperator operator,
+            K value) {
+        switch (operator) {
+            case EQ:
+                return new HashSet<>(index.getOrDefault(value, Collections.emptySet()));
+            case GEQ:
+                return union(index.tailMap(value, true).values());
+            case GT:
+                return union(index.tailMap(value, false).values());
+            case LEQ:
+                return union(index.headMap(value, true).values());
+            case LT:
+                return union(index.headMap(value, false).values());
+            default:
+                return null;
+        }
+    }
+
+    private static Set<String> lookupString(Map<String, Set<String>> index, RequirementOperator operator,
+            String value) {
+        switch (operator) {
+            case EQ:
+                return new HashSet<>(index.getOrDefault(value, Collections.emptySet()));
+            case IN:
+                Set<String> matches = new HashSet<>();
+                index.forEach((key, ids) -> {
+                    if (value.contains(key)) {
+                        matches.addAll(ids);
+                    }
+                });
+                return matches;
+            default:
+                return null;
+        }
+    }
+
+    private static Set<String> union(Collection<Set<String>> sets) {
+        Set<String> result = new HashSet<>();
+        sets.forEach(result::addAll);
+        return result;
+    }
+
+    private static Set<String> intersect(Set<String> selection, Set<String> matches) {
+        if (selection == null) {
+            return matches;
+        }
+        Set<String> smaller = selection.size() <= matches.size() ? selection : matches;
+        Set<String> larger = smaller == selection ? matches : selection;
+        smaller.retainAll(larger);
+        return smaller;
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply(Map<Object, Set<String>> index, Object key);
+    }
+}
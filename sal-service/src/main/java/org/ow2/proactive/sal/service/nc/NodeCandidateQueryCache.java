@@ -0,0 +1,121 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.ow2.proactive.sal.model.AttributeRequirement;
+import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.NodeTypeRequirement;
+import org.ow2.proactive.sal.model.Requirement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Bounded LRU cache of the node candidates matching lists of requirements. The lists are keyed by a canonical form,
+ * so that the same requirements given in another order or with duplicates share their entry. All the entries are
+ * dropped as soon as the {@link NodeCandidateCatalog#getVersion() version} of the node candidates changes.
+ */
+@Log4j2
+@Component
+public class NodeCandidateQueryCache {
+
+    @Autowired
+    private NodeCandidateCatalog nodeCandidateCatalog;
+
+    @Value("${nc.query-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nc.query-cache.max-entries:256}")
+    private long maxEntries;
+
+    private Cache<String, List<NodeCandidate>> results;
+
+    // the version of the node candidates the cached results were computed from
+    private volatile long resultsVersion = -1;
+
+    @PostConstruct
+    private void init() {
+        results = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    /**
+     * Get the node candidates matching a list of requirements, computing them on a miss
+     * @param requirements List of NodeType or Attribute requirements
+     * @param loader Computes the matching node candidates
+     * @return The matching node candidates, as an unmodifiable list shared with the other callers
+     */
+    public List<NodeCandidate> get(List<Requirement> requirements, Supplier<List<NodeCandidate>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        // read before computing, so that a change made meanwhile invalidates the computed result
+        long version = nodeCandidateCatalog.getVersion();
+        if (version != resultsVersion) {
+            synchronized (this) {
+                if (version != resultsVersion) {
+                    results.invalidateAll();
+                    resultsVersion = version;
+                }
+            }
+        }
+        String key = canonicalForm(requirements);
+        List<NodeCandidate> result = results.getIfPresent(key);
+        if (result == null) {
+            result = Collections.unmodifiableList(loader.get());
+            // only recorded if the node candidates did not change while it was computed
+            synchronized (this) {
+                if (version == resultsVersion && version == nodeCandidateCatalog.getVersion()) {
+                    results.put(key, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Build the canonical form of a list of requirements: the requirements are independent from each other, so
+     * they are sorted and deduplicated, as are the node types of a NodeType requirement. The attributes and values are
+     * kept as they are, as the filters are case and format sensitive.
+     */
+    static String canonicalForm(List<Requirement> requirements) {
+        if (requirements == null) {
+            return "";
+        }
+        SortedSet<String> canonicalRequirements = new TreeSet<>();
+        for (Requirement requirement : requirements) {
+            if (requirement instanceof NodeTypeRequirement) {
+                SortedSet<String> nodeTypes = new TreeSet<>();
+                List<?> requiredNodeTypes = ((NodeTypeRequirement) requirement).getNodeTypes();
+                if (requiredNodeTypes != null) {
+                    requiredNodeTypes.forEach(nodeType -> nodeTypes.add(String.valueOf(nodeType)));
+                }
+                canonicalRequirements.add("T" + (requiredNodeTypes == null ? "" : nodeTypes));
+            } else if (requirement instanceof AttributeRequirement) {
+                AttributeRequirement attributeRequirement = (AttributeRequirement) requirement;
+                canonicalRequirements.add(String.join("\u0000",
+                                                      "A",
+                                                      String.valueOf(attributeRequirement.getRequirementClass()),
+                                                      String.valueOf(attributeRequirement.getRequirementAttribute()),
+                                                      String.valueOf(attributeRequirement.getRequirementOperator()),
+                                                      String.valueOf(attributeRequirement.getValue())));
+            } else {
+                canonicalRequirements.add("?" + requirement);
+            }
+        }
+        return String.join("\n", canonicalRequirements);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+
+import org.ow2.proactive.sal.model.Hardware;
+import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.NodeCandidateSortKey;
+
+
+/**
+ * Orderings of node candidates by price and resource efficiency.
+ * The lower the score, the better the node candidate. Node candidates whose score cannot be computed
+ * (no price, no cores, no RAM) are ranked last.
+ */
+public class NodeCandidateRanking {
+
+    private static final double MB_PER_GB = 1024.0;
+
+    private NodeCandidateRanking() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Build the comparator ranking the best node candidates first
+     * @param sortKey The ranking criterion
+     * @param coresWeight Weight of a core in the weighted score
+     * @param ramWeight Weight of a GB of RAM in the weighted score
+     * @return The comparator, ties being broken by node candidate id
+     */
+    public static Comparator<NodeCandidate> comparator(NodeCandidateSortKey sortKey, double coresWeight,
+            double ramWeight) {
+        return Comparator.comparingDouble(scorer(sortKey, coresWeight, ramWeight))
+                         .thenComparing(NodeCandidate::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    /**
+     * Build the scoring function of a ranking criterion
+     * @param sortKey The ranking criterion
+     * @param coresWeight Weight of a core in the weighted score
+     * @param ramWeight Weight of a GB of RAM in the weighted score
+     * @return The score of a node candidate, the lower the better
+     */
+    public static ToDoubleFunction<NodeCandidate> scorer(NodeCandidateSortKey sortKey, double coresWeight,
+            double ramWeight) {
+        switch (sortKey) {
+            case PRICE:
+                return NodeCandidateRanking::price;
+            case PRICE_PER_CORE:
+                return nodeCandidate -> perUnit(price(nodeCandidate), cores(nodeCandidate));
+            case PRICE_PER_GB_RAM:
+                return nodeCandidate -> perUnit(price(nodeCandidate), ramInGb(nodeCandidate));
+            case WEIGHTED_SCORE:
+                return nodeCandidate -> perUnit(price(nodeCandidate),
+                                                coresWeight * cores(nodeCandidate) +
+                                                                      ramWeight * ramInGb(nodeCandidate));
+            default:
+                throw new IllegalArgumentException("Unsupported sort key: " + sortKey);
+        }
+    }
+
+    private static double price(NodeCandidate nodeCandidate) {
+        return nodeCandidate.getPrice() == null ? Double.POSITIVE_INFINITY : nodeCandidate.getPrice();
+    }
+
+    private static double cores(NodeCandidate nodeCandidate) {
+        Hardware hardware = nodeCandidate.getHardware();
+        return hardware == null || hardware.getCores() == null ? 0 : hardware.getCores();
+    }
+
+    private static double ramInGb(NodeCandidate nodeCandidate) {
+        Hardware hardware = nodeCandidate.getHardware();
+        return hardware == null || hardware.getRam() == null ? 0 : hardware.getRam() / MB_PER_GB;
+    }
+
+    private static double perUnit(double price, double units) {
+        return units > 0 ? price / units : Double.POSITIVE_INFINITY;
+    }
+}
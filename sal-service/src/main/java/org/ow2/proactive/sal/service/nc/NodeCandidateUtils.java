@@ -7,39 +7,44 @@ package org.ow2.proactive.sal.service.nc;
 
 import static org.ow2.proactive.sal.model.CloudProviderType.*;
 
-import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
 import org.javatuples.Pair;
-import org.javatuples.Quartet;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.ow2.proactive.sal.model.*;
 import org.ow2.proactive.sal.service.service.RepositoryService;
 import org.ow2.proactive.sal.service.service.infrastructure.PAConnectorIaasGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.*;
 import org.ow2.proactive.sal.service.util.GeoLocationUtils;
+import org.ow2.proactive.sal.service.util.JCloudsInstancesUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.extern.log4j.Log4j2;
 
 
 @Log4j2
 @Component
-public class NodeCandidateUtils {
+public class NodeCandidateUtils implements ApplicationListener<ApplicationReadyEvent> {
 
     @Autowired
     private PAConnectorIaasGateway connectorIaasGateway;
@@ -47,323 +52,261 @@ public class NodeCandidateUtils {
     @Autowired
     private RepositoryService repositoryService;
 
+    @Autowired
+    private ConnectorResponseCache connectorResponseCache;
+
+    @Autowired
+    private NodeCandidateCatalog nodeCandidateCatalog;
+
     private static RepositoryService staticRepositoryService;
 
-    private GeoLocationUtils geoLocationUtils;
+    // how often a stage blocked on a full queue checks whether the refresh was stopped meanwhile
+    private static final long STOPPED_CHECK_INTERVAL = 100;
+
+    // put by the mapping stage once all the pages are mapped, compared by identity
+    private static final MappedPage END_OF_PAGES = new MappedPage(null, null);
+
+    @Value("${nc.refresh.threads:8}")
+    private int refreshThreads;
 
-    private LoadingCache<Quartet<PACloud, String, String, String>, JSONArray> nodeCandidatesCache;
+    @Value("${nc.refresh.max-pending-pages:16}")
+    private int maxPendingPages;
+
+    private ExecutorService refreshExecutor;
+
+    private ExecutorService mappingExecutor;
+
+    // the clouds whose node candidates are being fetched or synchronized, so that they are never refreshed twice at once
+    private final Set<String> refreshingCloudIds = ConcurrentHashMap.newKeySet();
 
     @PostConstruct
-    private void initStaticAttributes() {
+    private void init() {
         staticRepositoryService = this.repositoryService;
+        refreshExecutor = Executors.newFixedThreadPool(refreshThreads,
+                                                       new ThreadFactoryBuilder().setNameFormat("nc-refresh-%d")
+                                                                                 .setDaemon(true)
+                                                                                 .build());
+        // one mapping task per refreshed cloud, never waiting for the refresh executor
+        mappingExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("nc-mapping-%d")
+                                                                                  .setDaemon(true)
+                                                                                  .build());
     }
 
-    public void initNodeCandidateUtils() {
-        geoLocationUtils = new GeoLocationUtils();
-        nodeCandidatesCache = CacheBuilder.newBuilder()
-                                          .maximumSize(100)
-                                          .expireAfterWrite(60, TimeUnit.MINUTES)
-                                          .build(new CacheLoader<Quartet<PACloud, String, String, String>, JSONArray>() {
-                                              @Override
-                                              public JSONArray load(Quartet<PACloud, String, String, String> key) {
-                                                  return getAllPagedNodeCandidates(key.getValue0(),
-                                                                                   key.getValue1(),
-                                                                                   key.getValue2(),
-                                                                                   key.getValue3());
-                                              }
-                                          });
+    @PreDestroy
+    private void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+        mappingExecutor.shutdownNow();
     }
 
+    /**
+     * Check if a node candidate satisfies all the given requirements.
+     * When the same requirements are checked against many node candidates, prefer compiling them once with
+     * {@link RequirementCompiler#compile(List)}.
+     * @param requirements List of NodeType or Attribute requirements
+     * @param nodeCandidate The node candidate to check
+     * @return true if the node candidate satisfies all the requirements, false otherwise
+     */
     public static boolean verifyAllFilters(List<Requirement> requirements, NodeCandidate nodeCandidate) {
-        if (requirements == null || requirements.isEmpty()) {
-            LOGGER.info("   Satisfy all requirements!!!");
-            return true;
-        }
-        if (requirements.get(0) instanceof NodeTypeRequirement) {
-            if (satisfyNodeTypeRequirement((NodeTypeRequirement) requirements.get(0), nodeCandidate)) {
-                LOGGER.info("   satisfyNodeTypeRequirement:       YES");
-                return verifyAllFilters(requirements.subList(1, requirements.size()), nodeCandidate);
-            }
-            LOGGER.info("   satisfyNodeTypeRequirement:       NO");
-            return false;
-        }
-        if (requirements.get(0) instanceof AttributeRequirement) {
-            if (satisfyAttributeRequirement((AttributeRequirement) requirements.get(0), nodeCandidate)) {
-                LOGGER.info("   satisfyAttributeRequirement:       YES");
-                return verifyAllFilters(requirements.subList(1, requirements.size()), nodeCandidate);
-            }
-            LOGGER.info("   satisfyAttributeRequirement:       NO");
-            return false;
-        }
-        LOGGER.warn("Unknown requirement type. It could not be applied: " + requirements.get(0).toString());
-        return verifyAllFilters(requirements.subList(1, requirements.size()), nodeCandidate);
-    }
-
-    private static boolean satisfyAttributeRequirement(AttributeRequirement attributeRequirement,
-            NodeCandidate nodeCandidate) {
-        // THIS LOG IS ADDED FOR TESTING,TO BE IMPROVED LATER
-        LOGGER.info("Checking the attribute requirement: \n {} \n for node candidate \"{}\" ",
-                    attributeRequirement.toString(),
-                    nodeCandidate.getId());
-        // THIS LOG IS ADDED FOR TESTING,TO BE IMPROVED LATER
-        if (attributeRequirement.getRequirementClass().equals(NodeCandidate.JSON_HARDWARE)) {
-            switch (attributeRequirement.getRequirementAttribute()) {
-                case Hardware.JSON_RAM:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getRam(),
-                                                        Long.valueOf(attributeRequirement.getValue()));
-                case Hardware.JSON_CORES:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getCores(),
-                                                        Integer.valueOf(attributeRequirement.getValue()));
-                case Hardware.JSON_DISK:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getDisk(),
-                                                        Double.valueOf(attributeRequirement.getValue()));
-                case Hardware.JSON_FPGA:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getFpga(),
-                                                        Integer.valueOf(attributeRequirement.getValue()));
-                case Hardware.JSON_CPU_FREQUENCY:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getCpuFrequency(),
-                                                        Double.valueOf(attributeRequirement.getValue()));
-
-                case Hardware.JSON_GPU:
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getHardware().getGpu(),
-                                                        Integer.valueOf(attributeRequirement.getValue()));
-
-                case Hardware.JSON_NAME:
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getHardware().getName(),
-                                                                                 attributeRequirement.getValue());
-            }
-        }
-        if (attributeRequirement.getRequirementClass().equals(NodeCandidate.JSON_LOCATION)) {
-            //            if (attributeRequirement.getRequirementAttribute().equals("geoLocation.country")) {
-            switch (attributeRequirement.getRequirementAttribute()) {
-                case "geoLocation.country":
-                    return attributeRequirement.getRequirementOperator()
-                                               .compare(nodeCandidate.getLocation().getGeoLocation().getCountry(),
-                                                        attributeRequirement.getValue());
-                case Location.JSON_NAME:
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getLocation().getName(),
-                                                                                 attributeRequirement.getValue());
-            }
-        }
-        if (attributeRequirement.getRequirementClass().equals(NodeCandidate.JSON_IMAGE)) {
-            switch (attributeRequirement.getRequirementAttribute()) {
-                case Image.JSON_NAME:
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getImage().getName(),
-                                                                                 attributeRequirement.getValue());
-                case Image.JSON_ID:
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getImage().getId(),
-                                                                                 attributeRequirement.getValue());
-                case "operatingSystem.family":
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getImage()
-                                                                                              .getOperatingSystem()
-                                                                                              .getOperatingSystemFamily()
-                                                                                              .name(),
-                                                                                 attributeRequirement.getValue());
-                case "operatingSystem.version":
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getImage()
-                                                                                              .getOperatingSystem()
-                                                                                              .getOperatingSystemVersion()
-                                                                                              .toString(),
-                                                                                 attributeRequirement.getValue());
-            }
-        }
-        if (attributeRequirement.getRequirementClass().toLowerCase(Locale.ROOT).equals("cloud")) {
-            if (attributeRequirement.getRequirementAttribute().equals("type")) {
-                return attributeRequirement.getRequirementOperator()
-                                           .compare(nodeCandidate.getCloud().getCloudType().name(),
-                                                    attributeRequirement.getValue());
-            }
-            if (attributeRequirement.getRequirementAttribute().equals("id")) {
-                return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getCloud().getId(),
-                                                                             attributeRequirement.getValue());
-            }
-        }
-        if (attributeRequirement.getRequirementClass().toLowerCase(Locale.ROOT).equals("environment")) {
-            if (attributeRequirement.getRequirementAttribute().equals("runtime")) {
-                return attributeRequirement.getRequirementOperator()
-                                           .compare(nodeCandidate.getEnvironment().getRuntime().name(),
-                                                    attributeRequirement.getValue());
-            }
-        }
-        if (attributeRequirement.getRequirementClass().toLowerCase(Locale.ROOT).equals("name")) {
-            if (attributeRequirement.getRequirementAttribute().equals("placementName")) {
-                if (nodeCandidate.getNodeCandidateType() == NodeCandidate.NodeCandidateTypeEnum.BYON ||
-                    nodeCandidate.getNodeCandidateType() == NodeCandidate.NodeCandidateTypeEnum.EDGE) {
-                    return attributeRequirement.getRequirementOperator().compare(nodeCandidate.getHardware().getName(),
-                                                                                 attributeRequirement.getValue());
-                }
-            }
-        }
-        LOGGER.warn("Unknown requirement type. It could not be applied: " + attributeRequirement.toString());
-        return true;
+        return RequirementCompiler.compile(requirements).test(nodeCandidate);
+    }
 
+    /**
+     * Check if a node candidate can be deployed: BYON and EDGE node candidates always can, the other ones only if
+     * their instance type is handled by jclouds or white listed
+     * @param nodeCandidate The node candidate to check
+     * @return true if the node candidate can be deployed, false otherwise
+     */
+    public static boolean isDeployable(NodeCandidate nodeCandidate) {
+        return nodeCandidate.isByonNodeCandidate() || nodeCandidate.isEdgeNodeCandidate() ||
+               isDeployableInstanceType(nodeCandidate.getCloud().getApi().getProviderName(),
+                                        nodeCandidate.getHardware().getName());
     }
 
-    private static boolean satisfyNodeTypeRequirement(NodeTypeRequirement requirement, NodeCandidate nodeCandidate) {
-        return (requirement.getNodeTypes().stream().anyMatch(nodeType -> {
-            if (nodeType.getLiteral().equals(nodeCandidate.getNodeCandidateType().name())) {
-                return true;
-            } else { // THIS LOG IS ADDED FOR TESTING,TO BE IMPROVED LATER
-                LOGGER.info("the nodeType in the requirement \"{}\" is mismatched with the node candidate \"{}\" nodeType \"{}\"",
-                            nodeType.getLiteral(),
-                            nodeCandidate.getId(),
-                            nodeCandidate.getNodeCandidateType().name());
-                return false;
-            }
-        }));
+    /**
+     * Check if the node candidates of an instance type can be deployed, see {@link #isDeployable(NodeCandidate)}
+     * @param providerName The cloud provider id
+     * @param instanceType The instance type to check
+     * @return true if the instance type is handled by jclouds or white listed, false otherwise
+     */
+    public static boolean isDeployableInstanceType(String providerName, String instanceType) {
+        return JCloudsInstancesUtils.isHandledHardwareInstanceType(providerName, instanceType) ||
+               WhiteListedInstanceTypesUtils.isHandledHardwareInstanceType(instanceType);
+    }
+
+    /**
+     * Recompute the deployable flag of the stored node candidates once the application is started, as the handled
+     * and white listed instance types may have changed with the new version
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        try {
+            repositoryService.refreshDeployableFlags();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not refresh the deployable flag of the node candidates, it will be computed on the fly: {}",
+                        e.getMessage());
+        }
     }
 
-    private Hardware createHardware(JSONObject nodeCandidateJSON, PACloud paCloud) {
-        JSONObject hardwareJSON = nodeCandidateJSON.optJSONObject("hw");
-        String hardwareId = paCloud.getCloudId() + "/" + nodeCandidateJSON.optString("region") + "/" +
-                            hardwareJSON.optString("type");
-        Hardware hardware = repositoryService.getHardware(hardwareId);
-        if (hardware == null) {
-            hardware = new Hardware();
+    private Hardware createHardware(ConnectorNodeCandidate nodeCandidateJSON, PACloud paCloud,
+            DimensionCache dimensionCache) {
+        ConnectorHardware hardwareJSON = nodeCandidateJSON.getHw();
+        String hardwareId = paCloud.getCloudId() + "/" + nodeCandidateJSON.getRegion() + "/" + hardwareJSON.getType();
+        return dimensionCache.getHardware(hardwareId, id -> {
+            Hardware hardware = new Hardware();
             hardware.setId(hardwareId);
-            hardware.setName(hardwareJSON.optString("type"));
-            hardware.setProviderId(hardwareJSON.optString("type"));
-            hardware.setCores(Math.round(Float.parseFloat(hardwareJSON.optString("minCores"))));
-            String minRam = hardwareJSON.optString("minRam");
+            hardware.setName(hardwareJSON.getType());
+            hardware.setProviderId(hardwareJSON.getType());
+            hardware.setCores(Math.round(Float.parseFloat(hardwareJSON.getMinCores())));
+            String minRam = hardwareJSON.getMinRam();
             if (minRam.endsWith(".0")) {
                 minRam = minRam.replace(".0", "");
             }
             hardware.setRam(Long.valueOf(minRam));
-            hardware.setCpuFrequency(Double.valueOf(hardwareJSON.optString("minFreq")));
+            hardware.setCpuFrequency(Double.valueOf(hardwareJSON.getMinFreq()));
 
-            CloudProviderType cloudProvider = CloudProviderType.fromValue(nodeCandidateJSON.optString("cloud"));
+            CloudProviderType cloudProvider = CloudProviderType.fromValue(nodeCandidateJSON.getCloud());
 
-            hardware.setCloudFpga(cloudProvider, hardwareJSON.optString("type"));
+            hardware.setCloudFpga(cloudProvider, hardwareJSON.getType());
 
-            hardware.setCloudGpu(cloudProvider, hardwareJSON.optString("type"));
+            hardware.setCloudGpu(cloudProvider, hardwareJSON.getType());
 
             if (cloudProvider == AWS_EC2) {
                 hardware.setDisk((double) 8);
             } else {
                 hardware.setDisk((double) 0);
             }
-            hardware.setLocation(createLocation(nodeCandidateJSON, paCloud));
-
-            repositoryService.saveHardware(hardware);
-        }
+            hardware.setLocation(createLocation(nodeCandidateJSON, paCloud, dimensionCache));
 
-        return hardware;
+            Hardware storedHardware = repositoryService.getHardware(id);
+            if (storedHardware == null) {
+                repositoryService.saveHardware(hardware);
+                return hardware;
+            }
+            if (updateHardware(storedHardware, hardware)) {
+                repositoryService.saveHardware(storedHardware);
+                dimensionCache.markUpdated(Hardware.class, id);
+            }
+            return storedHardware;
+        });
     }
 
-    private Location createLocation(JSONObject nodeCandidateJSON, PACloud paCloud) {
-        String locationId = paCloud.getCloudId() + "/" + nodeCandidateJSON.optString("region");
-        Location location = repositoryService.getLocation(locationId);
-        if (location == null) {
-            location = new Location();
+    private Location createLocation(ConnectorNodeCandidate nodeCandidateJSON, PACloud paCloud,
+            DimensionCache dimensionCache) {
+        String locationId = paCloud.getCloudId() + "/" + nodeCandidateJSON.getRegion();
+        return dimensionCache.getLocation(locationId, id -> {
+            Location location = new Location();
             location.setId(locationId);
-            location.setName(nodeCandidateJSON.optString("region"));
-            location.setProviderId(nodeCandidateJSON.optString("region"));
+            location.setName(nodeCandidateJSON.getRegion());
+            location.setProviderId(nodeCandidateJSON.getRegion());
             location.setLocationScope(Location.LocationScopeEnum.REGION);
             location.setIsAssignable(true);
             location.setGeoLocation(createGeoLocation(paCloud.getCloudProvider(), location.getName()));
 
-            repositoryService.saveLocation(location);
-        }
-        return location;
+            Location storedLocation = repositoryService.getLocation(id);
+            if (storedLocation == null) {
+                repositoryService.saveLocation(location);
+                return location;
+            }
+            if (updateLocation(storedLocation, location)) {
+                repositoryService.saveLocation(storedLocation);
+                dimensionCache.markUpdated(Location.class, id);
+            }
+            return storedLocation;
+        });
     }
 
     private GeoLocation createGeoLocation(CloudProviderType cloudProvider, String region) {
-        switch (cloudProvider) {
-            case AWS_EC2:
-                return new GeoLocation(geoLocationUtils.findGeoLocation("AWS", region));
-            case AZURE:
-                return new GeoLocation(geoLocationUtils.findGeoLocation("Azure", region));
-            case GCE:
-                return new GeoLocation(geoLocationUtils.findGeoLocation("GCE", region));
-            case OPENSTACK:
-                return new GeoLocation(geoLocationUtils.findGeoLocation("OVH", region));
+        String regionsCloud = GeoLocationUtils.getRegionsCloud(cloudProvider);
+        if (regionsCloud == null) {
+            LOGGER.warn("Cloud provider name no handled for Geo Location.");
+            return new GeoLocation();
         }
-        LOGGER.warn("Cloud provider name no handled for Geo Location.");
-        return new GeoLocation();
+        return new GeoLocation(GeoLocationUtils.getInstance().findGeoLocation(regionsCloud, region));
     }
 
-    private Image createImage(JSONObject nodeCandidateJSON, JSONObject imageJSON, PACloud paCloud) {
-        String imageId = paCloud.getCloudId() + "/" + imageJSON.optString("id");
-        Image image = repositoryService.getImage(imageId);
-        if (image == null) {
-            image = new Image();
+    private Image createImage(ConnectorNodeCandidate nodeCandidateJSON, ConnectorImage imageJSON, PACloud paCloud,
+            DimensionCache dimensionCache) {
+        String imageId = paCloud.getCloudId() + "/" + imageJSON.getId();
+        return dimensionCache.getImage(imageId, id -> {
+            Image image = new Image();
             image.setId(imageId);
-            image.setName(imageJSON.optString("name"));
-            image.setProviderId(StringUtils.substringAfterLast(imageJSON.optString("id"), "/"));
+            image.setName(imageJSON.getName());
+            image.setProviderId(StringUtils.substringAfterLast(imageJSON.getId(), "/"));
             OperatingSystem os = new OperatingSystem();
-            JSONObject osJSON = imageJSON.optJSONObject("operatingSystem");
-            os.setOperatingSystemFamily(OperatingSystemFamily.fromValue(osJSON.optString("family").toUpperCase()));
+            ConnectorOperatingSystem osJSON = imageJSON.getOperatingSystem();
+            os.setOperatingSystemFamily(OperatingSystemFamily.fromValue(osJSON.getFamily().toUpperCase()));
 
             String arch = "";
-            CloudProviderType cloudProvider = CloudProviderType.fromValue(nodeCandidateJSON.optString("cloud"));
+            CloudProviderType cloudProvider = CloudProviderType.fromValue(nodeCandidateJSON.getCloud());
             if (cloudProvider == AWS_EC2) {
-                if (nodeCandidateJSON.optJSONObject("hw").optString("type").startsWith("a")) {
-                    arch = osJSON.optBoolean("is64Bit") ? "ARM64" : "ARM";
+                if (nodeCandidateJSON.getHw().getType().startsWith("a")) {
+                    arch = osJSON.is64Bit() ? "ARM64" : "ARM";
                 } else {
-                    arch = osJSON.optBoolean("is64Bit") ? "AMD64" : "i386";
+                    arch = osJSON.is64Bit() ? "AMD64" : "i386";
                 }
             } else if (cloudProvider == AZURE) {
-                image.setId(imageJSON.optString("id"));
-                arch = osJSON.optString("arch");
+                image.setId(imageJSON.getId());
+                arch = osJSON.getArch();
             }
             os.setOperatingSystemArchitecture(OperatingSystemArchitecture.fromValue(arch));
-            os.setOperatingSystemVersion(osJSON.optBigDecimal("version", BigDecimal.valueOf(0)));
+            os.setOperatingSystemVersion(osJSON.getVersion());
             image.setOperatingSystem(os);
-            image.setLocation(createLocation(nodeCandidateJSON, paCloud));
-
-            repositoryService.saveImage(image);
-        }
+            image.setLocation(createLocation(nodeCandidateJSON, paCloud, dimensionCache));
 
-        return image;
+            Image storedImage = repositoryService.getImage(id);
+            if (storedImage == null) {
+                repositoryService.saveImage(image);
+                return image;
+            }
+            if (updateImage(storedImage, image)) {
+                repositoryService.saveImage(storedImage);
+                dimensionCache.markUpdated(Image.class, id);
+            }
+            return storedImage;
+        });
     }
 
-    private Cloud createCloud(JSONObject nodeCandidateJSON, PACloud paCloud) {
-        Cloud cloud = repositoryService.getCloud(paCloud.getCloudId());
-        if (cloud == null) {
-            cloud = new Cloud();
-            cloud.setId(paCloud.getCloudId());
-            cloud.setCloudType(paCloud.getCloudType());
-            cloud.setApi(new Api(nodeCandidateJSON.optString("cloud")));
-            cloud.setCredential(new CloudCredential());
-            cloud.setCloudConfiguration(new CloudConfiguration("", new HashMap<>()));
+    private Cloud createCloud(ConnectorNodeCandidate nodeCandidateJSON, PACloud paCloud,
+            DimensionCache dimensionCache) {
+        return dimensionCache.getCloud(paCloud.getCloudId(), id -> {
+            Cloud cloud = repositoryService.getCloud(id);
+            if (cloud == null) {
+                cloud = new Cloud();
+                cloud.setId(paCloud.getCloudId());
+                cloud.setCloudType(paCloud.getCloudType());
+                cloud.setApi(new Api(nodeCandidateJSON.getCloud()));
+                cloud.setCredential(new CloudCredential());
+                cloud.setCloudConfiguration(new CloudConfiguration("", new HashMap<>()));
+
+                repositoryService.saveCloud(cloud);
+            }
+            return cloud;
+        });
+    }
 
-            repositoryService.saveCloud(cloud);
-        }
-        return cloud;
+    public NodeCandidate createNodeCandidate(ConnectorNodeCandidate nodeCandidateJSON, ConnectorImage imageJSON,
+            PACloud paCloud) {
+        return createNodeCandidate(nodeCandidateJSON, imageJSON, paCloud, new DimensionCache());
     }
 
-    public NodeCandidate createNodeCandidate(JSONObject nodeCandidateJSON, JSONObject imageJSON, PACloud paCloud) {
+    private NodeCandidate createNodeCandidate(ConnectorNodeCandidate nodeCandidateJSON, ConnectorImage imageJSON,
+            PACloud paCloud, DimensionCache dimensionCache) {
         NodeCandidate nodeCandidate = new NodeCandidate();
         nodeCandidate.setNodeCandidateType(NodeCandidate.NodeCandidateTypeEnum.IAAS);
-        nodeCandidate.setPrice(nodeCandidateJSON.optDouble(nodeCandidate.JSON_PRICE));
-        nodeCandidate.setCloud(createCloud(nodeCandidateJSON, paCloud));
+        nodeCandidate.setPrice(nodeCandidateJSON.getPrice() == null ? Double.NaN : nodeCandidateJSON.getPrice());
+        nodeCandidate.setCloud(createCloud(nodeCandidateJSON, paCloud, dimensionCache));
 
-        nodeCandidate.setLocation(createLocation(nodeCandidateJSON, paCloud));
-        nodeCandidate.setImage(createImage(nodeCandidateJSON, imageJSON, paCloud));
-        nodeCandidate.setHardware(createHardware(nodeCandidateJSON, paCloud));
+        nodeCandidate.setLocation(createLocation(nodeCandidateJSON, paCloud, dimensionCache));
+        nodeCandidate.setImage(createImage(nodeCandidateJSON, imageJSON, paCloud, dimensionCache));
+        nodeCandidate.setHardware(createHardware(nodeCandidateJSON, paCloud, dimensionCache));
 
         nodeCandidate.setPricePerInvocation((double) 0);
         nodeCandidate.setMemoryPrice((double) 0);
         nodeCandidate.setEnvironment(new Environment());
+        nodeCandidate.setDeployable(isDeployable(nodeCandidate));
         return nodeCandidate;
     }
 
-    private static JSONObject convertObjectToJson(Object object) {
-        JSONObject myJson = null;
-        try {
-            myJson = new JSONObject(new ObjectMapper().writeValueAsString(object));
-        } catch (IOException e) {
-            LOGGER.error("Error in casting Hashmap to JSON: " + Arrays.toString(e.getStackTrace()));
-        }
-        return myJson;
-    }
-
     private String getOsAccordingToCloudProvider(CloudProviderType cloudProviderType, String os)
             throws IllegalArgumentException {
         switch (cloudProviderType) {
@@ -382,31 +325,137 @@ public class NodeCandidateUtils {
 
     public void saveNodeCandidates(List<String> newCloudIds) {
         newCloudIds.forEach(newCloudId -> {
-            PACloud paCloud = repositoryService.getPACloud(newCloudId);
-            LOGGER.info("Getting blacklisted regions...");
-            List<String> blacklistedRegions = Arrays.asList(paCloud.getBlacklist().split(","));
-            LOGGER.info("Blacklisted regions: {}", blacklistedRegions);
-
-            LOGGER.info("Getting images from Proactive ...");
-            JSONArray images = connectorIaasGateway.getImages(paCloud.getDummyInfrastructureName());
-            if (images == null) {
-                LOGGER.warn(String.format("No available images were found for the cloud [%s]. Please check your configuration.",
-                                          paCloud.getCloudId()));
+            if (!refreshingCloudIds.add(newCloudId)) {
+                LOGGER.info("The node candidates of the cloud [{}] are already being refreshed.", newCloudId);
                 return;
             }
-            LOGGER.info("Returned images: {}", images);
-            Map<Pair<String, String>, List<JSONObject>> consolidatedImagesGrouped = images.toList()
-                                                                                          .parallelStream()
-                                                                                          .map(NodeCandidateUtils::convertObjectToJson)
-                                                                                          .filter(record -> record.get("location")
-                                                                                                                  .toString()
-                                                                                                                  .isEmpty() ||
-                                                                                                            !blacklistedRegions.contains(record.get("location")))
+            try {
+                PACloud paCloud = repositoryService.getPACloud(newCloudId);
+                fetchIaasNodeCandidates(paCloud, new DimensionCache(), (region, newNodeCandidates) -> {
+                    repositoryService.saveIaasNodeCandidates(newNodeCandidates);
+                    LOGGER.info("{} node candidates stored for the region [{}] of the cloud [{}]",
+                                newNodeCandidates.size(),
+                                region,
+                                paCloud.getCloudId());
+                });
+            } finally {
+                refreshingCloudIds.remove(newCloudId);
+            }
+        });
+
+        repositoryService.flush();
+    }
+
+    /**
+     * Synchronize the stored IAAS node candidates of clouds with the ones currently offered by the connector.
+     * Only the new node candidates are inserted, only the ones whose prices, hardware, location or image changed are
+     * updated and only the ones that are gone are deleted. The kept node candidates keep their ids, and so their nodes.
+     * @param cloudIds The ids of the clouds to synchronize
+     */
+    public void syncNodeCandidates(List<String> cloudIds) {
+        cloudIds.forEach(this::syncCloudNodeCandidates);
+    }
+
+    /**
+     * Synchronize the stored IAAS node candidates of a cloud, see {@link #syncNodeCandidates(List)}.
+     * The node candidate catalog switches to the synchronized node candidates of the cloud at once, when the
+     * synchronization ends; until then the lookups are served with the previous ones.
+     * @param cloudId The id of the cloud to synchronize
+     * @return false if the node candidates of the cloud were already being refreshed, so nothing was done
+     */
+    public boolean syncCloudNodeCandidates(String cloudId) {
+        if (!refreshingCloudIds.add(cloudId)) {
+            LOGGER.info("The node candidates of the cloud [{}] are already being refreshed.", cloudId);
+            return false;
+        }
+        try {
+            nodeCandidateCatalog.updateAtomically(() -> doSyncCloudNodeCandidates(cloudId));
+            return true;
+        } finally {
+            refreshingCloudIds.remove(cloudId);
+        }
+    }
+
+    private void doSyncCloudNodeCandidates(String cloudId) {
+        PACloud paCloud = repositoryService.getPACloud(cloudId);
+        // the synchronization is meant to see the current offer of the connector
+        connectorResponseCache.evictCloud(cloudId);
+        Map<String, NodeCandidate> storedNodeCandidates = new HashMap<>();
+        List<NodeCandidate> toBeDeleted = new ArrayList<>();
+        repositoryService.listIaasNodeCandidates(cloudId).forEach(nodeCandidate -> {
+            if (storedNodeCandidates.putIfAbsent(fingerprint(nodeCandidate), nodeCandidate) != null) {
+                toBeDeleted.add(nodeCandidate);
+            }
+        });
+        Set<String> fetchedFingerprints = new HashSet<>();
+        long[] inserted = { 0 };
+        long[] updated = { 0 };
+        DimensionCache dimensionCache = new DimensionCache();
+        boolean complete = fetchIaasNodeCandidates(paCloud, dimensionCache, (region, fetchedNodeCandidates) -> {
+            List<NodeCandidate> newNodeCandidates = new ArrayList<>();
+            List<NodeCandidate> changedNodeCandidates = new ArrayList<>();
+            fetchedNodeCandidates.forEach(fetchedNodeCandidate -> {
+                String fingerprint = fingerprint(fetchedNodeCandidate);
+                if (!fetchedFingerprints.add(fingerprint)) {
+                    return;
+                }
+                NodeCandidate storedNodeCandidate = storedNodeCandidates.remove(fingerprint);
+                if (storedNodeCandidate == null) {
+                    newNodeCandidates.add(fetchedNodeCandidate);
+                } else if (updateNodeCandidate(storedNodeCandidate, fetchedNodeCandidate, dimensionCache)) {
+                    changedNodeCandidates.add(storedNodeCandidate);
+                }
+            });
+            repositoryService.storeIaasNodeCandidates(newNodeCandidates, changedNodeCandidates);
+            inserted[0] += newNodeCandidates.size();
+            updated[0] += changedNodeCandidates.size();
+        });
+        if (complete) {
+            toBeDeleted.addAll(storedNodeCandidates.values());
+        } else {
+            LOGGER.warn("Some node candidates of the cloud [{}] could not be fetched, the stored ones are kept.",
+                        paCloud.getCloudId());
+        }
+        repositoryService.deleteNodeCandidates(toBeDeleted);
+        LOGGER.info("Node candidates of the cloud [{}] synchronized: {} inserted, {} updated, {} deleted",
+                    paCloud.getCloudId(),
+                    inserted[0],
+                    updated[0],
+                    toBeDeleted.size());
+    }
+
+    /**
+     * Fetch the IAAS node candidates of a cloud from the connector, grouped by region and image requirement.
+     * The node candidates of a region are handed at once, so that they are stored in a single transaction; the
+     * groups are fetched region after region, so that few regions are held in memory at the same time.
+     * @param paCloud The cloud
+     * @param dimensionCache Resolves the clouds, locations, images and hardware shared by the node candidates
+     * @param fetchedRegionConsumer Called, from the calling thread, with each region and its fetched node candidates
+     * @return true if all the groups were fetched, false otherwise
+     */
+    private boolean fetchIaasNodeCandidates(PACloud paCloud, DimensionCache dimensionCache,
+            BiConsumer<String, List<NodeCandidate>> fetchedRegionConsumer) {
+        LOGGER.info("Getting blacklisted regions...");
+        List<String> blacklistedRegions = Arrays.asList(paCloud.getBlacklist().split(","));
+        LOGGER.info("Blacklisted regions: {}", blacklistedRegions);
+
+        LOGGER.info("Getting images from Proactive ...");
+        List<ConnectorImage> images = connectorIaasGateway.getImages(paCloud.getDummyInfrastructureName());
+        if (images == null) {
+            LOGGER.warn(String.format("No available images were found for the cloud [%s]. Please check your configuration.",
+                                      paCloud.getCloudId()));
+            return false;
+        }
+        LOGGER.info("{} images returned", images.size());
+        Map<Pair<String, String>, List<ConnectorImage>> consolidatedImagesGrouped = images.stream()
+                                                                                          .filter(image -> StringUtils.isEmpty(image.getLocation()) ||
+                                                                                                           !blacklistedRegions.contains(image.getLocation()))
                                                                                           .collect(Collectors.groupingBy(image -> {
                                                                                               // Retrieve the region
-                                                                                              String region = image.optString("location");
+                                                                                              String region = StringUtils.defaultString(image.getLocation());
                                                                                               // Retrieve the imageReq
-                                                                                              String os = (String) ((JSONObject) image.get("operatingSystem")).get("family");
+                                                                                              String os = image.getOperatingSystem()
+                                                                                                               .getFamily();
                                                                                               os = os.substring(0, 1)
                                                                                                      .toUpperCase() +
                                                                                                    os.substring(1);
@@ -417,87 +466,358 @@ public class NodeCandidateUtils {
                                                                                                                 imageReq);
                                                                                           }));
 
-            consolidatedImagesGrouped.entrySet().parallelStream().forEach(entry -> {
-                String region = entry.getKey().getValue0();
-                String imageReq = entry.getKey().getValue1();
-                List<JSONObject> imageList = entry.getValue();
+        // the node candidates go through three stages: the page chains of the groups are walked concurrently in the
+        // refresh executor, the fetched pages are mapped to node candidates, resolving their dimensions, by a task of
+        // the mapping executor, and the mapped pages are gathered by region and stored by this thread. Each queue
+        // between two stages holds at most maxPendingPages pages, so that a slower stage holds back the previous one.
+        BlockingQueue<FetchedPage> fetchedPages = new ArrayBlockingQueue<>(maxPendingPages);
+        BlockingQueue<MappedPage> mappedPages = new ArrayBlockingQueue<>(maxPendingPages);
+        // set when this thread stops consuming the pages, so that the other stages stop too
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Future<?>> pageChains = new ArrayList<>(consolidatedImagesGrouped.size());
+        Future<Boolean> mapping = null;
+        boolean consumed = false;
+        try {
+            // the groups are walked in the order of their regions, so that the regions end one after the other
+            new TreeMap<>(consolidatedImagesGrouped).forEach((group,
+                    groupImages) -> pageChains.add(refreshExecutor.submit(() -> {
+                        walkIaasNodeCandidatePages(paCloud,
+                                                   group.getValue0(),
+                                                   group.getValue1(),
+                                                   groupImages,
+                                                   fetchedPages,
+                                                   stopped);
+                        return null;
+                    })));
+            Map<String, Long> regionGroups = new HashMap<>();
+            consolidatedImagesGrouped.keySet().forEach(group -> regionGroups.merge(group.getValue0(), 1L, Long::sum));
+            mapping = mappingExecutor.submit(() -> mapIaasNodeCandidatePages(paCloud,
+                                                                             dimensionCache,
+                                                                             regionGroups,
+                                                                             fetchedPages,
+                                                                             mappedPages,
+                                                                             stopped));
+            Map<String, List<NodeCandidate>> fetchedRegions = new HashMap<>();
+            MappedPage mappedPage;
+            while ((mappedPage = mappedPages.take()) != END_OF_PAGES) {
+                List<NodeCandidate> regionNodeCandidates = fetchedRegions.computeIfAbsent(mappedPage.region,
+                                                                                          region -> new ArrayList<>());
+                if (mappedPage.nodeCandidates != null) {
+                    regionNodeCandidates.addAll(mappedPage.nodeCandidates);
+                } else {
+                    fetchedRegions.remove(mappedPage.region);
+                    fetchedRegionConsumer.accept(mappedPage.region, regionNodeCandidates);
+                }
+            }
+            consumed = true;
+            return mapping.get();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while fetching the node candidates of the cloud [{}]", paCloud.getCloudId());
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.error("Could not map the node candidates of the cloud [{}]: ", paCloud.getCloudId(), e);
+            return false;
+        } finally {
+            // whether interrupted or failing to store a page, the other stages must not keep waiting for this thread
+            if (!consumed) {
+                stopped.set(true);
+                pageChains.forEach(pageChain -> pageChain.cancel(true));
+                if (mapping != null) {
+                    mapping.cancel(true);
+                }
+                fetchedPages.clear();
+                mappedPages.clear();
+            }
+        }
+    }
 
-                try {
-                    JSONArray nodeCandidates = nodeCandidatesCache.get(Quartet.with(paCloud, region, imageReq, ""));
+    /**
+     * Walk the pages of node candidates of a (region, image requirement) group, following the next page tokens,
+     * and put each page in the queue of the fetched pages as soon as it is fetched, then the end of the group,
+     * even if the walk failed. The walk stops when the refresh has stopped.
+     */
+    private void walkIaasNodeCandidatePages(PACloud paCloud, String region, String imageReq,
+            List<ConnectorImage> images, BlockingQueue<FetchedPage> fetchedPages, AtomicBoolean stopped)
+            throws InterruptedException {
+        boolean fetched = false;
+        try {
+            Set<String> walkedTokens = new HashSet<>();
+            String token = "";
+            do {
+                if (!walkedTokens.add(token)) {
+                    LOGGER.warn("The connector returned the page token {} twice for region {} and imageReq {}",
+                                token,
+                                region,
+                                imageReq);
+                    break;
+                }
+                ConnectorNodeCandidatesPage page = fetchNodeCandidatesPage(paCloud, region, imageReq, token);
+                if (!put(fetchedPages, new FetchedPage(region, images, page, true), stopped)) {
+                    return;
+                }
+                token = page.getNextToken();
+            } while (!StringUtils.isEmpty(token));
+            fetched = true;
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not get node candidates from the connector: ", e);
+        } finally {
+            put(fetchedPages, FetchedPage.endOfGroup(region, fetched), stopped);
+        }
+    }
 
-                    imageList.forEach(image -> createAndStoreIaasNodesAndNodeCandidates(nodeCandidates,
-                                                                                        paCloud,
-                                                                                        image));
-                } catch (ExecutionException e) {
-                    LOGGER.error("Could not get node candidates from cache: ", e);
+    /**
+     * Map the fetched pages to node candidates, resolving their clouds, locations, images and hardware, and put the
+     * node candidates of each page in the queue of the mapped pages, until every page chain has put the end of its
+     * group. The end of a region is put once all its groups have ended, and the end of the pages once all the
+     * regions have ended, even if the mapping failed.
+     * @param regionGroups The number of groups of each region
+     * @return true if all the groups were fetched and mapped, false otherwise
+     */
+    private boolean mapIaasNodeCandidatePages(PACloud paCloud, DimensionCache dimensionCache,
+            Map<String, Long> regionGroups, BlockingQueue<FetchedPage> fetchedPages,
+            BlockingQueue<MappedPage> mappedPages, AtomicBoolean stopped) throws InterruptedException {
+        boolean complete = true;
+        try {
+            Map<String, Long> remainingGroups = new HashMap<>(regionGroups);
+            while (!remainingGroups.isEmpty()) {
+                FetchedPage fetchedPage = fetchedPages.take();
+                if (fetchedPage.page == null) {
+                    complete &= fetchedPage.fetched;
+                    if (remainingGroups.merge(fetchedPage.region, -1L, Long::sum) == 0) {
+                        remainingGroups.remove(fetchedPage.region);
+                        if (!put(mappedPages, MappedPage.endOfRegion(fetchedPage.region), stopped)) {
+                            return false;
+                        }
+                    }
+                    continue;
                 }
-            });
+                List<NodeCandidate> newNodeCandidates;
+                try {
+                    newNodeCandidates = mapIaasNodeCandidatePage(paCloud, dimensionCache, fetchedPage);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Could not map node candidates of the cloud [{}]: ", paCloud.getCloudId(), e);
+                    complete = false;
+                    continue;
+                }
+                if (!put(mappedPages, new MappedPage(fetchedPage.region, newNodeCandidates), stopped)) {
+                    return false;
+                }
+            }
+        } finally {
+            put(mappedPages, END_OF_PAGES, stopped);
+        }
+        return complete;
+    }
 
-        });
+    private List<NodeCandidate> mapIaasNodeCandidatePage(PACloud paCloud, DimensionCache dimensionCache,
+            FetchedPage fetchedPage) {
+        List<ConnectorNodeCandidate> pageNodeCandidates = fetchedPage.page.getNodeCandidates();
+        List<NodeCandidate> newNodeCandidates = new ArrayList<>(pageNodeCandidates.size() * fetchedPage.images.size());
+        for (ConnectorImage image : fetchedPage.images) {
+            for (ConnectorNodeCandidate nodeCandidateJSON : pageNodeCandidates) {
+                newNodeCandidates.add(createNodeCandidate(nodeCandidateJSON, image, paCloud, dimensionCache));
+            }
+        }
+        return newNodeCandidates;
+    }
 
-        repositoryService.flush();
+    /**
+     * Put an item in the queue between two stages, unless the refresh is stopped while the queue is full
+     * @return false if the refresh was stopped, true otherwise
+     */
+    private static <T> boolean put(BlockingQueue<T> queue, T item, AtomicBoolean stopped)
+            throws InterruptedException {
+        while (!queue.offer(item, STOPPED_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (stopped.get()) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private void createAndStoreIaasNodesAndNodeCandidates(JSONArray nodeCandidates, PACloud paCloud, JSONObject image) {
-        nodeCandidates.forEach(nc -> {
-            JSONObject nodeCandidate = (JSONObject) nc;
-            createLocation(nodeCandidate, paCloud);
-            NodeCandidate newNodeCandidate = createNodeCandidate(nodeCandidate, image, paCloud);
-            repositoryService.saveNodeCandidate(newNodeCandidate);
-            IaasNode newIaasNode = new IaasNode(newNodeCandidate);
-            repositoryService.saveIaasNode(newIaasNode);
-            newNodeCandidate.setNodeId(newIaasNode.getId());
-            repositoryService.saveNodeCandidate(newNodeCandidate);
-        });
+    /**
+     * Identify an IAAS node candidate independently of its id: two node candidates with the same fingerprint
+     * offer the same hardware with the same image in the same region of the same cloud
+     */
+    private static String fingerprint(NodeCandidate nodeCandidate) {
+        return String.join("|",
+                           nodeCandidate.getCloud().getId(),
+                           nodeCandidate.getLocation().getId(),
+                           nodeCandidate.getHardware().getId(),
+                           nodeCandidate.getImage().getId());
     }
 
-    private JSONArray getAllPagedNodeCandidates(PACloud paCloud, String region, String imageReq, String token) {
-        JSONObject nodeCandidates = connectorIaasGateway.getNodeCandidates(paCloud.getDummyInfrastructureName(),
-                                                                           region,
-                                                                           imageReq,
-                                                                           token);
-        try {
-            if (!nodeCandidates.optString("nextToken").isEmpty()) {
-                return (joinJSONArrays(nodeCandidates.optJSONArray("nodeCandidates"),
-                                       nodeCandidatesCache.get(Quartet.with(paCloud,
-                                                                            region,
-                                                                            imageReq,
-                                                                            nodeCandidates.optString("nextToken")))));
-            }
-        } catch (ExecutionException ee) {
-            LOGGER.error("Could not get node candidates from cache: ", ee);
+    private static boolean updatePrices(NodeCandidate storedNodeCandidate, NodeCandidate fetchedNodeCandidate) {
+        if (Objects.equals(storedNodeCandidate.getPrice(), fetchedNodeCandidate.getPrice()) &&
+            Objects.equals(storedNodeCandidate.getPricePerInvocation(), fetchedNodeCandidate.getPricePerInvocation()) &&
+            Objects.equals(storedNodeCandidate.getMemoryPrice(), fetchedNodeCandidate.getMemoryPrice())) {
+            return false;
+        }
+        storedNodeCandidate.setPrice(fetchedNodeCandidate.getPrice());
+        storedNodeCandidate.setPricePerInvocation(fetchedNodeCandidate.getPricePerInvocation());
+        storedNodeCandidate.setMemoryPrice(fetchedNodeCandidate.getMemoryPrice());
+        return true;
+    }
+
+    /**
+     * Update a stored node candidate with a fetched one of the same fingerprint: its prices, and its hardware,
+     * location and image if their attributes were updated from the connector during this synchronization
+     * @return true if the stored node candidate was updated, false otherwise
+     */
+    private static boolean updateNodeCandidate(NodeCandidate storedNodeCandidate, NodeCandidate fetchedNodeCandidate,
+            DimensionCache dimensionCache) {
+        boolean updated = updatePrices(storedNodeCandidate, fetchedNodeCandidate);
+        if (dimensionCache.isUpdated(Hardware.class, fetchedNodeCandidate.getHardware().getId()) ||
+            dimensionCache.isUpdated(Location.class, fetchedNodeCandidate.getLocation().getId()) ||
+            dimensionCache.isUpdated(Image.class, fetchedNodeCandidate.getImage().getId())) {
+            // the fetched node candidate holds the updated dimensions, so that the catalog indexes them
+            storedNodeCandidate.setHardware(fetchedNodeCandidate.getHardware());
+            storedNodeCandidate.setLocation(fetchedNodeCandidate.getLocation());
+            storedNodeCandidate.setImage(fetchedNodeCandidate.getImage());
+            updated = true;
         }
-        return (nodeCandidates.optJSONArray("nodeCandidates"));
+        return updated;
     }
 
-    private JSONArray joinJSONArrays(JSONArray... jsonArrays) {
-        JSONArray resultJSONArray = new JSONArray();
-        Arrays.stream(jsonArrays)
-              .forEach(jsonArray -> IntStream.range(0, jsonArray.length())
-                                             .mapToObj(jsonArray::get)
-                                             .forEach(resultJSONArray::put));
-        return resultJSONArray;
+    /**
+     * Copy the attributes given by the connector of a fetched hardware to the stored one
+     * @return true if some attribute changed, false otherwise
+     */
+    private static boolean updateHardware(Hardware storedHardware, Hardware fetchedHardware) {
+        if (Objects.equals(storedHardware.getName(), fetchedHardware.getName()) &&
+            Objects.equals(storedHardware.getProviderId(), fetchedHardware.getProviderId()) &&
+            Objects.equals(storedHardware.getCores(), fetchedHardware.getCores()) &&
+            Objects.equals(storedHardware.getRam(), fetchedHardware.getRam()) &&
+            Objects.equals(storedHardware.getCpuFrequency(), fetchedHardware.getCpuFrequency()) &&
+            Objects.equals(storedHardware.getDisk(), fetchedHardware.getDisk()) &&
+            Objects.equals(storedHardware.getFpga(), fetchedHardware.getFpga()) &&
+            Objects.equals(storedHardware.getGpu(), fetchedHardware.getGpu())) {
+            return false;
+        }
+        storedHardware.setName(fetchedHardware.getName());
+        storedHardware.setProviderId(fetchedHardware.getProviderId());
+        storedHardware.setCores(fetchedHardware.getCores());
+        storedHardware.setRam(fetchedHardware.getRam());
+        storedHardware.setCpuFrequency(fetchedHardware.getCpuFrequency());
+        storedHardware.setDisk(fetchedHardware.getDisk());
+        storedHardware.setFpga(fetchedHardware.getFpga());
+        storedHardware.setGpu(fetchedHardware.getGpu());
+        return true;
+    }
+
+    private static boolean updateLocation(Location storedLocation, Location fetchedLocation) {
+        if (Objects.equals(storedLocation.getName(), fetchedLocation.getName()) &&
+            Objects.equals(storedLocation.getProviderId(), fetchedLocation.getProviderId()) &&
+            Objects.equals(storedLocation.getGeoLocation(), fetchedLocation.getGeoLocation())) {
+            return false;
+        }
+        storedLocation.setName(fetchedLocation.getName());
+        storedLocation.setProviderId(fetchedLocation.getProviderId());
+        storedLocation.setGeoLocation(fetchedLocation.getGeoLocation());
+        return true;
+    }
+
+    private static boolean updateImage(Image storedImage, Image fetchedImage) {
+        if (Objects.equals(storedImage.getName(), fetchedImage.getName()) &&
+            Objects.equals(storedImage.getProviderId(), fetchedImage.getProviderId()) &&
+            Objects.equals(storedImage.getOperatingSystem(), fetchedImage.getOperatingSystem())) {
+            return false;
+        }
+        storedImage.setName(fetchedImage.getName());
+        storedImage.setProviderId(fetchedImage.getProviderId());
+        storedImage.setOperatingSystem(fetchedImage.getOperatingSystem());
+        return true;
+    }
+
+    private ConnectorNodeCandidatesPage fetchNodeCandidatesPage(PACloud paCloud, String region, String imageReq,
+            String token) {
+        ConnectorNodeCandidatesPage nodeCandidates = connectorResponseCache.get(paCloud.getCloudId(),
+                                                                                region,
+                                                                                imageReq,
+                                                                                token);
+        if (nodeCandidates == null) {
+            nodeCandidates = connectorIaasGateway.getNodeCandidates(paCloud.getDummyInfrastructureName(),
+                                                                    region,
+                                                                    imageReq,
+                                                                    token);
+            connectorResponseCache.put(paCloud.getCloudId(), region, imageReq, token, nodeCandidates);
+        }
+        return nodeCandidates;
     }
 
+    /**
+     * Delete the node candidates of clouds, with their nodes, then the dimensions that are not used anymore.
+     * The node candidates are deleted chunk by chunk, each chunk in its own transaction.
+     * @param newCloudIds The ids of the clouds
+     * @return The number of deleted node candidates
+     */
     public long cleanNodeCandidates(List<String> newCloudIds) {
-        List<NodeCandidate> nodeCandidatesToBeRemoved = repositoryService.listNodeCandidates()
-                                                                         .stream()
-                                                                         .filter(nodeCandidate -> newCloudIds.contains(nodeCandidate.getCloud()
-                                                                                                                                    .getId()))
-                                                                         .collect(Collectors.toList());
-        try {
-            LOGGER.info("Deleting nodes associated with the clouds {}", newCloudIds);
-            // TODO: try finding a way to delete the nodes in batch rather than one by one
-            repositoryService.deleteBatchNodes(nodeCandidatesToBeRemoved);
-        } catch (Exception e) {
-            LOGGER.error("An error occurred when deleting the nodes of the clouds {}: {}", newCloudIds, e);
+        long cleaned = 0;
+        for (String cloudId : newCloudIds) {
+            LOGGER.info("Deleting the node candidates and nodes associated with the cloud {}", cloudId);
+            try {
+                int deleted;
+                do {
+                    deleted = repositoryService.deleteCloudNodeCandidatesChunk(cloudId);
+                    cleaned += deleted;
+                } while (deleted > 0);
+            } catch (Exception e) {
+                LOGGER.error("An error occurred when deleting the node candidates of the cloud {}: {}", cloudId, e);
+            }
         }
         try {
-            LOGGER.info("Deleting node candidates associated with the clouds {}", newCloudIds);
-            repositoryService.deleteBatchNodeCandidates(newCloudIds);
+            repositoryService.deleteOrphanDimensions();
         } catch (Exception e) {
-            LOGGER.error("An error occurred when deleting the node candidates of the clouds {}: {}", newCloudIds, e);
+            LOGGER.error("An error occurred when deleting the orphan clouds, images, hardware and locations: {}",
+                         e);
+        }
+        return cleaned;
+    }
+
+    /**
+     * A page of node candidates fetched for the images of a group, or the end of a group when there is no page
+     */
+    private static class FetchedPage {
+
+        private final String region;
+
+        private final List<ConnectorImage> images;
+
+        private final ConnectorNodeCandidatesPage page;
+
+        // for the end of a group, whether all its pages were fetched
+        private final boolean fetched;
+
+        private FetchedPage(String region, List<ConnectorImage> images, ConnectorNodeCandidatesPage page,
+                boolean fetched) {
+            this.region = region;
+            this.images = images;
+            this.page = page;
+            this.fetched = fetched;
+        }
+
+        private static FetchedPage endOfGroup(String region, boolean fetched) {
+            return new FetchedPage(region, null, null, fetched);
+        }
+    }
+
+    /**
+     * The node candidates mapped from a fetched page of a region, or the end of a region when there are none
+     */
+    private static class MappedPage {
+
+        private final String region;
+
+        private final List<NodeCandidate> nodeCandidates;
+
+        private MappedPage(String region, List<NodeCandidate> nodeCandidates) {
+            this.region = region;
+            this.nodeCandidates = nodeCandidates;
+        }
+
+        private static MappedPage endOfRegion(String region) {
+            return new MappedPage(region, null);
         }
-        return nodeCandidatesToBeRemoved.size();
     }
 }
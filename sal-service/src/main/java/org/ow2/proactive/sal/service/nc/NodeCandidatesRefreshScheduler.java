@@ -0,0 +1,114 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.ow2.proactive.sal.model.PACloud;
+import org.ow2.proactive.sal.service.service.RepositoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Periodically synchronizes the node candidates of every registered cloud in the background, so that their prices
+ * stay up to date. The refresh of each cloud is delayed by a random jitter and at most a fixed number of clouds are
+ * refreshed at once, so that the connector-iaas is not flooded. The node candidate lookups are served with the
+ * previous node candidates of a cloud until its refresh ends.
+ */
+@Log4j2
+@Component
+public class NodeCandidatesRefreshScheduler {
+
+    @Autowired
+    private NodeCandidateUtils nodeCandidateUtils;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Value("${nc.refresh.interval-minutes:720}")
+    private long intervalMinutes;
+
+    @Value("${nc.refresh.jitter-seconds:300}")
+    private long jitterSeconds;
+
+    @Value("${nc.refresh.max-concurrent-clouds:2}")
+    private int maxConcurrentClouds;
+
+    // the clouds whose refresh is scheduled and not finished yet, so that a slow refresh is not queued again
+    private final Set<String> scheduledCloudIds = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    private void init() {
+        if (intervalMinutes <= 0) {
+            LOGGER.info("Scheduled refresh of the node candidates disabled.");
+            return;
+        }
+        // one thread per concurrently refreshed cloud, the scheduling itself only takes a thread for an instant
+        scheduler = Executors.newScheduledThreadPool(maxConcurrentClouds,
+                                                     new ThreadFactoryBuilder().setNameFormat("nc-scheduled-refresh-%d")
+                                                                               .setDaemon(true)
+                                                                               .build());
+        scheduler.scheduleAtFixedRate(this::scheduleRefreshes, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        LOGGER.info("Node candidates of the clouds refreshed every {} minutes.", intervalMinutes);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void scheduleRefreshes() {
+        // an exception escaping a periodic task would cancel all the next executions
+        try {
+            for (PACloud paCloud : repositoryService.listPACloud()) {
+                String cloudId = paCloud.getCloudId();
+                if (scheduledCloudIds.add(cloudId)) {
+                    long jitter = jitterSeconds > 0 ? ThreadLocalRandom.current()
+                                                                       .nextLong(TimeUnit.SECONDS.toMillis(jitterSeconds))
+                                                    : 0;
+                    scheduler.schedule(() -> refresh(cloudId), jitter, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not schedule the refresh of the node candidates: {}", e.getMessage(), e);
+        }
+    }
+
+    private void refresh(String cloudId) {
+        try {
+            // the cloud may have been removed since the refresh was scheduled
+            if (repositoryService.getPACloud(cloudId) != null) {
+                LOGGER.info("Scheduled refresh of the node candidates of the cloud [{}] started.", cloudId);
+                nodeCandidateUtils.syncCloudNodeCandidates(cloudId);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Scheduled refresh of the node candidates of the cloud [{}] failed: {}",
+                        cloudId,
+                        e.getMessage(),
+                        e);
+        } finally {
+            scheduledCloudIds.remove(cloudId);
+        }
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.model.Runtime;
+import org.ow2.proactive.sal.service.util.GeoLocationUtils;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Turns a list of NodeType and Attribute requirements into a single {@link Predicate} on node candidates.
+ * The requirement classes, attributes and operators are resolved and the values are parsed once per list,
+ * so testing a node candidate does not involve any string dispatch, parsing or allocation.
+ * The checks are ordered from the cheapest to the most expensive one.
+ * <p>
+ * On top of the plain attributes, the location can be constrained by distance with the {@value #GEO_DISTANCE}
+ * attribute, whose value is {@code <latitude>,<longitude>,<kilometers>} and whose operator compares the distance of
+ * the node candidate to the point with the kilometers, and with the {@value #GEO_NEAREST} attribute, whose value is
+ * {@code <latitude>,<longitude>,<k>} and which only keeps the node candidates located in one of the k known cloud
+ * regions nearest to the point.
+ */
+@Log4j2
+public class RequirementCompiler {
+
+    public static final String GEO_DISTANCE = "geoLocation.distance";
+
+    public static final String GEO_NEAREST = "geoLocation.nearest";
+
+    private static final int NODE_TYPE_COST = 0;
+
+    private static final int NUMBER_COST = 1;
+
+    private static final int ENUM_COST = 1;
+
+    private static final int STRING_EQUALITY_COST = 2;
+
+    private static final int STRING_SEARCH_COST = 3;
+
+    private static final int GEO_DISTANCE_COST = 3;
+
+    // absorbs the rounding errors when a region is compared with its own distance to the point
+    private static final double GEO_DISTANCE_TOLERANCE_KM = 1e-6;
+
+    private RequirementCompiler() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Compile a list of requirements into a predicate
+     * @param requirements List of NodeType or Attribute requirements
+     * @return A predicate that is true for the node candidates satisfying all the requirements
+     */
+    public static Predicate<NodeCandidate> compile(List<Requirement> requirements) {
+        if (requirements == null || requirements.isEmpty()) {
+            return nodeCandidate -> true;
+        }
+        List<Check> checks = new ArrayList<>(requirements.size());
+        for (Requirement requirement : requirements) {
+            Check check = compile(requirement);
+            if (check != null) {
+                checks.add(check);
+            }
+        }
+        checks.sort(Comparator.comparingInt(check -> check.cost));
+        List<Predicate<NodeCandidate>> predicates = new ArrayList<>(checks.size());
+        checks.forEach(check -> predicates.add(check.predicate));
+        return new CompiledRequirements(predicates);
+    }
+
+    /**
+     * Compile each requirement of a list into its own predicate, to find out which requirements a node candidate
+     * does not satisfy
+     * @param requirements List of NodeType or Attribute requirements
+     * @return One predicate per requirement, in the same order. The requirements that cannot be applied match all
+     *         the node candidates.
+     */
+    public static List<Predicate<NodeCandidate>> compileEach(List<Requirement> requirements) {
+        List<Predicate<NodeCandidate>> predicates = new ArrayList<>();
+        if (requirements != null) {
+            for (Requirement requirement : requirements) {
+                Check check = compile(requirement);
+                predicates.add(check == null ? nodeCandidate -> true : check.predicate);
+            }
+        }
+        return predicates;
+    }
+
+    private static Check compile(Requirement requirement) {
+        if (requirement instanceof NodeTypeRequirement) {
+            return new Check(NODE_TYPE_COST, compileNodeTypeRequirement((NodeTypeRequirement) requirement));
+        }
+        if (requirement instanceof AttributeRequirement) {
+            Check check = compileAttributeRequirement((AttributeRequirement) requirement);
+            if (check == null) {
+                LOGGER.warn("Unknown requirement type. It could not be applied: " + requirement.toString());
+            }
+            return check;
+        }
+        LOGGER.warn("Unknown requirement type. It could not be applied: " + requirement);
+        return null;
+    }
+
+    private static Predicate<NodeCandidate> compileNodeTypeRequirement(NodeTypeRequirement requirement) {
+        EnumSet<NodeCandidate.NodeCandidateTypeEnum> nodeCandidateTypes = EnumSet.noneOf(NodeCandidate.NodeCandidateTypeEnum.class);
+        if (requirement.getNodeTypes() != null) {
+            requirement.getNodeTypes().forEach(nodeType -> {
+                for (NodeCandidate.NodeCandidateTypeEnum nodeCandidateType : NodeCandidate.NodeCandidateTypeEnum.values()) {
+                    if (nodeCandidateType.name().equals(nodeType.getLiteral())) {
+                        nodeCandidateTypes.add(nodeCandidateType);
+                    }
+                }
+            });
+        }
+        return nodeCandidate -> nodeCandidate.getNodeCandidateType() != null &&
+                                nodeCandidateTypes.contains(nodeCandidate.getNodeCandidateType());
+    }
+
+    private static Check compileAttributeRequirement(AttributeRequirement requirement) {
+        String requirementClass = requirement.getRequirementClass();
+        String attribute = requirement.getRequirementAttribute();
+        RequirementOperator operator = requirement.getRequirementOperator();
+        String value = requirement.getValue();
+        if (requirementClass == null || attribute == null || operator == null || value == null) {
+            return null;
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_HARDWARE)) {
+            switch (attribute) {
+                case Hardware.JSON_RAM:
+                    return new Check(NUMBER_COST,
+                                     compareLong(hardware(Hardware::getRam), operator, Long.parseLong(value)));
+                case Hardware.JSON_CORES:
+                    return new Check(NUMBER_COST,
+                                     compareInteger(hardware(Hardware::getCores), operator, Integer.parseInt(value)));
+                case Hardware.JSON_DISK:
+                    return new Check(NUMBER_COST,
+                                     compareDouble(hardware(Hardware::getDisk), operator, Double.parseDouble(value)));
+                case Hardware.JSON_FPGA:
+                    return new Check(NUMBER_COST,
+                                     compareInteger(hardware(Hardware::getFpga), operator, Integer.parseInt(value)));
+                case Hardware.JSON_CPU_FREQUENCY:
+                    return new Check(NUMBER_COST,
+                                     compareDouble(hardware(Hardware::getCpuFrequency),
+                                                   operator,
+                                                   Double.parseDouble(value)));
+                case Hardware.JSON_GPU:
+                    return new Check(NUMBER_COST,
+                                     compareInteger(hardware(Hardware::getGpu), operator, Integer.parseInt(value)));
+                case Hardware.JSON_NAME:
+                    return compareString(hardware(Hardware::getName), operator, value);
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_LOCATION)) {
+            switch (attribute) {
+                case "geoLocation.country":
+                    return compareString(location(location -> location.getGeoLocation() == null ? null
+                                                                                                : location.getGeoLocation()
+                                                                                                          .getCountry()),
+                                         operator,
+                                         value);
+                case Location.JSON_NAME:
+                    return compareString(location(Location::getName), operator, value);
+                case GEO_DISTANCE:
+                    return compileDistanceRequirement(operator, value);
+                case GEO_NEAREST:
+                    return compileNearestRequirement(operator, value);
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_IMAGE)) {
+            switch (attribute) {
+                case Image.JSON_NAME:
+                    return compareString(image(Image::getName), operator, value);
+                case Image.JSON_ID:
+                    return compareString(image(Image::getId), operator, value);
+                case "operatingSystem.family":
+                    return compareEnum(image(image -> image.getOperatingSystem() == null ? null
+                                                                                         : image.getOperatingSystem()
+                                                                                                .getOperatingSystemFamily()),
+                                       OperatingSystemFamily.class,
+                                       operator,
+                                       value);
+                case "operatingSystem.version":
+                    return compareString(image(image -> image.getOperatingSystem() == null ||
+                                                        image.getOperatingSystem().getOperatingSystemVersion() == null ? null
+                                                                                                                       : image.getOperatingSystem()
+                                                                                                                              .getOperatingSystemVersion()
+                                                                                                                              .toString()),
+                                         operator,
+                                         value);
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.toLowerCase(Locale.ROOT).equals("cloud")) {
+            if (attribute.equals("type")) {
+                return compareEnum(cloud(Cloud::getCloudType), CloudType.class, operator, value);
+            }
+            if (attribute.equals("id")) {
+                return compareString(cloud(Cloud::getId), operator, value);
+            }
+        }
+        if (requirementClass.toLowerCase(Locale.ROOT).equals("environment") && attribute.equals("runtime")) {
+            return compareEnum(nodeCandidate -> nodeCandidate.getEnvironment() == null ? null
+                                                                                       : nodeCandidate.getEnvironment()
+                                                                                                      .getRuntime(),
+                               Runtime.class,
+                               operator,
+                               value);
+        }
+        if (requirementClass.toLowerCase(Locale.ROOT).equals("name") && attribute.equals("placementName")) {
+            Check hardwareName = compareString(hardware(Hardware::getName), operator, value);
+            return new Check(hardwareName.cost,
+                             nodeCandidate -> (nodeCandidate.getNodeCandidateType() != NodeCandidate.NodeCandidateTypeEnum.BYON &&
+                                               nodeCandidate.getNodeCandidateType() != NodeCandidate.NodeCandidateTypeEnum.EDGE) ||
+                                              hardwareName.predicate.test(nodeCandidate));
+        }
+        return null;
+    }
+
+    private static Check compileDistanceRequirement(RequirementOperator operator, String value) {
+        double[] arguments = parseGeoArguments(value);
+        return new Check(GEO_DISTANCE_COST,
+                         compareDouble(distanceTo(arguments[0], arguments[1]), operator, arguments[2]));
+    }
+
+    private static Check compileNearestRequirement(RequirementOperator operator, String value) {
+        if (operator != RequirementOperator.EQ) {
+            throw new IllegalArgumentException("Illegal operation on the nearest regions: " + operator);
+        }
+        double[] arguments = parseGeoArguments(value);
+        List<GeoLocationData> nearest = GeoLocationUtils.getInstance()
+                                                        .findNearestGeoLocations(arguments[0],
+                                                                                 arguments[1],
+                                                                                 (int) arguments[2]);
+        if (nearest.isEmpty()) {
+            return new Check(NODE_TYPE_COST, nodeCandidate -> false);
+        }
+        // the (region, cloud) pairs of the nearest regions are found once here, each node candidate then only has to
+        // be in one of them; the regions as near as the farthest one are kept too, so that ties do not depend on the
+        // index
+        GeoLocationData farthest = nearest.get(nearest.size() - 1);
+        double radiusKm = GeoLocationUtils.distanceKm(arguments[0],
+                                                      arguments[1],
+                                                      farthest.getLatitude(),
+                                                      farthest.getLongitude()) +
+                          GEO_DISTANCE_TOLERANCE_KM;
+        Map<String, Set<String>> nearestRegionsClouds = new HashMap<>();
+        GeoLocationUtils.getInstance()
+                        .findGeoLocationsWithin(arguments[0], arguments[1], radiusKm)
+                        .forEach(region -> nearestRegionsClouds.computeIfAbsent(region.getRegion(),
+                                                                                key -> new HashSet<>())
+                                                               .add(region.getCloud()));
+        Function<NodeCandidate, String> regionName = location(Location::getName);
+        Function<NodeCandidate, String> regionsCloud = cloud(RequirementCompiler::regionsCloud);
+        return new Check(STRING_EQUALITY_COST, nodeCandidate -> {
+            Set<String> clouds = nearestRegionsClouds.get(regionName.apply(nodeCandidate));
+            return clouds != null && clouds.contains(regionsCloud.apply(nodeCandidate));
+        });
+    }
+
+    private static String regionsCloud(Cloud cloud) {
+        if (cloud.getApi() == null) {
+            return null;
+        }
+        return GeoLocationUtils.getRegionsCloud(CloudProviderType.fromValue(cloud.getApi().getProviderName()));
+    }
+
+    private static double[] parseGeoArguments(String value) {
+        String[] arguments = value.split(",");
+        if (arguments.length != 3) {
+            throw new IllegalArgumentException("Expected <latitude>,<longitude>,<number> but got: " + value);
+        }
+        return new double[] { Double.parseDouble(arguments[0].trim()),
+                              Double.parseDouble(arguments[1].trim()),
+                              Double.parseDouble(arguments[2].trim()) };
+    }
+
+    private static Function<NodeCandidate, Double> distanceTo(double latitude, double longitude) {
+        return location(location -> {
+            GeoLocation geoLocation = location.getGeoLocation();
+            if (geoLocation == null || geoLocation.getLatitude() == null || geoLocation.getLongitude() == null) {
+                return null;
+            }
+            return GeoLocationUtils.distanceKm(latitude,
+                                               longitude,
+                                               geoLocation.getLatitude(),
+                                               geoLocation.getLongitude());
+        });
+    }
+
+    private static <T> Function<NodeCandidate, T> hardware(Function<Hardware, T> getter) {
+        return nodeCandidate -> nodeCandidate.getHardware() == null ? null : getter.apply(nodeCandidate.getHardware());
+    }
+
+    private static <T> Function<NodeCandidate, T> location(Function<Location, T> getter) {
+        return nodeCandidate -> nodeCandidate.getLocation() == null ? null : getter.apply(nodeCandidate.getLocation());
+    }
+
+    private static <T> Function<NodeCandidate, T> image(Function<Image, T> getter) {
+        return nodeCandidate -> nodeCandidate.getImage() == null ? null : getter.apply(nodeCandidate.getImage());
+    }
+
+    private static <T> Function<NodeCandidate, T> cloud(Function<Cloud, T> getter) {
+        return nodeCandidate -> nodeCandidate.getCloud() == null ? null : getter.apply(nodeCandidate.getCloud());
+    }
+
+    private static Predicate<NodeCandidate> compareInteger(Function<NodeCandidate, Integer> getter,
+            RequirementOperator operator, int value) {
+        switch (operator) {
+            case EQ:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute == value;
+                };
+            case NEQ:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute != value;
+                };
+            case LEQ:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute <= value;
+                };
+            case GEQ:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute >= value;
+                };
+            case LT:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute < value;
+                };
+            case GT:
+                return nodeCandidate -> {
+                    Integer attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute > value;
+                };
+            default:
+                throw new IllegalArgumentException("Illegal operation between Integers: " + operator);
+        }
+    }
+
+    private static Predicate<NodeCandidate> compareLong(Function<NodeCandidate, Long> getter,
+            RequirementOperator operator, long value) {
+        switch (operator) {
+            case EQ:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute == value;
+                };
+            case NEQ:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute != value;
+                };
+            case LEQ:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute <= value;
+                };
+            case GEQ:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute >= value;
+                };
+            case LT:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute < value;
+                };
+            case GT:
+                return nodeCandidate -> {
+                    Long attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute > value;
+                };
+            default:
+                throw new IllegalArgumentException("Illegal operation between Longs: " + operator);
+        }
+    }
+
+    private static Predicate<NodeCandidate> compareDouble(Function<NodeCandidate, Double> getter,
+            RequirementOperator operator, double value) {
+        switch (operator) {
+            case EQ:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && Double.compare(attribute, value) == 0;
+                };
+            case NEQ:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && Double.compare(attribute, value) != 0;
+                };
+            case LEQ:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute <= value;
+                };
+            case GEQ:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute >= value;
+                };
+            case LT:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute < value;
+                };
+            case GT:
+                return nodeCandidate -> {
+                    Double attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute > value;
+                };
+            default:
+                throw new IllegalArgumentException("Illegal operation between Doubles: " + operator);
+        }
+    }
+
+    private static Check compareString(Function<NodeCandidate, String> getter, RequirementOperator operator,
+            String value) {
+        switch (operator) {
+            case EQ:
+                return new Check(STRING_EQUALITY_COST, nodeCandidate -> value.equals(getter.apply(nodeCandidate)));
+            case NEQ:
+                return new Check(STRING_EQUALITY_COST, nodeCandidate -> {
+                    String attribute = getter.apply(nodeCandidate);
+                    return attribute != null && !value.equals(attribute);
+                });
+            case IN:
+                return new Check(STRING_SEARCH_COST, nodeCandidate -> {
+                    String attribute = getter.apply(nodeCandidate);
+                    return attribute != null && value.contains(attribute);
+                });
+            case INC:
+                return new Check(STRING_SEARCH_COST, nodeCandidate -> {
+                    String attribute = getter.apply(nodeCandidate);
+                    return attribute != null && attribute.contains(value);
+                });
+            default:
+                throw new IllegalArgumentException("Illegal operation between Strings: " + operator);
+        }
+    }
+
+    private static <E extends Enum<E>> Check compareEnum(Function<NodeCandidate, E> getter, Class<E> enumClass,
+            RequirementOperator operator, String value) {
+        if (operator != RequirementOperator.EQ && operator != RequirementOperator.NEQ) {
+            return compareString(nodeCandidate -> {
+                E attribute = getter.apply(nodeCandidate);
+                return attribute == null ? null : attribute.name();
+            }, operator, value);
+        }
+        E expected = null;
+        for (E constant : enumClass.getEnumConstants()) {
+            if (constant.name().equals(value)) {
+                expected = constant;
+            }
+        }
+        final E resolved = expected;
+        if (operator == RequirementOperator.EQ) {
+            return new Check(ENUM_COST, nodeCandidate -> resolved != null && getter.apply(nodeCandidate) == resolved);
+        }
+        return new Check(ENUM_COST, nodeCandidate -> {
+            E attribute = getter.apply(nodeCandidate);
+            return attribute != null && attribute != resolved;
+        });
+    }
+
+    private static class Check {
+        private final int cost;
+
+        private final Predicate<NodeCandidate> predicate;
+
+        private Check(int cost, Predicate<NodeCandidate> predicate) {
+            this.cost = cost;
+            this.predicate = predicate;
+        }
+    }
+
+    private static class CompiledRequirements implements Predicate<NodeCandidate> {
+        private final List<Predicate<NodeCandidate>> checks;
+
+        private CompiledRequirements(List<Predicate<NodeCandidate>> checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        public boolean test(NodeCandidate nodeCandidate) {
+            for (Predicate<NodeCandidate> check : checks) {
+                if (!check.test(nodeCandidate)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
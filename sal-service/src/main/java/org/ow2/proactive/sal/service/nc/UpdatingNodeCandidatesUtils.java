@@ -26,12 +26,20 @@ public class UpdatingNodeCandidatesUtils {
     @Async
     public Future<Boolean> asyncUpdate(List<String> newCloudIds) throws InterruptedException {
         LOGGER.info("Thread updating node candidates related to clouds " + newCloudIds.toString() + " started.");
-        nodeCandidateUtils.initNodeCandidateUtils();
         nodeCandidateUtils.saveNodeCandidates(newCloudIds);
         LOGGER.info("Thread updating node candidates related to clouds " + newCloudIds.toString() + " ended properly.");
         return new AsyncResult<>(true);
     }
 
+    @Async
+    public Future<Boolean> asyncSync(List<String> cloudIds) throws InterruptedException {
+        LOGGER.info("Thread synchronizing node candidates related to clouds " + cloudIds.toString() + " started.");
+        nodeCandidateUtils.syncNodeCandidates(cloudIds);
+        LOGGER.info("Thread synchronizing node candidates related to clouds " + cloudIds.toString() +
+                    " ended properly.");
+        return new AsyncResult<>(true);
+    }
+
     @Async
     public Future<Boolean> asyncClean(List<String> newCloudIds) throws InterruptedException {
         LOGGER.info("Thread cleaning node candidates related to clouds " + newCloudIds.toString() + " started.");
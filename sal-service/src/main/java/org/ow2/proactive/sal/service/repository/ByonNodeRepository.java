@@ -5,11 +5,20 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
+
 import org.ow2.proactive.sal.model.ByonNode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface ByonNodeRepository extends JpaRepository<ByonNode, String> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM ByonNode n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
@@ -5,12 +5,14 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ow2.proactive.sal.model.Cloud;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,10 +21,10 @@ import org.springframework.transaction.annotation.Transactional;
 public interface CloudRepository extends JpaRepository<Cloud, String> {
 
     @Transactional(readOnly = true)
-    @Query(value = "SELECT id FROM Cloud WHERE id NOT IN (SELECT cloud.id FROM NodeCandidate GROUP BY cloud.id)")
+    @Query(value = "SELECT c.id FROM Cloud c WHERE NOT EXISTS (SELECT nc.id FROM NodeCandidate nc WHERE nc.cloud = c)")
     List<String> getOrphanCloudIds();
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "DELETE FROM Cloud WHERE id NOT IN (SELECT cloud.id FROM NodeCandidate GROUP BY cloud.id)")
-    void deleteOrphanCloudIds();
+    @Query(value = "DELETE FROM Cloud c WHERE c.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
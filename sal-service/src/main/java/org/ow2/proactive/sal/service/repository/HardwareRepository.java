@@ -5,6 +5,7 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ow2.proactive.sal.model.Hardware;
@@ -24,10 +25,10 @@ public interface HardwareRepository extends JpaRepository<Hardware, String> {
     List<Hardware> findByCloudId(@Param("cloudId") String cloudId);
 
     @Transactional(readOnly = true)
-    @Query(value = "SELECT id FROM Hardware WHERE id NOT IN (SELECT hardware.id FROM NodeCandidate GROUP BY hardware.id)")
+    @Query(value = "SELECT h.id FROM Hardware h WHERE NOT EXISTS (SELECT nc.id FROM NodeCandidate nc WHERE nc.hardware = h)")
     List<String> getOrphanHardwareIds();
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "DELETE FROM Hardware WHERE id NOT IN (SELECT hardware.id FROM NodeCandidate GROUP BY hardware.id)")
-    void deleteOrphanHardwareIds();
+    @Query(value = "DELETE FROM Hardware h WHERE h.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
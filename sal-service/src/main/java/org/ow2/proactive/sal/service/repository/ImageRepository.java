@@ -5,12 +5,14 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ow2.proactive.sal.model.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,10 +21,10 @@ import org.springframework.transaction.annotation.Transactional;
 public interface ImageRepository extends JpaRepository<Image, String> {
 
     @Transactional(readOnly = true)
-    @Query(value = "SELECT id FROM Image WHERE id NOT IN (SELECT image.id FROM NodeCandidate GROUP BY image.id)")
+    @Query(value = "SELECT i.id FROM Image i WHERE NOT EXISTS (SELECT nc.id FROM NodeCandidate nc WHERE nc.image = i)")
     List<String> getOrphanImageIds();
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "DELETE FROM Image WHERE id NOT IN (SELECT image.id FROM NodeCandidate GROUP BY image.id)")
-    void deleteOrphanImageIds();
+    @Query(value = "DELETE FROM Image i WHERE i.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
@@ -5,6 +5,7 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ow2.proactive.sal.model.Location;
@@ -20,12 +21,12 @@ import org.springframework.transaction.annotation.Transactional;
 public interface LocationRepository extends JpaRepository<Location, String> {
 
     @Transactional(readOnly = true)
-    @Query(value = "SELECT id FROM Location WHERE id NOT IN (SELECT location.id FROM NodeCandidate GROUP BY location.id)")
+    @Query(value = "SELECT l.id FROM Location l WHERE NOT EXISTS (SELECT nc.id FROM NodeCandidate nc WHERE nc.location = l)")
     List<String> getOrphanLocationIds();
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "DELETE FROM Location WHERE id NOT IN (SELECT location.id FROM NodeCandidate GROUP BY location.id)")
-    void deleteOrphanLocationIds();
+    @Query(value = "DELETE FROM Location l WHERE l.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 
     @Transactional(readOnly = true)
     @Query("SELECT l FROM Location l WHERE LOWER(l.id) LIKE CONCAT(LOWER(:cloudId), '%')")
@@ -5,21 +5,78 @@
  */
 package org.ow2.proactive.sal.service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
-import org.ow2.proactive.sal.model.Cloud;
 import org.ow2.proactive.sal.model.NodeCandidate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Repository
-public interface NodeCandidateRepository extends JpaRepository<NodeCandidate, String> {
+public interface NodeCandidateRepository
+        extends JpaRepository<NodeCandidate, String>, JpaSpecificationExecutor<NodeCandidate> {
+
+    @Transactional(readOnly = true)
+    @Query("SELECT nc FROM NodeCandidate nc WHERE nc.cloud.id=:cloudId AND nc.nodeCandidateType=:nodeCandidateType")
+    List<NodeCandidate> findByCloudIdAndType(@Param("cloudId") String cloudId,
+            @Param("nodeCandidateType") NodeCandidate.NodeCandidateTypeEnum nodeCandidateType);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, COUNT(nc) FROM NodeCandidate nc JOIN nc.cloud c GROUP BY c.id")
+    List<Object[]> countByCloud();
+
+    @Transactional(readOnly = true)
+    @Query("SELECT l.name, COUNT(nc) FROM NodeCandidate nc JOIN nc.location l WHERE l.name IS NOT NULL GROUP BY l.name")
+    List<Object[]> countByRegion();
+
+    @Transactional(readOnly = true)
+    @Query("SELECT nc.nodeCandidateType, COUNT(nc) FROM NodeCandidate nc WHERE nc.nodeCandidateType IS NOT NULL GROUP BY nc.nodeCandidateType")
+    List<Object[]> countByNodeType();
+
+    @Transactional(readOnly = true)
+    @Query("SELECT h.cores, COUNT(nc) FROM NodeCandidate nc JOIN nc.hardware h WHERE h.cores IS NOT NULL GROUP BY h.cores")
+    List<Object[]> countByCores();
+
+    @Transactional(readOnly = true)
+    @Query("SELECT h.ram, COUNT(nc) FROM NodeCandidate nc JOIN nc.hardware h WHERE h.ram IS NOT NULL GROUP BY h.ram")
+    List<Object[]> countByRam();
+
+    @Transactional(readOnly = true)
+    @Query("SELECT MIN(nc.price), MAX(nc.price), COUNT(nc.price) FROM NodeCandidate nc WHERE nc.price IS NOT NULL AND nc.price <= :maxPrice")
+    List<Object[]> getPriceRange(@Param("maxPrice") Double maxPrice);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT nc.price FROM NodeCandidate nc WHERE nc.price IS NOT NULL AND nc.price <= :maxPrice ORDER BY nc.price")
+    List<Double> findOrderedPrices(@Param("maxPrice") Double maxPrice, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT nc.id, nc.nodeCandidateType, nc.nodeId FROM NodeCandidate nc WHERE nc.cloud.id=:cloudId")
+    List<Object[]> findNodeReferencesByCloudId(@Param("cloudId") String cloudId, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT DISTINCT h.id, h.name, c.api.providerName FROM NodeCandidate nc JOIN nc.hardware h JOIN nc.cloud c WHERE nc.nodeCandidateType NOT IN :excludedTypes")
+    List<Object[]> findHardwareProviders(
+            @Param("excludedTypes") Collection<NodeCandidate.NodeCandidateTypeEnum> excludedTypes);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE NodeCandidate nc SET nc.deployable=:deployable WHERE nc.nodeCandidateType IN :nodeCandidateTypes")
+    int updateDeployableByTypes(@Param("deployable") Boolean deployable,
+            @Param("nodeCandidateTypes") Collection<NodeCandidate.NodeCandidateTypeEnum> nodeCandidateTypes);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE NodeCandidate nc SET nc.deployable=:deployable WHERE nc.hardware.id IN :hardwareIds AND nc.nodeCandidateType NOT IN :excludedTypes")
+    int updateDeployableByHardwareIds(@Param("deployable") Boolean deployable,
+            @Param("hardwareIds") Collection<String> hardwareIds,
+            @Param("excludedTypes") Collection<NodeCandidate.NodeCandidateTypeEnum> excludedTypes);
 
     @Modifying(clearAutomatically = true)
-    @Query("DELETE FROM NodeCandidate nc WHERE nc.cloud=:cloud")
-    void deleteBatchNodeCandidates(@Param("cloud") Cloud cloud);
+    @Query("DELETE FROM NodeCandidate nc WHERE nc.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
@@ -0,0 +1,204 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.repository;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+
+import org.ow2.proactive.sal.model.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+
+
+/**
+ * Translates the requirements that can be expressed in SQL into a JPA {@link Specification} on node candidates.
+ * Requirements that are not supported here are ignored, so the returned rows still have to be checked
+ * against the full list of requirements.
+ */
+public class NodeCandidateSpecifications {
+
+    private NodeCandidateSpecifications() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Build the specification of a list of requirements
+     * @param requirements List of NodeType or Attribute requirements
+     * @return A specification selecting the node candidates satisfying the supported requirements
+     */
+    public static Specification<NodeCandidate> fromRequirements(List<Requirement> requirements) {
+        Specifications<NodeCandidate> specification = Specifications.where(null);
+        if (requirements != null) {
+            for (Requirement requirement : requirements) {
+                Specification<NodeCandidate> requirementSpecification = fromRequirement(requirement);
+                if (requirementSpecification != null) {
+                    specification = specification.and(requirementSpecification);
+                }
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * @return A specification selecting the node candidates that are deployable, or whose flag is not computed yet
+     */
+    public static Specification<NodeCandidate> notUndeployable() {
+        return (root, query, cb) -> cb.or(cb.isTrue(root.get("deployable")), cb.isNull(root.get("deployable")));
+    }
+
+    private static Specification<NodeCandidate> fromRequirement(Requirement requirement) {
+        if (requirement instanceof NodeTypeRequirement) {
+            return fromNodeTypeRequirement((NodeTypeRequirement) requirement);
+        }
+        if (requirement instanceof AttributeRequirement) {
+            try {
+                return fromAttributeRequirement((AttributeRequirement) requirement);
+            } catch (NumberFormatException e) {
+                // Let the requirement be evaluated (and reported) in memory
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Specification<NodeCandidate> fromNodeTypeRequirement(NodeTypeRequirement requirement) {
+        if (requirement.getNodeTypes() == null) {
+            return null;
+        }
+        EnumSet<NodeCandidate.NodeCandidateTypeEnum> nodeCandidateTypes = EnumSet.noneOf(NodeCandidate.NodeCandidateTypeEnum.class);
+        requirement.getNodeTypes().forEach(nodeType -> {
+            for (NodeCandidate.NodeCandidateTypeEnum nodeCandidateType : NodeCandidate.NodeCandidateTypeEnum.values()) {
+                if (nodeCandidateType.name().equals(nodeType.getLiteral())) {
+                    nodeCandidateTypes.add(nodeCandidateType);
+                }
+            }
+        });
+        if (nodeCandidateTypes.isEmpty()) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return (root, query, cb) -> root.get("nodeCandidateType").in(nodeCandidateTypes);
+    }
+
+    private static Specification<NodeCandidate> fromAttributeRequirement(AttributeRequirement requirement) {
+        String requirementClass = requirement.getRequirementClass();
+        String attribute = requirement.getRequirementAttribute();
+        RequirementOperator operator = requirement.getRequirementOperator();
+        String value = requirement.getValue();
+        if (requirementClass == null || attribute == null || operator == null || value == null) {
+            return null;
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_HARDWARE)) {
+            switch (attribute) {
+                case Hardware.JSON_CORES:
+                case Hardware.JSON_GPU:
+                case Hardware.JSON_FPGA:
+                    return compareNumber("hardware", attribute, operator, Integer.valueOf(value));
+                case Hardware.JSON_RAM:
+                    return compareNumber("hardware", attribute, operator, Long.valueOf(value));
+                case Hardware.JSON_DISK:
+                case Hardware.JSON_CPU_FREQUENCY:
+                    return compareNumber("hardware", attribute, operator, Double.valueOf(value));
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_LOCATION)) {
+            switch (attribute) {
+                case "geoLocation.country":
+                    return compareString(operator,
+                                         value,
+                                         root -> root.get("location").get("geoLocation").<String> get("country"));
+                case Location.JSON_NAME:
+                    return compareString(operator, value, root -> root.get("location").<String> get("name"));
+                default:
+                    return null;
+            }
+        }
+        if (requirementClass.equals(NodeCandidate.JSON_IMAGE) && attribute.equals("operatingSystem.family")) {
+            return compareEnum(operator,
+                               value,
+                               OperatingSystemFamily.class,
+                               root -> root.get("image").get("operatingSystem").get("operatingSystemFamily"));
+        }
+        if (requirementClass.toLowerCase(Locale.ROOT).equals("cloud")) {
+            if (attribute.equals("id")) {
+                return compareString(operator, value, root -> root.get("cloud").<String> get("id"));
+            }
+            if (attribute.equals("type")) {
+                return compareEnum(operator, value, CloudType.class, root -> root.get("cloud").get("cloudType"));
+            }
+        }
+        return null;
+    }
+
+    private static <N extends Number & Comparable<N>> Specification<NodeCandidate> compareNumber(String entity,
+            String attribute, RequirementOperator operator, N value) {
+        switch (operator) {
+            case EQ:
+                return (root, query, cb) -> cb.equal(root.get(entity).get(attribute), value);
+            case NEQ:
+                return (root, query, cb) -> cb.notEqual(root.get(entity).get(attribute), value);
+            case LEQ:
+                return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(entity).<N> get(attribute), value);
+            case GEQ:
+                return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(entity).<N> get(attribute), value);
+            case LT:
+                return (root, query, cb) -> cb.lessThan(root.get(entity).<N> get(attribute), value);
+            case GT:
+                return (root, query, cb) -> cb.greaterThan(root.get(entity).<N> get(attribute), value);
+            default:
+                return null;
+        }
+    }
+
+    private static Specification<NodeCandidate> compareString(RequirementOperator operator, String value,
+            PathResolver<String> resolver) {
+        switch (operator) {
+            case EQ:
+                return (root, query, cb) -> cb.equal(resolver.resolve(root), value);
+            case NEQ:
+                return (root, query, cb) -> cb.notEqual(resolver.resolve(root), value);
+            case INC:
+                return (root, query, cb) -> cb.like(resolver.resolve(root), "%" + escapeLike(value) + "%", '\\');
+            default:
+                return null;
+        }
+    }
+
+    private static <E extends Enum<E>> Specification<NodeCandidate> compareEnum(RequirementOperator operator,
+            String value, Class<E> enumClass, PathResolver<Object> resolver) {
+        E expected = null;
+        for (E constant : enumClass.getEnumConstants()) {
+            if (constant.name().equals(value)) {
+                expected = constant;
+            }
+        }
+        final E resolved = expected;
+        switch (operator) {
+            case EQ:
+                return (root, query, cb) -> resolved == null ? cb.disjunction()
+                                                             : cb.equal(resolver.resolve(root), resolved);
+            case NEQ:
+                return (root, query, cb) -> resolved == null ? cb.isNotNull(resolver.resolve(root))
+                                                             : cb.notEqual(resolver.resolve(root), resolved);
+            default:
+                return null;
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @FunctionalInterface
+    private interface PathResolver<T> {
+        Expression<T> resolve(Path<NodeCandidate> root);
+    }
+}
@@ -91,6 +91,17 @@ public class CloudRest {
         return ResponseEntity.ok(cloudService.removeClouds(sessionId, cloudIds, preempt));
     }
 
+    @RequestMapping(value = "/nodecandidates/sync", method = RequestMethod.POST)
+    @ApiOperation(value = "Synchronize the node candidates of clouds, applying only the inserted, updated and deleted ones", response = Boolean.class)
+    public ResponseEntity<Boolean>
+            syncNodeCandidates(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId, @ApiParam(value = "List of cloud IDs to synchronize", required = true)
+    @RequestBody
+    final List<String> cloudIds) throws NotConnectedException {
+        return ResponseEntity.ok(cloudService.syncNodeCandidates(sessionId, cloudIds));
+    }
+
     @RequestMapping(value = "/images", method = RequestMethod.GET)
     @ApiOperation(value = "Get the list of all available images related to a registered cloud", response = Image.class, responseContainer = "List")
     public ResponseEntity<List<Image>>
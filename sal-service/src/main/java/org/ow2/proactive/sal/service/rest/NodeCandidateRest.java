@@ -5,11 +5,18 @@
  */
 package org.ow2.proactive.sal.service.rest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
 
 import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.NodeCandidateExplanation;
+import org.ow2.proactive.sal.model.NodeCandidatePage;
+import org.ow2.proactive.sal.model.NodeCandidateSortKey;
+import org.ow2.proactive.sal.model.NodeCandidateStatistics;
 import org.ow2.proactive.sal.model.Requirement;
 import org.ow2.proactive.sal.service.service.NodeCandidateService;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
@@ -17,6 +24,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -27,9 +40,18 @@ import io.swagger.annotations.ApiParam;
 @Api(tags = "Operations on node candidates", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
 public class NodeCandidateRest {
 
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private static final String NDJSON_SEPARATOR = "\n";
+
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     @Autowired
     private NodeCandidateService nodeCandidateService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @RequestMapping(method = RequestMethod.POST)
     @ApiOperation(value = "Find node candidates", response = NodeCandidate.class, responseContainer = "List")
     public ResponseEntity<List<NodeCandidate>>
@@ -41,6 +63,96 @@ public class NodeCandidateRest {
         return ResponseEntity.ok(nodeCandidateService.findNodeCandidates(sessionId, requirements));
     }
 
+    @RequestMapping(value = "/page", method = RequestMethod.POST)
+    @ApiOperation(value = "Find a page of node candidates ordered by id", response = NodeCandidatePage.class)
+    public ResponseEntity<NodeCandidatePage>
+            findNodeCandidatesPage(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId, @ApiParam(value = "Id of the last node candidate of the previous page (nextCursor)")
+    @RequestParam(value = "after", required = false)
+    final String after, @ApiParam(value = "The maximum number of node candidates in the page")
+    @RequestParam(value = "limit", defaultValue = "100")
+    final int limit, @ApiParam(value = "List of NodeType or Attribute requirements", required = true)
+    @RequestBody
+    final List<Requirement> requirements) throws NotConnectedException {
+        return ResponseEntity.ok(nodeCandidateService.findNodeCandidatesPage(sessionId, requirements, after, limit));
+    }
+
+    @RequestMapping(value = "/top", method = RequestMethod.POST)
+    @ApiOperation(value = "Find the best node candidates by price or resource efficiency", response = NodeCandidate.class, responseContainer = "List")
+    public ResponseEntity<List<NodeCandidate>>
+            findTopNodeCandidates(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId,
+            @ApiParam(value = "Ranking criterion: PRICE, PRICE_PER_CORE, PRICE_PER_GB_RAM or WEIGHTED_SCORE (price per weighted cores and GB of RAM)")
+            @RequestParam(value = "sortBy", defaultValue = "PRICE")
+            final NodeCandidateSortKey sortKey,
+            @ApiParam(value = "The maximum number of node candidates to return")
+            @RequestParam(value = "limit", defaultValue = "10")
+            final int limit, @ApiParam(value = "Weight of a core in the weighted score")
+            @RequestParam(value = "coresWeight", defaultValue = "1")
+            final double coresWeight, @ApiParam(value = "Weight of a GB of RAM in the weighted score")
+            @RequestParam(value = "ramWeight", defaultValue = "1")
+            final double ramWeight, @ApiParam(value = "List of NodeType or Attribute requirements", required = true)
+            @RequestBody
+            final List<Requirement> requirements) throws NotConnectedException {
+        return ResponseEntity.ok(nodeCandidateService.findTopNodeCandidates(sessionId,
+                                                                            requirements,
+                                                                            sortKey,
+                                                                            limit,
+                                                                            coresWeight,
+                                                                            ramWeight));
+    }
+
+    @RequestMapping(value = "/explain", method = RequestMethod.POST)
+    @ApiOperation(value = "Explain a node candidate search: the number of node candidates rejected by each requirement, with a sample of their ids", response = NodeCandidateExplanation.class)
+    public ResponseEntity<NodeCandidateExplanation>
+            explainNodeCandidates(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId, @ApiParam(value = "List of NodeType or Attribute requirements", required = true)
+    @RequestBody
+    final List<Requirement> requirements) throws NotConnectedException {
+        return ResponseEntity.ok(nodeCandidateService.explainNodeCandidates(sessionId, requirements));
+    }
+
+    @RequestMapping(value = "/stream", method = RequestMethod.POST)
+    @ApiOperation(value = "Find node candidates and stream them as newline delimited JSON, one node candidate per line")
+    public void streamNodeCandidates(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId, @ApiParam(value = "List of NodeType or Attribute requirements", required = true)
+    @RequestBody
+    final List<Requirement> requirements, final HttpServletResponse response)
+            throws NotConnectedException, IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            // the response is neither closed nor committed by the generator, so that an error raised before the
+            // first node candidate is still sent as an error response
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            generator.setRootValueSeparator(new SerializedString(NDJSON_SEPARATOR));
+            int[] written = { 0 };
+            try {
+                nodeCandidateService.forEachNodeCandidate(sessionId, requirements, nodeCandidate -> {
+                    try {
+                        writer.writeValue(generator, nodeCandidate);
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                            response.flushBuffer();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (written[0] > 0) {
+                generator.writeRaw(NDJSON_SEPARATOR);
+            }
+        }
+    }
+
     @RequestMapping(value = "/length", method = RequestMethod.GET)
     @ApiOperation(value = "This function returns the number of available node candidates according to the added clouds")
     public ResponseEntity<Long>
@@ -49,4 +161,13 @@ public class NodeCandidateRest {
     final String sessionId) throws NotConnectedException {
         return ResponseEntity.ok(nodeCandidateService.getLengthOfNodeCandidates(sessionId));
     }
+
+    @RequestMapping(value = "/statistics", method = RequestMethod.GET)
+    @ApiOperation(value = "Get the statistics of the available node candidates: counts per cloud, region and node type, price range and median, cores and RAM histograms")
+    public ResponseEntity<NodeCandidateStatistics>
+            getNodeCandidateStatistics(@ApiParam(value = "Proactive authentication session id", required = true)
+    @RequestHeader(value = "sessionid")
+    final String sessionId) throws NotConnectedException {
+        return ResponseEntity.ok(nodeCandidateService.getNodeCandidateStatistics(sessionId));
+    }
 }
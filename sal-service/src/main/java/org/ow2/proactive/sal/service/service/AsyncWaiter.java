@@ -0,0 +1,222 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Waits for conditions on the ProActive server (a node to be deployed, the server to be reachable, ...) by polling
+ * them on a shared scheduler. The attempts are retried with an exponential backoff and a random jitter, until a
+ * number of attempts or a deadline. No thread is held between two attempts, so that many waits can run at once, and
+ * a wait is stopped by cancelling its future. The attempts that may block for long run on threads of their own, the
+ * scheduler only triggering them.
+ */
+@Log4j2
+@Component
+public class AsyncWaiter {
+
+    // proportion of a delay randomly added or removed, so that the concurrent waits do not poll at the same time
+    private static final double JITTER = 0.2;
+
+    @Value("${pa.waiter.threads:4}")
+    private int threads;
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService blockingExecutor;
+
+    /**
+     * A single check of the awaited condition
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        /**
+         * @return The awaited value, or empty if it is not available yet
+         * @throws Exception An error that is retried, except an IllegalArgumentException or an IllegalStateException
+         *         that ends the wait
+         */
+        Optional<T> call() throws Exception;
+    }
+
+    /**
+     * Retry policy of a wait: the first attempt is immediate, then the delay between two attempts is doubled from
+     * its initial value up to its maximum.
+     */
+    @Getter
+    public static class Backoff {
+
+        private final long initialDelayMillis;
+
+        private final long maxDelayMillis;
+
+        // 0 for no limit
+        private final int maxAttempts;
+
+        // 0 for no deadline
+        private final long timeoutMillis;
+
+        public Backoff(long initialDelayMillis, long maxDelayMillis, int maxAttempts, long timeoutMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            this.maxAttempts = maxAttempts;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        scheduler = Executors.newScheduledThreadPool(threads,
+                                                     new ThreadFactoryBuilder().setNameFormat("async-waiter-%d")
+                                                                               .setDaemon(true)
+                                                                               .build());
+        // the threads of the blocking attempts are only kept while there are such attempts
+        ThreadFactory blockingThreadFactory = new ThreadFactoryBuilder().setNameFormat("async-waiter-blocking-%d")
+                                                                        .setDaemon(true)
+                                                                        .build();
+        blockingExecutor = Executors.newCachedThreadPool(blockingThreadFactory);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        scheduler.shutdownNow();
+        blockingExecutor.shutdownNow();
+    }
+
+    /**
+     * Wait for a condition
+     * @param description The awaited condition, for the logs and errors
+     * @param attempt Checks the condition, it should not block for long as it runs on the shared scheduler
+     * @param backoff The retry policy
+     * @return The awaited value, or a future completed with a TimeoutException if the attempts or the deadline are
+     *         exhausted, caused by the last error if any
+     */
+    public <T> CompletableFuture<T> waitFor(String description, Attempt<T> attempt, Backoff backoff) {
+        Wait<T> wait = new Wait<>(description, attempt, backoff, false);
+        wait.schedule(0);
+        return wait.result;
+    }
+
+    /**
+     * Wait for a condition whose check may block for long, e.g. while connecting to the ProActive server
+     * @param description The awaited condition, for the logs and errors
+     * @param attempt Checks the condition, it runs on a thread of its own
+     * @param backoff The retry policy
+     * @return The awaited value, or a future completed with a TimeoutException if the attempts or the deadline are
+     *         exhausted, caused by the last error if any
+     */
+    public <T> CompletableFuture<T> waitForBlocking(String description, Attempt<T> attempt, Backoff backoff) {
+        Wait<T> wait = new Wait<>(description, attempt, backoff, true);
+        wait.schedule(0);
+        return wait.result;
+    }
+
+    private class Wait<T> implements Runnable {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final String description;
+
+        private final Attempt<T> attempt;
+
+        private final Backoff backoff;
+
+        private final boolean blocking;
+
+        private final long deadline;
+
+        private long delayMillis;
+
+        private int attempts = 0;
+
+        private Exception lastError;
+
+        private volatile ScheduledFuture<?> nextAttempt;
+
+        Wait(String description, Attempt<T> attempt, Backoff backoff, boolean blocking) {
+            this.description = description;
+            this.attempt = attempt;
+            this.backoff = backoff;
+            this.blocking = blocking;
+            this.deadline = backoff.getTimeoutMillis() > 0 ? System.nanoTime() +
+                                                             TimeUnit.MILLISECONDS.toNanos(backoff.getTimeoutMillis())
+                                                           : Long.MAX_VALUE;
+            this.delayMillis = backoff.getInitialDelayMillis();
+            // a cancelled or completed wait does not keep its next attempt scheduled
+            result.whenComplete((value, error) -> {
+                ScheduledFuture<?> scheduled = nextAttempt;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            });
+        }
+
+        private void schedule(long delay) {
+            try {
+                nextAttempt = scheduler.schedule(blocking ? this::runBlocking : this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void runBlocking() {
+            try {
+                blockingExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                return;
+            }
+            attempts++;
+            try {
+                Optional<T> value = attempt.call();
+                if (value.isPresent()) {
+                    LOGGER.debug("{} available after {} attempts.", description, attempts);
+                    result.complete(value.get());
+                    return;
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                result.completeExceptionally(e);
+                return;
+            } catch (Exception e) {
+                LOGGER.debug("Attempt {} to get {} failed: {}", attempts, description, e.getMessage());
+                lastError = e;
+            }
+            // the wait may have been cancelled during the attempt
+            if (result.isDone()) {
+                return;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if ((backoff.getMaxAttempts() > 0 && attempts >= backoff.getMaxAttempts()) || remainingMillis <= 0) {
+                TimeoutException timeout = new TimeoutException(description + " not available after " + attempts +
+                                                                " attempts");
+                timeout.initCause(lastError);
+                result.completeExceptionally(timeout);
+                return;
+            }
+            long jitter = (long) (delayMillis * JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+            schedule(Math.min(delayMillis + jitter, remainingMillis));
+            delayMillis = Math.min(delayMillis * 2, backoff.getMaxDelayMillis());
+        }
+    }
+}
@@ -183,7 +183,7 @@ public class ByonService {
             byonNodeList.add(byonNode);
             LOGGER.info("BYON node Added: " + byonNode.getName() + " Ip: " +
                         byonNode.getIpAddresses().get(0).getValue());
-            defineByonNodeSource(byonNodeList);
+            defineByonNodeSource(sessionId, byonNodeList);
             LOGGER.info("BYON node source {} is defined.", byonNode.composeNodeSourceName());
 
             newDeployment.setTask(task);
@@ -203,9 +203,10 @@ public class ByonService {
 
     /**
      * Define a BYON node source
+     * @param sessionId A valid session id
      * @param byonNodeList a list of BYON nodes to be connected to the server.
      */
-    private void defineByonNodeSource(List<ByonNode> byonNodeList) {
+    private void defineByonNodeSource(String sessionId, List<ByonNode> byonNodeList) {
         Map<String, String> variables = new HashMap<>();
         String filename;
         String byonIPs = "";
@@ -260,7 +261,7 @@ public class ByonService {
         assert fXmlFile != null;
         LOGGER.info("Submitting the file: " + fXmlFile.toString());
         LOGGER.info("Trying to deploy the NS: " + byonNode.composeNodeSourceName());
-        JobId jobId = schedulerGateway.submit(fXmlFile, variables);
+        JobId jobId = schedulerGateway.submit(sessionId, fXmlFile, variables);
         LOGGER.info("Job submitted with ID: " + jobId);
         TemporaryFilesHelper.delete(fXmlFile);
     }
@@ -296,7 +297,7 @@ public class ByonService {
             LOGGER.warn("The PACloud related to the byonNode {} is not found.", byonNode.getName());
         }
 
-        if (Boolean.FALSE.equals(ByonUtils.undeployNs(byonNode.composeNodeSourceName(), false, true))) {
+        if (Boolean.FALSE.equals(ByonUtils.undeployNs(sessionId, byonNode.composeNodeSourceName(), false, true))) {
             LOGGER.warn("The BYON node source undeploy finished with errors!");
         }
         repositoryService.deleteByonNode(byonNode);
@@ -8,20 +8,18 @@ package org.ow2.proactive.sal.service.service;
 import java.util.*;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.Validate;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.ow2.proactive.sal.model.*;
 import org.ow2.proactive.sal.service.nc.NodeCandidateUtils;
 import org.ow2.proactive.sal.service.nc.UpdatingNodeCandidatesUtils;
 import org.ow2.proactive.sal.service.nc.WhiteListedInstanceTypesUtils;
 import org.ow2.proactive.sal.service.service.infrastructure.PAConnectorIaasGateway;
 import org.ow2.proactive.sal.service.service.infrastructure.PAResourceManagerGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorImage;
 import org.ow2.proactive.sal.service.util.JCloudsInstancesUtils;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
@@ -129,6 +127,27 @@ public class CloudService {
         return 0;
     }
 
+    /**
+     * Synchronize asynchronously the node candidates of clouds with the ones offered by the connector.
+     * Only the differences are applied, the unchanged node candidates keep their ids.
+     * @param sessionId A valid session id
+     * @param cloudIds List of cloud IDs to synchronize
+     * @return true if the synchronization started, false otherwise
+     */
+    public Boolean syncNodeCandidates(String sessionId, List<String> cloudIds) throws NotConnectedException {
+        if (!paGatewayService.isConnectionActive(sessionId)) {
+            throw new NotConnectedException();
+        }
+        cleanDoneAsyncProcesses();
+        try {
+            asyncNodeCandidatesProcessesResults.add(updatingNodeCandidatesUtils.asyncSync(cloudIds));
+        } catch (InterruptedException ie) {
+            LOGGER.warn("Thread synchronizing node candidates interrupted!", ie);
+            return false;
+        }
+        return true;
+    }
+
     private boolean isValidCloudName(String name) {
         return name != null && !name.isEmpty() && name.length() >= 3 && name.length() <= 253 &&
                name.matches("^[a-z0-9-]+$");
@@ -209,7 +228,8 @@ public class CloudService {
             PACloud cloud = repositoryService.getPACloud(cloudId);
             for (Map.Entry<String, String> entry : cloud.getDeployedRegions().entrySet()) {
                 try {
-                    resourceManagerGateway.undeployNodeSource(cloud.getNodeSourceNamePrefix() + entry.getKey(),
+                    resourceManagerGateway.undeployNodeSource(sessionId,
+                                                              cloud.getNodeSourceNamePrefix() + entry.getKey(),
                                                               preempt);
                 } catch (NotConnectedException | PermissionRestException e) {
                     LOGGER.error(Arrays.toString(e.getStackTrace()));
@@ -217,7 +237,8 @@ public class CloudService {
             }
             for (Map.Entry<String, String> entry : cloud.getDeployedWhiteListedRegions().entrySet()) {
                 try {
-                    resourceManagerGateway.undeployNodeSource(PACloud.WHITE_LISTED_NAME_PREFIX +
+                    resourceManagerGateway.undeployNodeSource(sessionId,
+                                                              PACloud.WHITE_LISTED_NAME_PREFIX +
                                                               cloud.getNodeSourceNamePrefix() + entry.getKey(),
                                                               preempt);
                 } catch (NotConnectedException | PermissionRestException e) {
@@ -299,7 +320,7 @@ public class CloudService {
             try {
                 String nodeSourceName = cloud.getNodeSourceNamePrefix() + "-" + entry.getKey();
                 LOGGER.info("Removing IAAS node source \"{}\" from the ProActive server.", nodeSourceName);
-                resourceManagerGateway.removeNodeSource(nodeSourceName, preempt);
+                resourceManagerGateway.removeNodeSource(sessionId, nodeSourceName, preempt);
             } catch (NotConnectedException | PermissionRestException | IllegalArgumentException e) {
                 LOGGER.error("Removing cloud crashed. Error: ", e);
                 flag = false;
@@ -310,7 +331,7 @@ public class CloudService {
                 String nodeSourceName = PACloud.WHITE_LISTED_NAME_PREFIX + cloud.getNodeSourceNamePrefix() +
                                         entry.getKey();
                 LOGGER.info("Removing white listed IAAS node source \"{}\" from the ProActive server.", nodeSourceName);
-                resourceManagerGateway.removeNodeSource(nodeSourceName, preempt);
+                resourceManagerGateway.removeNodeSource(sessionId, nodeSourceName, preempt);
             } catch (NotConnectedException | PermissionRestException | IllegalArgumentException e) {
                 LOGGER.error("Removing WL cloud crashed. Error: ", e);
                 flag = false;
@@ -333,7 +354,7 @@ public class CloudService {
             LOGGER.info("Removing {} node source \"{}\" from the ProActive server.",
                         cloud.getCloudType(),
                         nodeSourceName);
-            resourceManagerGateway.removeNodeSource(nodeSourceName, preempt);
+            resourceManagerGateway.removeNodeSource(sessionId, nodeSourceName, preempt);
         } catch (NotConnectedException | PermissionRestException | IllegalArgumentException e) {
             LOGGER.error("Removing cloud crashed. Error: ", e);
             flag = false;
@@ -356,7 +377,7 @@ public class CloudService {
 
         if (paCloud != null) {
             try {
-                JSONArray imagesArray = connectorIaasGateway.getImages(paCloud.getDummyInfrastructureName());
+                List<ConnectorImage> connectorImages = connectorIaasGateway.getImages(paCloud.getDummyInfrastructureName());
 
                 String cloudIdOrEmpty;
                 if (paCloud.getCloudProvider() == CloudProviderType.AZURE) {
@@ -364,10 +385,9 @@ public class CloudService {
                 } else {
                     cloudIdOrEmpty = cloudId + "/";
                 }
-                List<String> imagesIDs = IntStream.range(0, imagesArray.length())
-                                                  .mapToObj(imagesArray::get)
-                                                  .map(image -> cloudIdOrEmpty + ((JSONObject) image).optString("id"))
-                                                  .collect(Collectors.toList());
+                List<String> imagesIDs = connectorImages.stream()
+                                                        .map(image -> cloudIdOrEmpty + image.getId())
+                                                        .collect(Collectors.toList());
 
                 LOGGER.debug("Filtering images related to cloud ID '{}'.", cloudId);
                 allImages.stream().filter(image -> imagesIDs.contains(image.getId())).forEach(filteredImages::add);
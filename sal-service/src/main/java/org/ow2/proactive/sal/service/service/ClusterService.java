@@ -572,7 +572,7 @@ public class ClusterService {
             NodeCandidate nc = repositoryService.getNodeCandidate(node.getNodeCandidateId());
             if (nc.getCloud().getCloudType().equals(CloudType.EDGE)) {
                 EdgeNode edgeNode = ByonUtils.getEdgeNodeFromNC(nc);
-                edgeService.handlePACloudDeletion(edgeNode);
+                edgeService.handlePACloudDeletion(sessionId, edgeNode);
                 //remove ProActive JobId from edge device
                 edgeNode.setJobId(EdgeDefinition.ANY_JOB_ID);
                 repositoryService.saveEdgeNode(edgeNode);
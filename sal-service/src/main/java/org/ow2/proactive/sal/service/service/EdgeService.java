@@ -182,7 +182,7 @@ public class EdgeService {
             edgeNodeList.add(edgeNode);
             LOGGER.info("EDGE node Added: " + edgeNode.getName() + " Ip: " +
                         edgeNode.getIpAddresses().get(0).getValue());
-            defineEdgeNodeSource(edgeNodeList);
+            defineEdgeNodeSource(sessionId, edgeNodeList);
             LOGGER.info("EDGE node source {} is defined.", nodeSourceName);
 
             newDeployment.setTask(task);
@@ -202,9 +202,10 @@ public class EdgeService {
 
     /**
      * Define an EDGE node source
+     * @param sessionId A valid session id
      * @param edgeNodeList a list of EDGE nodes to be connected to the server.
      */
-    private void defineEdgeNodeSource(List<EdgeNode> edgeNodeList) {
+    private void defineEdgeNodeSource(String sessionId, List<EdgeNode> edgeNodeList) {
         Map<String, String> variables = new HashMap<>();
         String filename;
         String edgeIPs = "";
@@ -278,7 +279,7 @@ public class EdgeService {
         assert fXmlFile != null;
         LOGGER.info("Submitting the file: " + fXmlFile.toString());
         LOGGER.info("Trying to deploy the NS: " + edgeNode.composeNodeSourceName());
-        JobId jobId = schedulerGateway.submit(fXmlFile, variables);
+        JobId jobId = schedulerGateway.submit(sessionId, fXmlFile, variables);
         LOGGER.info("Job submitted with ID: " + jobId);
         TemporaryFilesHelper.delete(fXmlFile);
     }
@@ -300,7 +301,7 @@ public class EdgeService {
             throw new IllegalArgumentException("The passed EDGE ID \"" + edgeId + "\" is not Found in the database");
         }
 
-        handlePACloudDeletion(edgeNode);
+        handlePACloudDeletion(sessionId, edgeNode);
 
         repositoryService.deleteEdgeNode(edgeNode);
 
@@ -309,9 +310,10 @@ public class EdgeService {
 
     /**
      * Handle the deletion of a PACloud related to an EdgeNode
+     * @param sessionId A valid session id
      * @param edgeNode The edge node whose related PACloud is to be deleted
      */
-    public void handlePACloudDeletion(EdgeNode edgeNode) {
+    public void handlePACloudDeletion(String sessionId, EdgeNode edgeNode) {
         LOGGER.info("Deleting the corresponding Edge Node PACloud from the database ...");
         PACloud paCloud = repositoryService.getPACloud(edgeNode.composeNodeSourceName());
         if (paCloud != null) {
@@ -327,7 +329,7 @@ public class EdgeService {
             LOGGER.info("The PACloud related to the Edge Node  {} is not found.", edgeNode.getName());
         }
 
-        if (Boolean.FALSE.equals(ByonUtils.undeployNs(edgeNode.composeNodeSourceName(), false, true))) {
+        if (Boolean.FALSE.equals(ByonUtils.undeployNs(sessionId, edgeNode.composeNodeSourceName(), false, true))) {
             LOGGER.warn("The Edge node source undeploy finished with errors!");
         }
     }
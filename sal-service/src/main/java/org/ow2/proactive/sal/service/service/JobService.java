@@ -8,6 +8,7 @@ package org.ow2.proactive.sal.service.service;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.NotFoundException;
@@ -315,17 +316,21 @@ public class JobService {
         paJob.setName(jobToSubmit.getName());
         LOGGER.info("Job created: " + paJob.toString());
 
-        jobToSubmit.getTasks()
-                   .stream()
-                   .filter(task -> task.getDeployments() != null && !task.getDeployments().isEmpty())
-                   .forEach(task -> {
-                       List<ScriptTask> scriptTasks = taskBuilder.buildPATask(task,
-                                                                              jobToSubmit,
-                                                                              containerizationFlavor);
-
-                       addAllScriptTasksToPAJob(paJob, task, scriptTasks);
-                       repositoryService.saveTask(task);
-                   });
+        List<Task> tasksToBuild = jobToSubmit.getTasks()
+                                             .stream()
+                                             .filter(task -> task.getDeployments() != null &&
+                                                             !task.getDeployments().isEmpty())
+                                             .collect(Collectors.toList());
+        // the nodes of the BYON and EDGE deployments are looked up asynchronously, the built tasks are saved here as
+        // the transaction is bound to this thread
+        CompletableFuture<List<List<ScriptTask>>> builds = taskBuilder.buildOneAfterAnother(tasksToBuild, task -> {
+            return taskBuilder.buildPATask(sessionId, task, jobToSubmit, containerizationFlavor);
+        });
+        List<List<ScriptTask>> builtScriptTasks = TaskBuilder.join(builds);
+        for (int i = 0; i < tasksToBuild.size(); i++) {
+            addAllScriptTasksToPAJob(paJob, tasksToBuild.get(i), builtScriptTasks.get(i));
+            repositoryService.saveTask(tasksToBuild.get(i));
+        }
 
         setAllMandatoryDependencies(paJob, jobToSubmit);
 
@@ -337,7 +342,7 @@ public class JobService {
 
         long submittedJobId = -1L;
         if (!paJob.getTasks().isEmpty()) {
-            submittedJobId = schedulerGateway.submit(paJob).longValue();
+            submittedJobId = schedulerGateway.submit(sessionId, paJob).longValue();
             jobToSubmit.setSubmittedJobId(submittedJobId);
             jobToSubmit.setSubmittedJobType(SubmittedJobType.FIRST_DEPLOYMENT);
             LOGGER.info("Job submitted successfully. ID = " + submittedJobId);
@@ -388,14 +393,15 @@ public class JobService {
     /**
      * Get the job status for a given submitted job ID.
      *
+     * @param sessionId A valid session id
      * @param submittedJobId The ID of the submitted ProActive job.
      * @return The job status.
      */
-    private JobStatus getJobStatusBySubmittedId(long submittedJobId) {
+    private JobStatus getJobStatusBySubmittedId(String sessionId, long submittedJobId) {
         if (submittedJobId == 0L) {
             return null;
         }
-        JobStatus jobStatus = schedulerGateway.getJobState(String.valueOf(submittedJobId)).getStatus();
+        JobStatus jobStatus = schedulerGateway.getJobState(sessionId, String.valueOf(submittedJobId)).getStatus();
         LOGGER.info("Returned state: " + jobStatus + " for submitted job ID: " + submittedJobId);
         return jobStatus;
     }
@@ -423,7 +429,7 @@ public class JobService {
         LOGGER.info("Job " + jobId + " mapped to the submitted ProActive job: " + submittedJob.getSubmittedJobId() +
                     " of type: " + submittedJob.getSubmittedJobType());
 
-        JobStatus jobStatus = getJobStatusBySubmittedId(submittedJob.getSubmittedJobId());
+        JobStatus jobStatus = getJobStatusBySubmittedId(sessionId, submittedJob.getSubmittedJobId());
 
         return new JobState(submittedJob.getSubmittedJobType(), jobStatus);
     }
@@ -442,7 +448,7 @@ public class JobService {
         }
 
         LOGGER.info("Getting job state for submitted job ID: " + submittedJobId);
-        JobStatus jobStatus = getJobStatusBySubmittedId(submittedJobId);
+        JobStatus jobStatus = getJobStatusBySubmittedId(sessionId, submittedJobId);
 
         return new JobState(SubmittedJobType.UNKNOWN, jobStatus);
     }
@@ -459,7 +465,9 @@ public class JobService {
             throw new NotConnectedException();
         }
         Job submittedJob = repositoryService.getJob(jobId);
-        JobResult jobResult = schedulerGateway.waitForJob(String.valueOf(submittedJob.getSubmittedJobId()), timeout);
+        JobResult jobResult = schedulerGateway.waitForJob(sessionId,
+                                                          String.valueOf(submittedJob.getSubmittedJobId()),
+                                                          timeout);
         LOGGER.info("Results of job: " + jobId + " fetched successfully: " +
                     Optional.ofNullable(jobResult).map(JobResult::toString).orElse(null));
         return jobResult;
@@ -483,7 +491,7 @@ public class JobService {
         // Fetch job results
         Map<Long, Map<String, Serializable>> jobResult;
         try {
-            jobResult = schedulerGateway.getJobResultMaps(jobIds);
+            jobResult = schedulerGateway.getJobResultMaps(sessionId, jobIds);
         } catch (Exception e) {
             LOGGER.error("Failed to fetch results for job ID: {}. Error: {}", jobId, e.getMessage(), e);
             throw new RuntimeException("Error fetching job results for job ID: " + jobId, e);
@@ -607,7 +615,7 @@ public class JobService {
         boolean result = false;
         Job submittedJob = repositoryService.getJob(jobId);
         if (submittedJob != null && submittedJob.getSubmittedJobId() > 0L) {
-            result = schedulerGateway.killJob(String.valueOf(submittedJob.getSubmittedJobId()));
+            result = schedulerGateway.killJob(sessionId, String.valueOf(submittedJob.getSubmittedJobId()));
             if (result) {
                 LOGGER.info("The job : {} could be killed successfully.", jobId);
             } else {
@@ -651,7 +659,8 @@ public class JobService {
         Map<String, TaskResult> taskResultsMap = new HashMap<>();
         createdTask.getSubmittedTaskNames()
                    .forEach(submittedTaskName -> taskResultsMap.put(submittedTaskName,
-                                                                    schedulerGateway.waitForTask(String.valueOf(submittedJob.getSubmittedJobId()),
+                                                                    schedulerGateway.waitForTask(sessionId,
+                                                                                                 String.valueOf(submittedJob.getSubmittedJobId()),
                                                                                                  submittedTaskName,
                                                                                                  timeout)));
         LOGGER.info("Results of task: " + taskName + " fetched successfully: " + taskResultsMap.toString());
@@ -675,7 +684,8 @@ public class JobService {
         Map<String, TaskResult> taskResultsMap = new HashMap<>();
         createdTask.getSubmittedTaskNames()
                    .forEach(submittedTaskName -> taskResultsMap.put(submittedTaskName,
-                                                                    schedulerGateway.getTaskResult(String.valueOf(submittedJob.getSubmittedJobId()),
+                                                                    schedulerGateway.getTaskResult(sessionId,
+                                                                                                   String.valueOf(submittedJob.getSubmittedJobId()),
                                                                                                    submittedTaskName)));
         LOGGER.info("Results of task: " + taskName + " fetched successfully: " + taskResultsMap.toString());
         return taskResultsMap;
@@ -689,8 +699,8 @@ public class JobService {
         if (!paGatewayService.isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        List<JobInfo> activeJobInfos = schedulerGateway.getActiveJobs(0, 1000);
-        activeJobInfos.forEach(activeJobInfo -> schedulerGateway.killJob(activeJobInfo.getJobId().value()));
+        List<JobInfo> activeJobInfos = schedulerGateway.getActiveJobs(sessionId, 0, 1000);
+        activeJobInfos.forEach(activeJobInfo -> schedulerGateway.killJob(sessionId, activeJobInfo.getJobId().value()));
         return true;
     }
 
@@ -700,9 +710,9 @@ public class JobService {
      */
     public Boolean removeAllPAJobs(String sessionId) throws NotConnectedException {
         killAllActivePAJobs(sessionId);
-        schedulerGateway.getJobs(0, 1000)
+        schedulerGateway.getJobs(sessionId, 0, 1000)
                         .getList()
-                        .forEach(jobInfo -> schedulerGateway.removeJob(jobInfo.getJobId().value()));
+                        .forEach(jobInfo -> schedulerGateway.removeJob(sessionId, jobInfo.getJobId().value()));
         return true;
     }
 
@@ -719,12 +729,13 @@ public class JobService {
 
     /**
      * Submit a reconfiguration job to PA Scheduler
+     * @param sessionId A valid session id
      * @param job The job to reconfigure
      * @param reconfigurationPlan The reconfiguration plan
      * @param deletedTasks The deleted tasks
      */
     @Transactional
-    public void submitReconfigurationJob(Job job, ReconfigurationJobDefinition reconfigurationPlan,
+    public void submitReconfigurationJob(String sessionId, Job job, ReconfigurationJobDefinition reconfigurationPlan,
             Set<Task> deletedTasks) {
         LOGGER.info("Job [{}] to be reconfigured ...", job.getJobId());
 
@@ -732,17 +743,21 @@ public class JobService {
         paJob.setName(job.getName() + "_Reconfiguration");
         LOGGER.info("Reconfiguration job created: " + paJob.toString());
 
-        job.getTasks()
-           .stream()
-           .filter(task -> task.getDeployments() != null && !task.getDeployments().isEmpty())
-           .forEach(task -> {
-               List<ScriptTask> scriptTasks = taskBuilder.buildReconfigurationPATask(task, job, reconfigurationPlan);
-
-               if (scriptTasks != null && !scriptTasks.isEmpty()) {
-                   addAllScriptTasksToPAJob(paJob, task, scriptTasks);
-                   repositoryService.saveTask(task);
-               }
-           });
+        List<Task> tasksToBuild = job.getTasks()
+                                     .stream()
+                                     .filter(task -> task.getDeployments() != null && !task.getDeployments().isEmpty())
+                                     .collect(Collectors.toList());
+        CompletableFuture<List<List<ScriptTask>>> builds = taskBuilder.buildOneAfterAnother(tasksToBuild, task -> {
+            return taskBuilder.buildReconfigurationPATask(sessionId, task, job, reconfigurationPlan);
+        });
+        List<List<ScriptTask>> builtScriptTasks = TaskBuilder.join(builds);
+        for (int i = 0; i < tasksToBuild.size(); i++) {
+            List<ScriptTask> scriptTasks = builtScriptTasks.get(i);
+            if (scriptTasks != null && !scriptTasks.isEmpty()) {
+                addAllScriptTasksToPAJob(paJob, tasksToBuild.get(i), scriptTasks);
+                repositoryService.saveTask(tasksToBuild.get(i));
+            }
+        }
 
         setAllReconfigurationMandatoryDependencies(paJob, job);
 
@@ -764,7 +779,7 @@ public class JobService {
         paJob.setMaxNumberOfExecution(2);
         paJob.setProjectName("NebulOuS");
 
-        long submittedJobId = schedulerGateway.submit(paJob).longValue();
+        long submittedJobId = schedulerGateway.submit(sessionId, paJob).longValue();
         job.setSubmittedJobId(submittedJobId);
         job.setSubmittedJobType(SubmittedJobType.RECONFIGURATION);
 
@@ -873,7 +888,7 @@ public class JobService {
         paJob.setProjectName("NebulOuS");
         long submittedJobId = -1L;
         if (!paJob.getTasks().isEmpty()) {
-            submittedJobId = schedulerGateway.submit(paJob).longValue();
+            submittedJobId = schedulerGateway.submit(sessionId, paJob).longValue();
             LOGGER.info("One Task Job submitted successfully. ID = " + submittedJobId);
         } else {
             LOGGER.warn("The job is empty!");
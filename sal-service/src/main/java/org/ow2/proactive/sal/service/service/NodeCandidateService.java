@@ -5,16 +5,29 @@
  */
 package org.ow2.proactive.sal.service.service;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import org.apache.commons.lang3.Validate;
 import org.ow2.proactive.sal.model.NodeCandidate;
+import org.ow2.proactive.sal.model.NodeCandidateExplanation;
+import org.ow2.proactive.sal.model.NodeCandidatePage;
+import org.ow2.proactive.sal.model.NodeCandidateSortKey;
+import org.ow2.proactive.sal.model.NodeCandidateStatistics;
 import org.ow2.proactive.sal.model.Requirement;
+import org.ow2.proactive.sal.model.RequirementExplanation;
+import org.ow2.proactive.sal.service.nc.NodeCandidateCatalog;
+import org.ow2.proactive.sal.service.nc.NodeCandidateQueryCache;
+import org.ow2.proactive.sal.service.nc.NodeCandidateRanking;
 import org.ow2.proactive.sal.service.nc.NodeCandidateUtils;
-import org.ow2.proactive.sal.service.nc.WhiteListedInstanceTypesUtils;
-import org.ow2.proactive.sal.service.util.JCloudsInstancesUtils;
+import org.ow2.proactive.sal.service.nc.RequirementCompiler;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.log4j.Log4j2;
@@ -24,41 +37,196 @@ import lombok.extern.log4j.Log4j2;
 @Service("NodeCandidateService")
 public class NodeCandidateService {
 
+    private static final int EXPLANATION_SAMPLE_SIZE = 10;
+
     @Autowired
     private PAGatewayService paGatewayService;
 
     @Autowired
     private RepositoryService repositoryService;
 
+    @Autowired
+    private NodeCandidateCatalog nodeCandidateCatalog;
+
+    @Autowired
+    private NodeCandidateQueryCache nodeCandidateQueryCache;
+
+    @Value("${nc.catalog.enabled:true}")
+    private boolean catalogEnabled;
+
     /**
-     * Find node candidates
+     * Find node candidates, BYON and EDGE ones included. The results are cached until the node candidates change.
      * @param sessionId A valid session id
      * @param requirements List of NodeType or Attribute requirements
-     * @return A list of all node candidates that satisfy the requirements
+     * @return A new list of all node candidates that satisfy the requirements. The node candidates themselves are
+     *         shared with the cache and the other callers, they must not be modified.
      */
     public List<NodeCandidate> findNodeCandidates(String sessionId, List<Requirement> requirements)
             throws NotConnectedException {
         if (!paGatewayService.isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        List<NodeCandidate> filteredNodeCandidates = new LinkedList<>();
-        List<NodeCandidate> allNodeCandidates = repositoryService.listNodeCandidates();
-        allNodeCandidates.forEach(nodeCandidate -> {
-            LOGGER.info("Checking node candidate with type: {}", nodeCandidate.getHardware().getName());
-            if (nodeCandidate.isByonNodeCandidate() || nodeCandidate.isEdgeNodeCandidate() ||
-                JCloudsInstancesUtils.isHandledHardwareInstanceType(nodeCandidate.getCloud().getApi().getProviderName(),
-                                                                    nodeCandidate.getHardware().getName()) ||
-                WhiteListedInstanceTypesUtils.isHandledHardwareInstanceType(nodeCandidate.getHardware().getName())) {
-                LOGGER.info("  Checking filters for node candidate with type: {} ...",
-                            nodeCandidate.getHardware().getName());
-                if (NodeCandidateUtils.verifyAllFilters(requirements, nodeCandidate)) {
-                    LOGGER.info("   Requirements answered. Success!");
-                    filteredNodeCandidates.add(nodeCandidate);
+        List<NodeCandidate> cached = nodeCandidateQueryCache.get(requirements, () -> {
+            List<NodeCandidate> filteredNodeCandidates = new ArrayList<>();
+            forEachMatchingNodeCandidate(requirements, filteredNodeCandidates::add);
+            return filteredNodeCandidates;
+        });
+        return new ArrayList<>(cached);
+    }
+
+    /**
+     * Find a page of node candidates ordered by id. The catalog is walked from the cursor and only up to the first
+     * node candidate of the next page, so the cost of a page does not grow with the pages before it.
+     * @param sessionId A valid session id
+     * @param requirements List of NodeType or Attribute requirements
+     * @param after Id of the last node candidate of the previous page, null for the first page
+     * @param limit The maximum number of node candidates in the page
+     * @return A page of the node candidates that satisfy the requirements, with the cursor of the next page
+     */
+    public NodeCandidatePage findNodeCandidatesPage(String sessionId, List<Requirement> requirements, String after,
+            int limit) throws NotConnectedException {
+        Validate.isTrue(limit > 0, "The page limit must be positive.");
+        if (!paGatewayService.isConnectionActive(sessionId)) {
+            throw new NotConnectedException();
+        }
+        Predicate<NodeCandidate> requirementsFilter = RequirementCompiler.compile(requirements);
+        // one node candidate more than the limit tells whether there is a next page
+        List<NodeCandidate> nodeCandidates = new ArrayList<>(limit + 1);
+        Predicate<NodeCandidate> collector = nodeCandidate -> {
+            if (isDeployable(nodeCandidate) && requirementsFilter.test(nodeCandidate)) {
+                nodeCandidates.add(nodeCandidate);
+            }
+            return nodeCandidates.size() <= limit;
+        };
+        if (catalogEnabled) {
+            nodeCandidateCatalog.walkFrom(after, collector);
+        } else {
+            List<NodeCandidate> storedNodeCandidates = repositoryService.findNodeCandidates(requirements);
+            storedNodeCandidates.sort(Comparator.comparing(NodeCandidate::getId));
+            for (NodeCandidate nodeCandidate : storedNodeCandidates) {
+                if ((after == null || nodeCandidate.getId().compareTo(after) > 0) && !collector.test(nodeCandidate)) {
+                    break;
                 }
             }
+        }
+        String nextCursor = null;
+        if (nodeCandidates.size() > limit) {
+            nodeCandidates.remove(limit);
+            nextCursor = nodeCandidates.get(limit - 1).getId();
+        }
+        return new NodeCandidatePage(nodeCandidates, nextCursor);
+    }
+
+    /**
+     * Find the best node candidates according to a ranking criterion
+     * @param sessionId A valid session id
+     * @param requirements List of NodeType or Attribute requirements
+     * @param sortKey The ranking criterion
+     * @param limit The maximum number of node candidates to return
+     * @param coresWeight Weight of a core in the weighted score
+     * @param ramWeight Weight of a GB of RAM in the weighted score
+     * @return The best node candidates that satisfy the requirements, the best first
+     */
+    public List<NodeCandidate> findTopNodeCandidates(String sessionId, List<Requirement> requirements,
+            NodeCandidateSortKey sortKey, int limit, double coresWeight, double ramWeight)
+            throws NotConnectedException {
+        Validate.notNull(sortKey, "The sort key must be specified.");
+        Validate.isTrue(limit > 0, "The limit must be positive.");
+        Comparator<NodeCandidate> ranking = NodeCandidateRanking.comparator(sortKey, coresWeight, ramWeight);
+        // max-heap on the ranking: the worst of the current top candidates is evicted first
+        PriorityQueue<NodeCandidate> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        forEachNodeCandidate(sessionId, requirements, nodeCandidate -> {
+            if (top.size() < limit) {
+                top.add(nodeCandidate);
+            } else if (ranking.compare(nodeCandidate, top.peek()) < 0) {
+                top.poll();
+                top.add(nodeCandidate);
+            }
+        });
+        List<NodeCandidate> nodeCandidates = new ArrayList<>(top);
+        nodeCandidates.sort(ranking);
+        return nodeCandidates;
+    }
+
+    /**
+     * Pass each node candidate that satisfies the requirements to a consumer, as soon as it matches
+     * @param sessionId A valid session id
+     * @param requirements List of NodeType or Attribute requirements
+     * @param consumer The consumer of the matching node candidates
+     */
+    public void forEachNodeCandidate(String sessionId, List<Requirement> requirements,
+            Consumer<NodeCandidate> consumer) throws NotConnectedException {
+        if (!paGatewayService.isConnectionActive(sessionId)) {
+            throw new NotConnectedException();
+        }
+        forEachMatchingNodeCandidate(requirements, consumer);
+    }
+
+    private void forEachMatchingNodeCandidate(List<Requirement> requirements, Consumer<NodeCandidate> consumer) {
+        Predicate<NodeCandidate> requirementsFilter = RequirementCompiler.compile(requirements);
+        List<NodeCandidate> preselectedNodeCandidates = catalogEnabled ? nodeCandidateCatalog.findNodeCandidates(requirements)
+                                                                       : repositoryService.findNodeCandidates(requirements);
+        preselectedNodeCandidates.forEach(nodeCandidate -> {
+            if (isDeployable(nodeCandidate) && requirementsFilter.test(nodeCandidate)) {
+                consumer.accept(nodeCandidate);
+            }
         });
-        return filteredNodeCandidates;
-        //TODO: add BYON nodes to the NodeCandidates List
+    }
+
+    /**
+     * Explain a node candidate search: check every requirement against every node candidate, and count the node
+     * candidates each of them rejects. Much slower than a search, as the node candidates are neither preselected
+     * nor rejected on their first unsatisfied requirement.
+     * @param sessionId A valid session id
+     * @param requirements List of NodeType or Attribute requirements
+     * @return The number of node candidates rejected by each requirement, with a sample of their ids
+     */
+    public NodeCandidateExplanation explainNodeCandidates(String sessionId, List<Requirement> requirements)
+            throws NotConnectedException {
+        if (!paGatewayService.isConnectionActive(sessionId)) {
+            throw new NotConnectedException();
+        }
+        List<Predicate<NodeCandidate>> requirementFilters = RequirementCompiler.compileEach(requirements);
+        NodeCandidateExplanation explanation = new NodeCandidateExplanation();
+        List<RequirementExplanation> requirementExplanations = explanation.getRequirements();
+        if (requirements != null) {
+            requirements.forEach(requirement -> requirementExplanations.add(new RequirementExplanation(requirement)));
+        }
+        List<NodeCandidate> nodeCandidates = catalogEnabled ? nodeCandidateCatalog.findNodeCandidates(null)
+                                                            : repositoryService.findNodeCandidates(null);
+        for (NodeCandidate nodeCandidate : nodeCandidates) {
+            explanation.setCheckedCount(explanation.getCheckedCount() + 1);
+            boolean matched = true;
+            if (!isDeployable(nodeCandidate)) {
+                explanation.setUndeployableCount(explanation.getUndeployableCount() + 1);
+                addToSample(explanation.getUndeployableSample(), nodeCandidate);
+                matched = false;
+            }
+            for (int i = 0; i < requirementFilters.size(); i++) {
+                if (!requirementFilters.get(i).test(nodeCandidate)) {
+                    RequirementExplanation requirementExplanation = requirementExplanations.get(i);
+                    requirementExplanation.setRejectedCount(requirementExplanation.getRejectedCount() + 1);
+                    addToSample(requirementExplanation.getRejectedSample(), nodeCandidate);
+                    matched = false;
+                }
+            }
+            if (matched) {
+                explanation.setMatchedCount(explanation.getMatchedCount() + 1);
+            }
+        }
+        return explanation;
+    }
+
+    private static boolean isDeployable(NodeCandidate nodeCandidate) {
+        // the flag is only unknown for the node candidates stored before it existed, until it is refreshed
+        Boolean deployable = nodeCandidate.getDeployable();
+        return deployable != null ? deployable : NodeCandidateUtils.isDeployable(nodeCandidate);
+    }
+
+    private static void addToSample(List<String> sample, NodeCandidate nodeCandidate) {
+        if (sample.size() < EXPLANATION_SAMPLE_SIZE) {
+            sample.add(nodeCandidate.getId());
+        }
     }
 
     /**
@@ -70,7 +238,23 @@ public class NodeCandidateService {
         if (!paGatewayService.isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        List<NodeCandidate> allNodeCandidates = repositoryService.listNodeCandidates();
-        return (long) allNodeCandidates.size();
+        if (catalogEnabled && nodeCandidateCatalog.isLoaded()) {
+            return (long) nodeCandidateCatalog.size();
+        }
+        return repositoryService.countNodeCandidates();
+    }
+
+    /**
+     * Get the statistics of the available node candidates, from the catalog when it is in memory,
+     * otherwise with aggregate queries on the database
+     * @param sessionId A valid session id
+     * @return the node candidate statistics
+     */
+    public NodeCandidateStatistics getNodeCandidateStatistics(String sessionId) throws NotConnectedException {
+        if (!paGatewayService.isConnectionActive(sessionId)) {
+            throw new NotConnectedException();
+        }
+        NodeCandidateStatistics statistics = catalogEnabled ? nodeCandidateCatalog.getStatistics() : null;
+        return statistics != null ? statistics : repositoryService.getNodeCandidateStatistics();
     }
 }
@@ -67,7 +67,7 @@ public class NodeService {
         }
         Job job = optJob.get();
 
-        nodes.forEach(node -> addNode(node, job));
+        nodes.forEach(node -> addNode(sessionId, node, job));
 
         repositoryService.flush();
 
@@ -78,10 +78,11 @@ public class NodeService {
 
     /**
      * Add a node to the task of a defined job
+     * @param sessionId A valid session id
      * @param node a Iaas node definition
      * @param job the job
      */
-    public Deployment addNode(IaasDefinition node, Job job) {
+    public Deployment addNode(String sessionId, IaasDefinition node, Job job) {
         LOGGER.info("Adding IAAS node {} to job [{}]", node.toString(), job.getJobId());
         Deployment newDeployment = new Deployment();
         newDeployment.setNodeName(node.getName());
@@ -116,7 +117,7 @@ public class NodeService {
                                                                                     .getName()))) {
                 String nodeSourceName = PACloud.WHITE_LISTED_NAME_PREFIX + cloud.getNodeSourceNamePrefix() + "-" +
                                         newDeployment.getNode().getNodeCandidate().getLocation().getName();
-                this.defineNSWithDeploymentInfo(nodeSourceName, cloud, newDeployment);
+                this.defineNSWithDeploymentInfo(sessionId, nodeSourceName, cloud, newDeployment);
                 cloud.addWhiteListedDeployedRegion(newDeployment.getNode().getNodeCandidate().getLocation().getName(),
                                                    newDeployment.getNode()
                                                                 .getNodeCandidate()
@@ -130,7 +131,7 @@ public class NodeService {
                                                                          .getName()))) {
                 String nodeSourceName = cloud.getNodeSourceNamePrefix() + "-" +
                                         newDeployment.getNode().getNodeCandidate().getLocation().getName();
-                this.defineNSWithDeploymentInfo(nodeSourceName, cloud, newDeployment);
+                this.defineNSWithDeploymentInfo(sessionId, nodeSourceName, cloud, newDeployment);
                 cloud.addDeployedRegion(newDeployment.getNode().getNodeCandidate().getLocation().getName(),
                                         newDeployment.getNode()
                                                      .getNodeCandidate()
@@ -180,11 +181,13 @@ public class NodeService {
 
     /**
      * Define a node source in PA server related to a deployment information
+     * @param sessionId A valid session id
      * @param nodeSourceName A valid and unique node source name
      * @param cloud The cloud information object
      * @param deployment The deployment information object
      */
-    private void defineNSWithDeploymentInfo(String nodeSourceName, PACloud cloud, Deployment deployment) {
+    private void defineNSWithDeploymentInfo(String sessionId, String nodeSourceName, PACloud cloud,
+            Deployment deployment) {
         String filename;
         Map<String, String> variables = new HashMap<>();
         variables.put("NS_name", nodeSourceName);
@@ -296,7 +299,7 @@ public class NodeService {
         assert fXmlFile != null;
         LOGGER.info("Submitting the file: " + fXmlFile.toString());
         LOGGER.info("Trying to deploy the NS: " + nodeSourceName);
-        JobId jobId = schedulerGateway.submit(fXmlFile, variables);
+        JobId jobId = schedulerGateway.submit(sessionId, fXmlFile, variables);
         LOGGER.info("Job submitted with ID: " + jobId);
         TemporaryFilesHelper.delete(fXmlFile);
     }
@@ -310,8 +313,8 @@ public class NodeService {
         if (!paGatewayService.isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        resourceManagerGateway.synchronizeDeploymentsIPAddresses(schedulerGateway);
-        resourceManagerGateway.synchronizeDeploymentsInstanceIDs();
+        resourceManagerGateway.synchronizeDeploymentsIPAddresses(sessionId, schedulerGateway);
+        resourceManagerGateway.synchronizeDeploymentsInstanceIDs(sessionId);
         List<Deployment> allDeployments = repositoryService.listDeployments();
         LOGGER.info("Fetched deployments size: {}", allDeployments.size());
         return allDeployments;
@@ -327,8 +330,8 @@ public class NodeService {
         if (!paGatewayService.isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        resourceManagerGateway.synchronizeDeploymentsIPAddresses(schedulerGateway);
-        resourceManagerGateway.synchronizeDeploymentsInstanceIDs();
+        resourceManagerGateway.synchronizeDeploymentsIPAddresses(sessionId, schedulerGateway);
+        resourceManagerGateway.synchronizeDeploymentsInstanceIDs(sessionId);
         List<Deployment> allDeployments = repositoryService.findAllDeployments(nodeNames);
         LOGGER.info("Fetched deployments size: {} for node names [{}]", allDeployments.size(), nodeNames);
         return allDeployments;
@@ -346,10 +349,12 @@ public class NodeService {
         }
         nodeNames.forEach(nodeName -> {
             try {
-                List<String> nodeURLs = resourceManagerGateway.searchNodes(Collections.singletonList(nodeName), true);
+                List<String> nodeURLs = resourceManagerGateway.searchNodes(sessionId,
+                                                                           Collections.singletonList(nodeName),
+                                                                           true);
                 if (!nodeURLs.isEmpty()) {
                     String nodeUrl = nodeURLs.get(0);
-                    resourceManagerGateway.removeNode(nodeUrl, preempt);
+                    resourceManagerGateway.removeNode(sessionId, nodeUrl, preempt);
                     LOGGER.info("Node " + nodeName + " with URL: " + nodeUrl + " has been removed successfully.");
                 } else {
                     LOGGER.warn("No Nodes with tag " + nodeName + " has been found in RM. Nothing to be removed here.");
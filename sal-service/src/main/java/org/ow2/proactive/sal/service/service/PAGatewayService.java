@@ -7,26 +7,40 @@ package org.ow2.proactive.sal.service.service;
 
 import java.security.KeyException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.security.auth.login.LoginException;
 
 import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
 import org.ow2.proactive.resourcemanager.exception.RMException;
+import org.ow2.proactive.sal.service.service.AsyncWaiter.Backoff;
 import org.ow2.proactive.sal.service.service.application.PASchedulerGateway;
 import org.ow2.proactive.sal.service.service.infrastructure.PAConnectorIaasGateway;
 import org.ow2.proactive.sal.service.service.infrastructure.PAResourceManagerGateway;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import lombok.extern.log4j.Log4j2;
 
 
 @Log4j2
 @Service("PAGatewayServiceService")
-public class PAGatewayService {
+public class PAGatewayService implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Backoff STARTUP_CONNECTION_BACKOFF = new Backoff(ServiceConfiguration.INTERVAL,
+                                                                          60000,
+                                                                          ServiceConfiguration.MAX_CONNECTION_RETRIES,
+                                                                          0);
 
     @Autowired
     private PAResourceManagerGateway resourceManagerGateway;
@@ -41,14 +55,62 @@ public class PAGatewayService {
     private ServiceConfiguration serviceConfiguration;
 
     @Autowired
-    private PAGatewayInitThread paGatewayInitThread;
+    private PASessionPool sessionPool;
+
+    @Autowired
+    private AsyncWaiter asyncWaiter;
+
+    @Value("${pa.session-cache.ttl-seconds:30}")
+    private long sessionTtlSeconds;
+
+    @Value("${pa.session-cache.negative-ttl-seconds:5}")
+    private long invalidSessionTtlSeconds;
+
+    @Value("${pa.session-cache.max-entries:1000}")
+    private long maxCachedSessions;
+
+    @Value("${pa.session-renewal-interval-seconds:300}")
+    private long sessionRenewalIntervalSeconds;
+
+    // the validity of the recently checked session ids, with the time until which it can be trusted
+    private Cache<String, SessionValidity> sessionValidities;
 
-    /**
-     * Init a gateway to the ProActive server in an automatic way on application startup
-     */
     @PostConstruct
     public void init() {
-        paGatewayInitThread.start();
+        sessionValidities = CacheBuilder.newBuilder()
+                                        .maximumSize(maxCachedSessions)
+                                        .expireAfterWrite(Math.max(sessionTtlSeconds, invalidSessionTtlSeconds),
+                                                          TimeUnit.SECONDS)
+                                        .build();
+    }
+
+    /**
+     * Init a gateway to the ProActive server in an automatic way once the application is started
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        connectAtStartup();
+    }
+
+    private void connectAtStartup() {
+        String paURL = serviceConfiguration.getPaUrl();
+        try {
+            init(paURL);
+        } catch (RuntimeException re) {
+            LOGGER.warn("Not able to init the gateway to ProActive at startup: ", re);
+            return;
+        }
+        // a connection attempt blocks until the ProActive server answers, so it does not run on the waiter scheduler
+        asyncWaiter.waitForBlocking("Connection to ProActive", () -> {
+            LOGGER.debug("Trying connection to: {} with login: {}", paURL, serviceConfiguration.getPaLogin());
+            return Optional.of(connect(serviceConfiguration.getPaLogin(), serviceConfiguration.getPaPassword()));
+        }, STARTUP_CONNECTION_BACKOFF).whenComplete((sessionId, error) -> {
+            if (error == null) {
+                LOGGER.info("ProActive connection at startup ended properly.");
+            } else {
+                LOGGER.warn("ProActive connection at startup did not succeed due to:", error);
+            }
+        });
     }
 
     /**
@@ -57,12 +119,8 @@ public class PAGatewayService {
      */
     public Boolean init(String paURL) {
         serviceConfiguration.setPaUrl(paURL);
-        LOGGER.debug("Init ProActive's Resource Manager");
-        resourceManagerGateway.init(paURL);
         LOGGER.debug("Init ProActive's Connector IAAS");
         connectorIaasGateway.init(paURL);
-        LOGGER.debug("Init ProActive's Scheduler");
-        schedulerGateway.init(paURL);
         return true;
     }
 
@@ -99,11 +157,13 @@ public class PAGatewayService {
     }
 
     protected String connect(String username, String password) throws LoginException, KeyException, RMException {
-        //LOGGER.debug("Connecting to ProActive's Resource Manager");
-        resourceManagerGateway.connect(username, password);
-        //LOGGER.debug("Connecting to ProActive's Scheduler");
-        schedulerGateway.connect(username, password);
-        return resourceManagerGateway.getSessionId();
+        // the session of the user is reused if it is still active, otherwise a new one is opened
+        PASession session = sessionPool.connect(username, password);
+        // the previous session of the user is closed when the new one replaces it
+        if (session.getReplacedSessionId() != null) {
+            sessionValidities.invalidate(session.getReplacedSessionId());
+        }
+        return session.getSessionId();
     }
 
     /**
@@ -115,10 +175,12 @@ public class PAGatewayService {
         if (!isConnectionActive(sessionId)) {
             throw new NotConnectedException();
         }
-        LOGGER.debug("Disconnecting from RM...");
-        resourceManagerGateway.disconnect();
-        LOGGER.debug("Disconnecting from Scheduler...");
-        schedulerGateway.disconnect();
+        PASession session = sessionPool.getSession(sessionId);
+        if (session != null) {
+            LOGGER.debug("Disconnecting from RM and Scheduler...");
+            sessionPool.disconnect(session);
+        }
+        sessionValidities.invalidate(sessionId);
     }
 
     /**
@@ -129,20 +191,53 @@ public class PAGatewayService {
      * @throws PermissionRestException In case the user does not have valid permissions
      */
     public List<RMNodeEvent> getActiveVMs(String sessionId) throws NotConnectedException, PermissionRestException {
-        return resourceManagerGateway.getListOfNodesEvents();
+        return resourceManagerGateway.getListOfNodesEvents(sessionId);
     }
 
     /**
-     * Verify that the provided sessionId corresponds to an active session
+     * Verify that the provided sessionId corresponds to an active session.
+     * The result is cached for a short time, so that the ProActive server is not asked on every request, and the
+     * scheduler session of the user is only renewed once its renewal interval elapsed.
      * @param sessionId A session id
      * @return True if the connexion session is active, false otherwise
      * @throws NotConnectedException In case the user is not connected
      */
     public boolean isConnectionActive(String sessionId) throws NotConnectedException {
-        boolean isActive = resourceManagerGateway.isActive(sessionId);
-        if (isActive) {
-            schedulerGateway.renewSession();
+        long now = System.nanoTime();
+        SessionValidity validity = sessionId == null ? null : sessionValidities.getIfPresent(sessionId);
+        if (validity == null || now - validity.expiresAt >= 0) {
+            boolean isActive = resourceManagerGateway.isActive(sessionId);
+            long ttlSeconds = isActive ? sessionTtlSeconds : invalidSessionTtlSeconds;
+            validity = new SessionValidity(isActive, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+            if (sessionId != null && ttlSeconds > 0) {
+                sessionValidities.put(sessionId, validity);
+            }
+        }
+        if (validity.active) {
+            renewSessionIfDue(sessionId, now);
+        }
+        return validity.active;
+    }
+
+    private void renewSessionIfDue(String sessionId, long now) {
+        PASession session = sessionPool.getSession(sessionId);
+        // a single caller renews the session when it is due, the concurrent ones do not wait for it, and an adopted
+        // session has no Scheduler client to renew
+        if (session != null && session.getRestSmartProxy() != null &&
+            session.claimRenewal(now, TimeUnit.SECONDS.toNanos(sessionRenewalIntervalSeconds))) {
+            schedulerGateway.renewSession(sessionId);
+        }
+    }
+
+    private static class SessionValidity {
+        private final boolean active;
+
+        // System.nanoTime() after which the validity must be checked again
+        private final long expiresAt;
+
+        private SessionValidity(boolean active, long expiresAt) {
+            this.active = active;
+            this.expiresAt = expiresAt;
         }
-        return isActive;
     }
 }
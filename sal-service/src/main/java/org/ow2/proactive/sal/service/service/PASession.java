@@ -0,0 +1,150 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ow2.proactive_grid_cloud_portal.common.RMRestInterface;
+import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+
+/**
+ * A session of a user on the ProActive server, with its own Resource Manager and Scheduler clients. A session opened
+ * outside of this service is adopted with a Resource Manager client only, as its password is not known.
+ */
+@Getter
+public class PASession {
+
+    private static final SecureRandom SALT_RANDOM = new SecureRandom();
+
+    private final String username;
+
+    private final String sessionId;
+
+    private final RMRestInterface rmRestInterface;
+
+    private final RestSmartProxyImpl restSmartProxy;
+
+    // the previous session of the same user, dropped as expired when this one was opened, null if there was none
+    private final String replacedSessionId;
+
+    // the password is not kept, only a salted digest to check that a new login can reuse the session
+    @Getter(AccessLevel.NONE)
+    private final byte[] passwordSalt = new byte[16];
+
+    @Getter(AccessLevel.NONE)
+    private final byte[] passwordDigest;
+
+    private volatile long lastUsed = System.nanoTime();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong lastRenewal = new AtomicLong(System.nanoTime());
+
+    // the number of clients using the session, -1 once it is closed
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger clients = new AtomicInteger();
+
+    PASession(String username, String password, String sessionId, RMRestInterface rmRestInterface,
+            RestSmartProxyImpl restSmartProxy, String replacedSessionId) {
+        this.username = username;
+        this.sessionId = sessionId;
+        this.rmRestInterface = rmRestInterface;
+        this.restSmartProxy = restSmartProxy;
+        this.replacedSessionId = replacedSessionId;
+        SALT_RANDOM.nextBytes(passwordSalt);
+        this.passwordDigest = digest(password);
+    }
+
+    PASession(String sessionId, RMRestInterface rmRestInterface) {
+        this.username = null;
+        this.sessionId = sessionId;
+        this.rmRestInterface = rmRestInterface;
+        this.restSmartProxy = null;
+        this.replacedSessionId = null;
+        this.passwordDigest = null;
+    }
+
+    /**
+     * Record that the session is being used, so that it is not closed as idle
+     */
+    public void touch() {
+        lastUsed = System.nanoTime();
+    }
+
+    /**
+     * @param password A password
+     * @return True if the session was opened with this password
+     */
+    boolean hasPassword(String password) {
+        return passwordDigest != null && password != null && MessageDigest.isEqual(passwordDigest, digest(password));
+    }
+
+    /**
+     * Record a new client of the session
+     * @return False if the session is already closed
+     */
+    boolean acquire() {
+        int count;
+        do {
+            count = clients.get();
+            if (count < 0) {
+                return false;
+            }
+        } while (!clients.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Release a client of the session
+     * @return True if it was its last client, the session is then closed
+     */
+    boolean release() {
+        int count;
+        do {
+            count = clients.get();
+            if (count <= 0) {
+                return false;
+            }
+        } while (!clients.compareAndSet(count, count == 1 ? -1 : count - 1));
+        return count == 1;
+    }
+
+    /**
+     * Close the session whatever its clients, so that it cannot be acquired anymore
+     */
+    void close() {
+        clients.set(-1);
+    }
+
+    /**
+     * Claim the renewal of the session when it is due, so that a single caller renews it
+     * @param now The current System.nanoTime()
+     * @param intervalNanos The interval between two renewals
+     * @return True if the caller has to renew the session
+     */
+    public boolean claimRenewal(long now, long intervalNanos) {
+        long last = lastRenewal.get();
+        return now - last >= intervalNanos && lastRenewal.compareAndSet(last, now);
+    }
+
+    private byte[] digest(String password) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(passwordSalt);
+            return messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
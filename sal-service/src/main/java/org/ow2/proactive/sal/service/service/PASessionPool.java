@@ -0,0 +1,257 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import java.security.KeyException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.security.auth.login.LoginException;
+
+import org.ow2.proactive.resourcemanager.exception.RMException;
+import org.ow2.proactive.sal.service.util.RMConnectionHelper;
+import org.ow2.proactive.sal.service.util.SchedulerConnectionHelper;
+import org.ow2.proactive_grid_cloud_portal.common.RMRestInterface;
+import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Pool of the ProActive sessions, one per user. The sessions are looked up without locking, and the connections of
+ * different users are opened in parallel, only the connections of the same user being serialized. A session is
+ * closed once all its clients disconnected, and the sessions unused for a while are dropped from the pool.
+ */
+@Log4j2
+@Component
+public class PASessionPool {
+
+    @Autowired
+    private ServiceConfiguration serviceConfiguration;
+
+    @Value("${pa.session-pool.idle-minutes:60}")
+    private long idleMinutes;
+
+    private final Map<String, PASession> sessionsByUser = new ConcurrentHashMap<>();
+
+    private final Map<String, PASession> sessionsById = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> userLocks = new ConcurrentHashMap<>();
+
+    private volatile RMLookupClient rmLookupClient;
+
+    private ScheduledExecutorService evictionExecutor;
+
+    @PostConstruct
+    private void init() {
+        if (idleMinutes > 0) {
+            evictionExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("pa-session-eviction")
+                                                                                                    .setDaemon(true)
+                                                                                                    .build());
+            evictionExecutor.scheduleWithFixedDelay(this::closeIdleSessions, 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (evictionExecutor != null) {
+            evictionExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the active session of a user, or open a new one. The previous session of the user stays available to the
+     * clients using it when it is replaced, e.g. after a change of password, unless it expired.
+     * @param username The user's username
+     * @param password The user's password
+     * @return The session of the user, with the id of the previous session it replaced if any
+     * @throws LoginException In case the login is not valid
+     * @throws KeyException In case the password is not valid
+     * @throws RMException In case an error happens in the RM
+     */
+    public PASession connect(String username, String password) throws LoginException, KeyException, RMException {
+        PASession session = sessionsByUser.get(username);
+        if (isReusable(session, password) && session.acquire()) {
+            session.touch();
+            return session;
+        }
+        synchronized (userLocks.computeIfAbsent(username, user -> new Object())) {
+            // another thread may have opened the session meanwhile
+            PASession previous = sessionsByUser.get(username);
+            if (isReusable(previous, password) && previous.acquire()) {
+                previous.touch();
+                return previous;
+            }
+            // the new session is opened first, so that a failed login leaves the previous one untouched
+            String paUrl = serviceConfiguration.getPaUrl();
+            RMRestInterface rmRestInterface = createRmClient(paUrl);
+            String sessionId = RMConnectionHelper.connect(rmRestInterface, username, password);
+            RestSmartProxyImpl restSmartProxy = connectScheduler(paUrl, username, password);
+            String replacedSessionId = null;
+            if (previous != null && !isActive(previous)) {
+                replacedSessionId = previous.getSessionId();
+                drop(previous);
+            }
+            session = new PASession(username,
+                                    password,
+                                    sessionId,
+                                    rmRestInterface,
+                                    restSmartProxy,
+                                    replacedSessionId);
+            session.acquire();
+            sessionsById.put(sessionId, session);
+            sessionsByUser.put(username, session);
+            return session;
+        }
+    }
+
+    /**
+     * Get a session of the pool. A session unknown to the pool, e.g. opened by another instance of this service or
+     * before its restart, is adopted when the RM reports it as active.
+     * @param sessionId A session id
+     * @return The session, null if it is neither in the pool nor active in the RM
+     */
+    public PASession getSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        PASession session = sessionsById.get(sessionId);
+        if (session == null) {
+            session = adopt(sessionId);
+        }
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    /**
+     * Release a client of a session, the session is closed and removed from the pool once no client uses it
+     * @param session The session to release
+     */
+    public void disconnect(PASession session) {
+        if (!session.release()) {
+            LOGGER.debug("Session still used by other clients, not closed.");
+            return;
+        }
+        drop(session);
+        RMConnectionHelper.disconnect(session.getRmRestInterface(), session.getSessionId());
+    }
+
+    RMRestInterface createRmClient(String paUrl) {
+        return RMConnectionHelper.init(paUrl);
+    }
+
+    RestSmartProxyImpl connectScheduler(String paUrl, String username, String password) {
+        return SchedulerConnectionHelper.connect(paUrl, username, password);
+    }
+
+    private PASession adopt(String sessionId) {
+        String paUrl = serviceConfiguration.getPaUrl();
+        if (paUrl == null) {
+            return null;
+        }
+        RMRestInterface rmRestInterface = lookupRmClient(paUrl);
+        try {
+            if (!RMConnectionHelper.isActive(rmRestInterface, sessionId)) {
+                return null;
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not check the session with the RM: {}", e.getMessage());
+            return null;
+        }
+        PASession session = new PASession(sessionId, rmRestInterface);
+        session.acquire();
+        PASession existing = sessionsById.putIfAbsent(sessionId, session);
+        if (existing != null) {
+            return existing;
+        }
+        LOGGER.info("Session opened outside of this service adopted, without Scheduler client.");
+        return session;
+    }
+
+    private RMRestInterface lookupRmClient(String paUrl) {
+        // the RM client only sends the session id of each request, so a single one checks all the unknown sessions
+        RMLookupClient lookupClient = rmLookupClient;
+        if (lookupClient == null || !lookupClient.paUrl.equals(paUrl)) {
+            lookupClient = new RMLookupClient(paUrl, createRmClient(paUrl));
+            rmLookupClient = lookupClient;
+        }
+        return lookupClient.rmRestInterface;
+    }
+
+    // removes the session from the pool and closes its local Scheduler client, the RM session is left open
+    private void drop(PASession session) {
+        session.close();
+        sessionsById.remove(session.getSessionId(), session);
+        if (session.getUsername() != null) {
+            sessionsByUser.remove(session.getUsername(), session);
+        }
+        if (session.getRestSmartProxy() != null) {
+            SchedulerConnectionHelper.disconnect(session.getRestSmartProxy());
+        }
+    }
+
+    private boolean isReusable(PASession session, String password) {
+        return session != null && session.hasPassword(password) && session.getRestSmartProxy().isConnected() &&
+               isActive(session);
+    }
+
+    private boolean isActive(PASession session) {
+        try {
+            return RMConnectionHelper.isActive(session.getRmRestInterface(), session.getSessionId());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void closeIdleSessions() {
+        long idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        for (PASession session : sessionsById.values()) {
+            if (System.nanoTime() - session.getLastUsed() > idleNanos) {
+                // the adopted sessions have no user, their own id is locked instead
+                String lockKey = session.getUsername() != null ? session.getUsername() : session.getSessionId();
+                synchronized (userLocks.computeIfAbsent(lockKey, key -> new Object())) {
+                    // checked again, the session may have been reused meanwhile
+                    if (System.nanoTime() - session.getLastUsed() > idleNanos) {
+                        dropIdleSession(session);
+                    }
+                }
+            }
+        }
+    }
+
+    private void dropIdleSession(PASession session) {
+        // the session may still be used by clients of the RM, so only its clients in this service are dropped
+        LOGGER.info("Dropping the session of {}, unused for more than {} minutes.", session.getUsername(), idleMinutes);
+        try {
+            drop(session);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not drop the idle session of {}: {}", session.getUsername(), e.getMessage());
+        }
+    }
+
+    private static class RMLookupClient {
+        private final String paUrl;
+
+        private final RMRestInterface rmRestInterface;
+
+        private RMLookupClient(String paUrl, RMRestInterface rmRestInterface) {
+            this.paUrl = paUrl;
+            this.rmRestInterface = rmRestInterface;
+        }
+    }
+}
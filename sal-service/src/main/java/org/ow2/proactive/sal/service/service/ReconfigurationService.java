@@ -72,9 +72,9 @@ public class ReconfigurationService {
 
         Set<Task> deletedTasks = handleDeletedTasks(job, reconfigurationPlan);
 
-        addNewTasksAndDeployments(job, reconfigurationPlan);
+        addNewTasksAndDeployments(sessionId, job, reconfigurationPlan);
 
-        jobService.submitReconfigurationJob(job, reconfigurationPlan, deletedTasks);
+        jobService.submitReconfigurationJob(sessionId, job, reconfigurationPlan, deletedTasks);
 
         taskService.cleanDeletedTasksAndDeployments(deletedTasks);
 
@@ -107,7 +107,8 @@ public class ReconfigurationService {
         return deletedTasks;
     }
 
-    private void addNewTasksAndDeployments(Job job, ReconfigurationJobDefinition reconfigurationPlan) {
+    private void addNewTasksAndDeployments(String sessionId, Job job,
+            ReconfigurationJobDefinition reconfigurationPlan) {
         // Creating new tasks
         reconfigurationPlan.getAddedTasks()
                            .forEach(taskReconfigurationDefinition -> taskService.createNewTask(taskReconfigurationDefinition.getTask(),
@@ -116,7 +117,9 @@ public class ReconfigurationService {
 
         // Creating new deployments with monitors
         reconfigurationPlan.getAddedTasks().forEach(taskReconfigurationDefinition -> {
-            Deployment newDeployment = nodeService.addNode(taskReconfigurationDefinition.getIaasNodeSelection(), job);
+            Deployment newDeployment = nodeService.addNode(sessionId,
+                                                           taskReconfigurationDefinition.getIaasNodeSelection(),
+                                                           job);
             if (taskReconfigurationDefinition.getEmsDeploymentDefinition() != null) {
                 newDeployment = monitoringService.addEmsDeploymentForNode(newDeployment,
                                                                           taskReconfigurationDefinition.getEmsDeploymentDefinition()
@@ -7,18 +7,36 @@ package org.ow2.proactive.sal.service.service;
 
 import static org.springframework.transaction.annotation.Isolation.READ_COMMITTED;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.nc.NodeCandidateCatalog;
+import org.ow2.proactive.sal.service.nc.NodeCandidateUtils;
 import org.ow2.proactive.sal.service.repository.*;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.Lists;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -85,6 +103,18 @@ public class RepositoryService {
     @Autowired
     private ClusterNodeDefRepository clusterNodeDefRepository;
 
+    @Autowired
+    private NodeCandidateCatalog nodeCandidateCatalog;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${nc.delete.chunk-size:1000}")
+    private int deleteChunkSize;
+
     private static final String DATABASE_LOGS_SIGNATURE = "from the database ...";
 
     /**
@@ -141,6 +171,7 @@ public class RepositoryService {
         imageRepository.delete(byonImage);
         LOGGER.info("Removing the BYON Node Candidate {} {}", byonNC.getId(), DATABASE_LOGS_SIGNATURE);
         nodeCandidateRepository.delete(byonNC);
+        updateCatalogAfterCommit(() -> nodeCandidateCatalog.remove(byonNC.getId()));
         byonNodeRepository.delete(byonNode);
         byonNodeRepository.flush();
         LOGGER.info("BYON node {} removed.", byonNode.getId());
@@ -345,6 +376,7 @@ public class RepositoryService {
         imageRepository.delete(edgeImage);
         LOGGER.info("Removing the EDGE Node Candidate {} {}", edgeNC.getId(), DATABASE_LOGS_SIGNATURE);
         nodeCandidateRepository.delete(edgeNC);
+        updateCatalogAfterCommit(() -> nodeCandidateCatalog.remove(edgeNC.getId()));
         edgeNodeRepository.delete(edgeNode);
         edgeNodeRepository.flush();
         LOGGER.info("EDGE node {} removed.", edgeNode.getId());
@@ -618,6 +650,95 @@ public class RepositoryService {
         return nodeCandidateRepository.findAll();
     }
 
+    /**
+     * Count the NodeCandidate entries
+     */
+    public long countNodeCandidates() {
+        return nodeCandidateRepository.count();
+    }
+
+    /**
+     * Compute the statistics of the NodeCandidate entries with aggregate queries, without loading them
+     * @return the node candidate statistics
+     */
+    public NodeCandidateStatistics getNodeCandidateStatistics() {
+        NodeCandidateStatistics statistics = new NodeCandidateStatistics();
+        statistics.setCount(nodeCandidateRepository.count());
+        nodeCandidateRepository.countByCloud()
+                               .forEach(row -> statistics.getCountByCloud().put((String) row[0], (Long) row[1]));
+        nodeCandidateRepository.countByRegion()
+                               .forEach(row -> statistics.getCountByRegion().put((String) row[0], (Long) row[1]));
+        nodeCandidateRepository.countByNodeType()
+                               .forEach(row -> statistics.getCountByNodeType()
+                                                         .put(((NodeCandidate.NodeCandidateTypeEnum) row[0]).name(),
+                                                              (Long) row[1]));
+        nodeCandidateRepository.countByCores()
+                               .forEach(row -> statistics.getCoresHistogram().put((Integer) row[0], (Long) row[1]));
+        nodeCandidateRepository.countByRam()
+                               .forEach(row -> statistics.getRamHistogram().put((Long) row[0], (Long) row[1]));
+        // the node candidates without price have a NaN one, which the databases able to store it sort after any
+        // finite price, so it is excluded by this bound as in the catalog statistics
+        Object[] priceRange = nodeCandidateRepository.getPriceRange(Double.MAX_VALUE).get(0);
+        long pricedCount = (Long) priceRange[2];
+        if (pricedCount > 0) {
+            statistics.setMinPrice((Double) priceRange[0]);
+            statistics.setMaxPrice((Double) priceRange[1]);
+            // the lower median is the only row of the page of size 1 at its position
+            int medianPosition = (int) ((pricedCount - 1) / 2);
+            statistics.setMedianPrice(nodeCandidateRepository.findOrderedPrices(Double.MAX_VALUE,
+                                                                                new PageRequest(medianPosition, 1))
+                                                             .get(0));
+        }
+        return statistics;
+    }
+
+    /**
+     * List the IAAS node candidates of a cloud
+     * @param cloudId The id of the cloud
+     * @return The stored IAAS node candidates of the cloud
+     */
+    public List<NodeCandidate> listIaasNodeCandidates(String cloudId) {
+        return nodeCandidateRepository.findByCloudIdAndType(cloudId, NodeCandidate.NodeCandidateTypeEnum.IAAS);
+    }
+
+    /**
+     * Recompute the deployable flag of all the stored node candidates. The flag only depends on the type of the
+     * node candidate, on its cloud provider and on its hardware, so it is computed once per hardware and written
+     * with bulk updates.
+     */
+    public synchronized void refreshDeployableFlags() {
+        EnumSet<NodeCandidate.NodeCandidateTypeEnum> alwaysDeployableTypes = EnumSet.of(NodeCandidate.NodeCandidateTypeEnum.BYON,
+                                                                                         NodeCandidate.NodeCandidateTypeEnum.EDGE);
+        nodeCandidateRepository.updateDeployableByTypes(true, alwaysDeployableTypes);
+        Map<Boolean, List<String>> hardwareIds = nodeCandidateRepository.findHardwareProviders(alwaysDeployableTypes)
+                                                                        .stream()
+                                                                        .collect(Collectors.partitioningBy(row -> NodeCandidateUtils.isDeployableInstanceType((String) row[2],
+                                                                                                                                                              (String) row[1]),
+                                                                                                           Collectors.mapping(row -> (String) row[0],
+                                                                                                                              Collectors.toList())));
+        hardwareIds.forEach((deployable,
+                ids) -> deleteInChunks(ids,
+                                       chunk -> nodeCandidateRepository.updateDeployableByHardwareIds(deployable,
+                                                                                                      chunk,
+                                                                                                      alwaysDeployableTypes)));
+        LOGGER.info("Deployable flag of the node candidates refreshed: {} deployable and {} not deployable hardware.",
+                    hardwareIds.get(true).size(),
+                    hardwareIds.get(false).size());
+        // the catalog holds copies of the node candidates, it is reloaded with the new flags
+        updateCatalogAfterCommit(nodeCandidateCatalog::invalidate);
+    }
+
+    /**
+     * Find the node candidates matching the requirements that can be evaluated by the database.
+     * Requirements that cannot be expressed in SQL are ignored, so the result still has to be filtered in memory.
+     * @param requirements List of NodeType or Attribute requirements
+     * @return The node candidates selected by the database
+     */
+    public List<NodeCandidate> findNodeCandidates(List<Requirement> requirements) {
+        return nodeCandidateRepository.findAll(Specifications.where(NodeCandidateSpecifications.fromRequirements(requirements))
+                                                             .and(NodeCandidateSpecifications.notUndeployable()));
+    }
+
     /**
      * Find the first node candidate that match a given hardware
      * @param hardware A given stored hardware
@@ -631,12 +752,64 @@ public class RepositoryService {
         return optNodeCandidate.orElse(null);
     }
 
+    /**
+     * Insert new IAAS node candidates with their IAAS nodes, in JDBC batches and within a single transaction.
+     * The cloud, location, image and hardware referenced by the node candidates must already be saved.
+     * @param nodeCandidates The new node candidates, without id
+     */
+    public synchronized void saveIaasNodeCandidates(List<NodeCandidate> nodeCandidates) {
+        for (int i = 0; i < nodeCandidates.size(); i++) {
+            NodeCandidate nodeCandidate = nodeCandidates.get(i);
+            // the uuid ids are generated in memory on persist, so the IAAS node can be linked before any flush
+            entityManager.persist(nodeCandidate);
+            IaasNode iaasNode = new IaasNode(nodeCandidate);
+            entityManager.persist(iaasNode);
+            nodeCandidate.setNodeId(iaasNode.getId());
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        updateCatalogAfterCommit(() -> nodeCandidates.forEach(nodeCandidateCatalog::put));
+    }
+
+    /**
+     * Update stored node candidates in JDBC batches, within a single transaction
+     * @param nodeCandidates The modified node candidates
+     */
+    public synchronized void updateNodeCandidates(List<NodeCandidate> nodeCandidates) {
+        for (List<NodeCandidate> batch : Lists.partition(nodeCandidates, batchSize)) {
+            // load the batch in one query, so that merging does not select the node candidates one by one
+            nodeCandidateRepository.findAll(batch.stream().map(NodeCandidate::getId).collect(Collectors.toList()));
+            batch.forEach(entityManager::merge);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        updateCatalogAfterCommit(() -> nodeCandidates.forEach(nodeCandidateCatalog::put));
+    }
+
+    /**
+     * Insert new IAAS node candidates and update stored ones within a single transaction,
+     * see {@link #saveIaasNodeCandidates(List)} and {@link #updateNodeCandidates(List)}
+     * @param newNodeCandidates The new node candidates, without id
+     * @param changedNodeCandidates The modified node candidates
+     */
+    public synchronized void storeIaasNodeCandidates(List<NodeCandidate> newNodeCandidates,
+            List<NodeCandidate> changedNodeCandidates) {
+        saveIaasNodeCandidates(newNodeCandidates);
+        updateNodeCandidates(changedNodeCandidates);
+    }
+
     /**
      * Add or update the instance data given in param
      * @param nodeCandidate is the instance data to add or update, its instance id will be use as a key
      */
     public synchronized NodeCandidate saveNodeCandidate(NodeCandidate nodeCandidate) {
-        return nodeCandidateRepository.saveAndFlush(nodeCandidate);
+        NodeCandidate savedNodeCandidate = nodeCandidateRepository.saveAndFlush(nodeCandidate);
+        updateCatalogAfterCommit(() -> nodeCandidateCatalog.put(savedNodeCandidate));
+        return savedNodeCandidate;
     }
 
     /**
@@ -649,6 +822,7 @@ public class RepositoryService {
         NodeCandidate instanceToRemove = getNodeCandidate(nodeCandidateId);
         this.deleteOrphanNode(instanceToRemove);
         nodeCandidateRepository.delete(nodeCandidateId);
+        updateCatalogAfterCommit(() -> nodeCandidateCatalog.remove(nodeCandidateId));
         cloudRepository.getOrphanCloudIds().forEach(this::deleteCloud);
         imageRepository.getOrphanImageIds().forEach(this::deleteImage);
         hardwareRepository.getOrphanHardwareIds().forEach(this::deleteHardware);
@@ -656,14 +830,73 @@ public class RepositoryService {
         return instanceToRemove;
     }
 
-    @Modifying(clearAutomatically = true)
-    public void deleteBatchNodeCandidates(List<String> toBeRemovedClouds) {
-        for (String cloudId : toBeRemovedClouds)
-            nodeCandidateRepository.deleteBatchNodeCandidates(getCloud(cloudId));
-        cloudRepository.deleteOrphanCloudIds();
-        imageRepository.deleteOrphanImageIds();
-        hardwareRepository.deleteOrphanHardwareIds();
-        locationRepository.deleteOrphanLocationIds();
+    /**
+     * Delete a chunk of the node candidates of a cloud, with their related nodes. Each chunk is deleted in its own
+     * transaction, so that deleting the node candidates of a large cloud does not hold locks for long.
+     * @param cloudId The id of the cloud
+     * @return The number of deleted node candidates, 0 once the cloud has no node candidate left
+     */
+    public synchronized int deleteCloudNodeCandidatesChunk(String cloudId) {
+        List<Object[]> nodeReferences = nodeCandidateRepository.findNodeReferencesByCloudId(cloudId,
+                                                                                          new PageRequest(0,
+                                                                                                          deleteChunkSize));
+        if (nodeReferences.isEmpty()) {
+            return 0;
+        }
+        List<String> nodeCandidateIds = new ArrayList<>(nodeReferences.size());
+        Map<NodeCandidate.NodeCandidateTypeEnum, List<String>> nodeIds = new EnumMap<>(NodeCandidate.NodeCandidateTypeEnum.class);
+        for (Object[] nodeReference : nodeReferences) {
+            nodeCandidateIds.add((String) nodeReference[0]);
+            if (nodeReference[1] != null && nodeReference[2] != null) {
+                nodeIds.computeIfAbsent((NodeCandidate.NodeCandidateTypeEnum) nodeReference[1],
+                                        nodeCandidateType -> new ArrayList<>())
+                       .add((String) nodeReference[2]);
+            }
+        }
+        deleteNodes(nodeIds);
+        nodeCandidateRepository.deleteByIds(nodeCandidateIds);
+        updateCatalogAfterCommit(() -> nodeCandidateIds.forEach(nodeCandidateCatalog::remove));
+        return nodeCandidateIds.size();
+    }
+
+    /**
+     * Delete the clouds, images, hardware and locations that are not used by any node candidate anymore
+     */
+    public synchronized void deleteOrphanDimensions() {
+        deleteInChunks(cloudRepository.getOrphanCloudIds(), cloudRepository::deleteByIds);
+        deleteInChunks(imageRepository.getOrphanImageIds(), imageRepository::deleteByIds);
+        // the hardware refer to their location, so they go first
+        deleteInChunks(hardwareRepository.getOrphanHardwareIds(), hardwareRepository::deleteByIds);
+        deleteInChunks(locationRepository.getOrphanLocationIds(), locationRepository::deleteByIds);
+    }
+
+    /**
+     * Update the node candidate catalog once the current transaction is committed, so that the catalog never sees
+     * the changes of a rolled back transaction
+     * @param catalogUpdate The update of the catalog
+     */
+    private void updateCatalogAfterCommit(Runnable catalogUpdate) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                catalogUpdate.run();
+            }
+        });
+    }
+
+    private void deleteInChunks(List<String> ids, Consumer<List<String>> chunkDeletion) {
+        Lists.partition(ids, deleteChunkSize).forEach(chunkDeletion);
+    }
+
+    /**
+     * Delete node candidates and their related nodes
+     * @param nodeCandidates The node candidates to be removed
+     */
+    public synchronized void deleteNodeCandidates(List<NodeCandidate> nodeCandidates) {
+        deleteBatchNodes(nodeCandidates);
+        List<String> nodeCandidateIds = nodeCandidates.stream().map(NodeCandidate::getId).collect(Collectors.toList());
+        deleteInChunks(nodeCandidateIds, nodeCandidateRepository::deleteByIds);
+        updateCatalogAfterCommit(() -> nodeCandidateIds.forEach(nodeCandidateCatalog::remove));
     }
 
     /**
@@ -687,11 +920,38 @@ public class RepositoryService {
         }
     }
 
+    /**
+     * Delete the related nodes of node candidates, with one statement per node type and chunk
+     * @param nodeCandidatesToBeRemoved the node candidates to be removed
+     */
     @Modifying(clearAutomatically = true)
     public void deleteBatchNodes(List<NodeCandidate> nodeCandidatesToBeRemoved) {
-        //TODO: try to change this and create a query that will take an iterable of the node candidates
-        // and deletes all the nodes in one query.
-        nodeCandidatesToBeRemoved.forEach(this::deleteOrphanNode);
+        Map<NodeCandidate.NodeCandidateTypeEnum, List<String>> nodeIds = new EnumMap<>(NodeCandidate.NodeCandidateTypeEnum.class);
+        nodeCandidatesToBeRemoved.stream()
+                                 .filter(nodeCandidate -> nodeCandidate.getNodeCandidateType() != null &&
+                                                          nodeCandidate.getNodeId() != null)
+                                 .forEach(nodeCandidate -> nodeIds.computeIfAbsent(nodeCandidate.getNodeCandidateType(),
+                                                                                   nodeCandidateType -> new ArrayList<>())
+                                                                  .add(nodeCandidate.getNodeId()));
+        deleteNodes(nodeIds);
+    }
+
+    private void deleteNodes(Map<NodeCandidate.NodeCandidateTypeEnum, List<String>> nodeIds) {
+        nodeIds.forEach((nodeCandidateType, ids) -> {
+            switch (nodeCandidateType) {
+                case IAAS:
+                    deleteInChunks(ids, iaasNodeRepository::deleteByIds);
+                    break;
+                case BYON:
+                    deleteInChunks(ids, byonNodeRepository::deleteByIds);
+                    break;
+                case EDGE:
+                    deleteInChunks(ids, edgeNodeRepository::deleteByIds);
+                    break;
+                default:
+                    LOGGER.warn("To be deleted node type not supported yet!");
+            }
+        });
     }
 
     /**
@@ -968,6 +1228,8 @@ public class RepositoryService {
         } catch (Exception e) {
             LOGGER.error("An error occurred during database cleanup for sessionId: {}. Details: ", sessionId, e);
             success = false;
+        } finally {
+            nodeCandidateCatalog.invalidate();
         }
 
         return success;
@@ -9,6 +9,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.NotFoundException;
@@ -146,12 +147,12 @@ public class ScalingService {
         repositoryService.flush();
 
         // Let's deploy the VMS
-        submitScalingOutJob(optJob.get(), taskName, newNodesNumbers);
+        submitScalingOutJob(sessionId, optJob.get(), taskName, newNodesNumbers);
 
         return true;
     }
 
-    private void submitScalingOutJob(Job job, String scaledTaskName, List<Long> newNodesNumbers) {
+    private void submitScalingOutJob(String sessionId, Job job, String scaledTaskName, List<Long> newNodesNumbers) {
         //        No way to refresh the DB entry
         //        EntityManagerHelper.refresh(job);
         LOGGER.info("Task: " + scaledTaskName + " of job " + job.toString() + " to be scaled out.");
@@ -160,14 +161,19 @@ public class ScalingService {
         paJob.setName(job.getName() + "_" + scaledTaskName + "_ScaleOut");
         LOGGER.info("Job created: " + paJob.toString());
 
-        job.getTasks().forEach(task -> {
-            List<ScriptTask> scriptTasks = taskBuilder.buildScalingOutPATask(task, job, scaledTaskName);
-
+        // the nodes of the BYON and EDGE deployments are looked up asynchronously, the built tasks are saved here as
+        // the transaction is bound to this thread
+        CompletableFuture<List<List<ScriptTask>>> builds = taskBuilder.buildOneAfterAnother(job.getTasks(), task -> {
+            return taskBuilder.buildScalingOutPATask(sessionId, task, job, scaledTaskName);
+        });
+        List<List<ScriptTask>> builtScriptTasks = TaskBuilder.join(builds);
+        for (int i = 0; i < job.getTasks().size(); i++) {
+            List<ScriptTask> scriptTasks = builtScriptTasks.get(i);
             if (scriptTasks != null && !scriptTasks.isEmpty()) {
-                addAllScriptTasksToPAJob(paJob, task, scriptTasks);
-                repositoryService.saveTask(task);
+                addAllScriptTasksToPAJob(paJob, job.getTasks().get(i), scriptTasks);
+                repositoryService.saveTask(job.getTasks().get(i));
             }
-        });
+        }
 
         setAllScalingOutMandatoryDependencies(paJob, job, scaledTaskName, newNodesNumbers);
 
@@ -177,7 +183,7 @@ public class ScalingService {
         paJob.setMaxNumberOfExecution(2);
         paJob.setProjectName("NebulOuS");
 
-        long submittedJobId = schedulerGateway.submit(paJob).longValue();
+        long submittedJobId = schedulerGateway.submit(sessionId, paJob).longValue();
         job.setSubmittedJobId(submittedJobId);
         job.setSubmittedJobType(SubmittedJobType.SCALE_OUT);
 
@@ -327,26 +333,29 @@ public class ScalingService {
         repositoryService.flush();
 
         // Let's deploy the VMS
-        submitScalingInJob(optJob.get(), taskName);
+        submitScalingInJob(sessionId, optJob.get(), taskName);
 
         return true;
     }
 
-    private void submitScalingInJob(Job job, String scaledTaskName) {
+    private void submitScalingInJob(String sessionId, Job job, String scaledTaskName) {
         LOGGER.info("Task: " + scaledTaskName + " of job " + job.toString() + " to be scaled in.");
 
         TaskFlowJob paJob = new TaskFlowJob();
         paJob.setName(job.getName() + "_" + scaledTaskName + "_ScaleIn");
         LOGGER.info("Job created: " + paJob.toString());
 
-        job.getTasks().forEach(task -> {
-            List<ScriptTask> scriptTasks = taskBuilder.buildScalingInPATask(task, scaledTaskName);
-
+        CompletableFuture<List<List<ScriptTask>>> builds = taskBuilder.buildOneAfterAnother(job.getTasks(), task -> {
+            return taskBuilder.buildScalingInPATask(sessionId, task, scaledTaskName);
+        });
+        List<List<ScriptTask>> builtScriptTasks = TaskBuilder.join(builds);
+        for (int i = 0; i < job.getTasks().size(); i++) {
+            List<ScriptTask> scriptTasks = builtScriptTasks.get(i);
             if (scriptTasks != null && !scriptTasks.isEmpty()) {
-                addAllScriptTasksToPAJob(paJob, task, scriptTasks);
-                repositoryService.saveTask(task);
+                addAllScriptTasksToPAJob(paJob, job.getTasks().get(i), scriptTasks);
+                repositoryService.saveTask(job.getTasks().get(i));
             }
-        });
+        }
 
         jobService.setAllMandatoryDependencies(paJob, job);
 
@@ -356,7 +365,7 @@ public class ScalingService {
         paJob.setMaxNumberOfExecution(2);
         paJob.setProjectName("NebulOuS");
 
-        long submittedJobId = schedulerGateway.submit(paJob).longValue();
+        long submittedJobId = schedulerGateway.submit(sessionId, paJob).longValue();
         job.setSubmittedJobId(submittedJobId);
         job.setSubmittedJobType(SubmittedJobType.SCALE_IN);
 
@@ -8,9 +8,12 @@ package org.ow2.proactive.sal.service.service;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.ow2.proactive.sal.model.*;
@@ -219,18 +222,40 @@ public class TaskBuilder {
         return scriptTasks;
     }
 
-    private ScriptTask createInfraTask(Task task, Deployment deployment, String taskNameSuffix, String nodeToken) {
+    private CompletableFuture<ScriptTask> createInfraTask(String sessionId, Task task, Deployment deployment,
+            String taskNameSuffix, String nodeToken) {
         switch (deployment.getDeploymentType()) {
             case IAAS:
-                return createInfraIAASTask(task, deployment, taskNameSuffix, nodeToken);
+                return CompletableFuture.completedFuture(createInfraIAASTask(task,
+                                                                             deployment,
+                                                                             taskNameSuffix,
+                                                                             nodeToken));
             case BYON:
             case EDGE:
-                return createInfraBYONandEDGETask(task, deployment, taskNameSuffix, nodeToken);
+                return createInfraBYONandEDGETask(sessionId, task, deployment, taskNameSuffix, nodeToken);
             default:
-                return new ScriptTask();
+                return CompletableFuture.completedFuture(new ScriptTask());
         }
     }
 
+    // the infra tasks of the deployments to be deployed, started up front so that their node lookups overlap
+    private Map<Long, CompletableFuture<ScriptTask>> createInfraTasks(String sessionId, Task task) {
+        Map<Long, CompletableFuture<ScriptTask>> infraTasks = new HashMap<>();
+        if (task.getDeployments() == null) {
+            return infraTasks;
+        }
+        task.getDeployments().stream().filter(deployment -> !deployment.getIsDeployed()).forEach(deployment -> {
+            String token = task.getTaskId() + deployment.getNumber();
+            String suffix = "_" + deployment.getNumber();
+            infraTasks.put(deployment.getNumber(), createInfraTask(sessionId, task, deployment, suffix, token));
+        });
+        return infraTasks;
+    }
+
+    private static CompletableFuture<Void> allOf(Map<Long, CompletableFuture<ScriptTask>> infraTasks) {
+        return CompletableFuture.allOf(infraTasks.values().toArray(new CompletableFuture[0]));
+    }
+
     private void addLocalDefaultNSRegexSelectionScript(ScriptTask scriptTask) {
         try {
             String[] nodeSourceNameRegex = { NODE_SOURCE_NAME_REGEX };
@@ -378,8 +403,8 @@ public class TaskBuilder {
         }
     }
 
-    private ScriptTask createInfraBYONandEDGETask(Task task, Deployment deployment, String taskNameSuffix,
-            String nodeToken) {
+    private CompletableFuture<ScriptTask> createInfraBYONandEDGETask(String sessionId, Task task,
+            Deployment deployment, String taskNameSuffix, String nodeToken) {
         String nodeType = deployment.getDeploymentType().getName();
         LOGGER.info("the nodeType name is: " + nodeType);
         LOGGER.debug("Acquiring node " + nodeType + " script file: " +
@@ -393,15 +418,16 @@ public class TaskBuilder {
         Map<String, TaskVariable> variablesMap = new HashMap<>();
         String NsName = deployment.getPaCloud().getNodeSourceNamePrefix();
         variablesMap.put("NS_name", new TaskVariable("NS_name", NsName));
-        variablesMap.put("host_name", new TaskVariable("host_name", ByonUtils.getBYONHostname(NsName)));
         variablesMap.put("token", new TaskVariable("token", nodeToken));
 
-        LOGGER.debug("Variables to be added to the task: " + variablesMap.toString());
-        deployNodeTask.setVariables(variablesMap);
-
         addLocalDefaultNSRegexSelectionScript(deployNodeTask);
 
-        return deployNodeTask;
+        return ByonUtils.getBYONHostname(sessionId, NsName).thenApply(hostname -> {
+            variablesMap.put("host_name", new TaskVariable("host_name", hostname));
+            LOGGER.debug("Variables to be added to the task: " + variablesMap.toString());
+            deployNodeTask.setVariables(variablesMap);
+            return deployNodeTask;
+        });
     }
 
     private List<ScriptTask> createChildScaledTask(Task task) {
@@ -450,7 +476,12 @@ public class TaskBuilder {
         return scriptTaskUpdate;
     }
 
-    private List<ScriptTask> buildScaledPATask(Task task) {
+    private CompletableFuture<List<ScriptTask>> buildScaledPATask(String sessionId, Task task) {
+        Map<Long, CompletableFuture<ScriptTask>> infraTasks = createInfraTasks(sessionId, task);
+        return allOf(infraTasks).thenApply(v -> buildScaledPATask(task, infraTasks));
+    }
+
+    private List<ScriptTask> buildScaledPATask(Task task, Map<Long, CompletableFuture<ScriptTask>> infraTasks) {
         List<ScriptTask> scriptTasks = new LinkedList<>();
 
         task.getDeployments().stream().filter(Deployment::getIsDeployed).forEach(deployment -> {
@@ -474,7 +505,7 @@ public class TaskBuilder {
             // Creating infra deployment tasks
             String token = task.getTaskId() + deployment.getNumber();
             String suffix = "_" + deployment.getNumber();
-            scriptTasks.add(createInfraTask(task, deployment, suffix, token));
+            scriptTasks.add(infraTasks.get(deployment.getNumber()).join());
             task.setDeploymentFirstSubmittedTaskName(scriptTasks.get(scriptTasks.size() - 1)
                                                                 .getName()
                                                                 .substring(0,
@@ -645,41 +676,42 @@ public class TaskBuilder {
 
     /**
      * Translate a Morphemic task skeleton into a list of ProActive tasks when the job is being scaled out
+     * @param sessionId A valid session id
      * @param task A Morphemic task skeleton
      * @param job The related job skeleton
      * @param scaledTaskName The scaled task name
-     * @return A list of ProActive tasks
+     * @return A future of the list of ProActive tasks
      */
-    public List<ScriptTask> buildScalingOutPATask(Task task, Job job, String scaledTaskName) {
-        List<ScriptTask> scriptTasks = new LinkedList<>();
+    public CompletableFuture<List<ScriptTask>> buildScalingOutPATask(String sessionId, Task task, Job job,
+            String scaledTaskName) {
         Task scaledTask = job.findTask(scaledTaskName);
 
         if (scaledTask.getParentTasks().containsValue(task.getName())) {
             // When the scaled task is a child the task to be built
             LOGGER.info("Building task " + task.getName() + " as a parent of task " + scaledTaskName);
-            scriptTasks.addAll(createParentScaledTask(task));
+            return CompletableFuture.completedFuture(createParentScaledTask(task));
         } else {
             // Using buildScalingInPATask because it handles all the remaining cases
             LOGGER.info("Moving to building with buildScalingInPATask() method");
-            scriptTasks.addAll(buildScalingInPATask(task, scaledTaskName));
+            return buildScalingInPATask(sessionId, task, scaledTaskName);
         }
-
-        return scriptTasks;
     }
 
     /**
      * Translate a Morphemic task skeleton into a list of ProActive tasks when the job is being scaled in
+     * @param sessionId A valid session id
      * @param task A Morphemic task skeleton
      * @param scaledTaskName The scaled task name
-     * @return A list of ProActive tasks
+     * @return A future of the list of ProActive tasks
      */
-    public List<ScriptTask> buildScalingInPATask(Task task, String scaledTaskName) {
+    public CompletableFuture<List<ScriptTask>> buildScalingInPATask(String sessionId, Task task,
+            String scaledTaskName) {
         List<ScriptTask> scriptTasks = new LinkedList<>();
 
         if (scaledTaskName.equals(task.getName())) {
             // When the scaled task is the task to be built
             LOGGER.info("Building task " + task.getName() + " as it is scaled out");
-            scriptTasks.addAll(buildScaledPATask(task));
+            return buildScaledPATask(sessionId, task);
         } else if (task.getParentTasks().containsValue(scaledTaskName)) {
             // When the scaled task is a parent of the task to be built
             LOGGER.info("Building task " + task.getName() + " as a child of task " + scaledTaskName);
@@ -688,17 +720,18 @@ public class TaskBuilder {
             LOGGER.debug("Task " + task.getName() + " is not impacted by the scaling of task " + scaledTaskName);
         }
 
-        return scriptTasks;
+        return CompletableFuture.completedFuture(scriptTasks);
     }
 
     /**
      * Translate a Morphemic task skeleton into a list of ProActive tasks when the job is being reconfigured
+     * @param sessionId A valid session id
      * @param task A Morphemic task skeleton
      * @param job  The related job skeleton
      * @param reconfigurationPlan The corresponding reconfiguration plan
-     * @return A list of ProActive tasks
+     * @return A future of the list of ProActive tasks
      */
-    public List<ScriptTask> buildReconfigurationPATask(Task task, Job job,
+    public CompletableFuture<List<ScriptTask>> buildReconfigurationPATask(String sessionId, Task task, Job job,
             ReconfigurationJobDefinition reconfigurationPlan) {
         List<ScriptTask> scriptTasks = new LinkedList<>();
 
@@ -715,12 +748,12 @@ public class TaskBuilder {
         } else if (addedTaskNames.contains(task.getName())) {
             // When the scaled task is a parent of the task to be built
             LOGGER.info("Building task [{}] as a new added task ", task.getTaskId());
-            scriptTasks.addAll(buildPATask(task, job, null));
+            return buildPATask(sessionId, task, job, null);
         } else {
             LOGGER.warn("Task [{}] is neither unchanged nor added. This should not figure ine job!", task.getTaskId());
         }
 
-        return scriptTasks;
+        return CompletableFuture.completedFuture(scriptTasks);
     }
 
     /**
@@ -764,11 +797,20 @@ public class TaskBuilder {
 
     /**
      * Translate a Morphemic task skeleton into a list of ProActive tasks
+     * @param sessionId A valid session id
      * @param task A Morphemic task skeleton
      * @param job The related job skeleton
-     * @return A list of ProActive tasks
+     * @return A future of the list of ProActive tasks, completed once the nodes of the BYON and EDGE deployments are
+     *         looked up
      */
-    public List<ScriptTask> buildPATask(Task task, Job job, String containerizationFlavor) {
+    public CompletableFuture<List<ScriptTask>> buildPATask(String sessionId, Task task, Job job,
+            String containerizationFlavor) {
+        Map<Long, CompletableFuture<ScriptTask>> infraTasks = createInfraTasks(sessionId, task);
+        return allOf(infraTasks).thenApply(v -> buildPATask(task, containerizationFlavor, infraTasks));
+    }
+
+    private List<ScriptTask> buildPATask(Task task, String containerizationFlavor,
+            Map<Long, CompletableFuture<ScriptTask>> infraTasks) {
         List<ScriptTask> scriptTasks = new LinkedList<>();
         LOGGER.debug("Building PA task for: {}", task.getTaskId());
         if (task.getDeployments() == null || task.getDeployments().isEmpty()) {
@@ -782,7 +824,7 @@ public class TaskBuilder {
                 // Creating infra deployment tasks
                 String token = task.getTaskId() + deployment.getNumber();
                 String suffix = "_" + deployment.getNumber();
-                scriptTasks.add(createInfraTask(task, deployment, suffix, token));
+                scriptTasks.add(infraTasks.get(deployment.getNumber()).join());
                 if (deployment.getWorker() != null && deployment.getWorker()) {
                     ScriptTask waitForMasterTask = createWaitForMasterTask(deployment.getMasterToken(),
                                                                            containerizationFlavor);
@@ -825,6 +867,40 @@ public class TaskBuilder {
         return scriptTasks;
     }
 
+    /**
+     * Build the ProActive tasks of several task skeletons one after the other, so that the task skeletons are never
+     * updated concurrently by the completion of their builds
+     * @param tasks The Morphemic task skeletons
+     * @param build The build of the ProActive tasks of a task skeleton
+     * @return A future of the lists of ProActive tasks, in the order of the task skeletons
+     */
+    public CompletableFuture<List<List<ScriptTask>>> buildOneAfterAnother(List<Task> tasks,
+            Function<Task, CompletableFuture<List<ScriptTask>>> build) {
+        List<List<ScriptTask>> scriptTasks = new ArrayList<>(tasks.size());
+        CompletableFuture<Void> builds = CompletableFuture.completedFuture(null);
+        for (Task task : tasks) {
+            builds = builds.thenCompose(v -> build.apply(task)).thenAccept(scriptTasks::add);
+        }
+        return builds.thenApply(v -> scriptTasks);
+    }
+
+    /**
+     * Wait for the build of ProActive tasks
+     * @param build The build of the ProActive tasks
+     * @return The built ProActive tasks
+     * @throws RuntimeException The failure of the build, as thrown by it
+     */
+    public static <T> T join(CompletableFuture<T> build) {
+        try {
+            return build.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     public ScriptTask buildInitChannelsTask(Job job) {
         LOGGER.debug("Init channels script file: " +
                      Objects.requireNonNull(getClass().getResource(File.separator + INIT_SYNC_CHANNELS_SCRIPT)));
@@ -60,7 +60,7 @@ public class VaultService {
             String value = secrets.get(key);
             LOGGER.info("Registering vault key: \"{}\".", key);
             try {
-                schedulerGateway.putThirdPartyCredential(key, value);
+                schedulerGateway.putThirdPartyCredential(sessionId, key, value);
             } catch (SchedulerException e) {
                 LOGGER.error("An error occurred while adding a secret.\n", e);
                 throw e;
@@ -94,7 +94,7 @@ public class VaultService {
             return false;
         }
         try {
-            schedulerGateway.removeThirdPartyCredential(key);
+            schedulerGateway.removeThirdPartyCredential(sessionId, key);
         } catch (SchedulerException e) {
             LOGGER.error("An error occurred while removing the key.\n", e);
             throw e;
@@ -14,11 +14,10 @@ import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
-import javax.security.auth.login.LoginException;
-
 import org.ow2.proactive.db.SortOrder;
 import org.ow2.proactive.db.SortParameter;
-import org.ow2.proactive.sal.service.util.SchedulerConnectionHelper;
+import org.ow2.proactive.sal.service.service.PASession;
+import org.ow2.proactive.sal.service.service.PASessionPool;
 import org.ow2.proactive.scheduler.common.JobFilterCriteriaBuilder;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
@@ -26,6 +25,7 @@ import org.ow2.proactive.scheduler.common.exception.*;
 import org.ow2.proactive.scheduler.common.job.*;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
 import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.log4j.Log4j2;
@@ -35,32 +35,25 @@ import lombok.extern.log4j.Log4j2;
 @Service("PASchedulerGatewayService")
 public class PASchedulerGateway {
 
-    private RestSmartProxyImpl restSmartProxy;
+    @Autowired
+    private PASessionPool sessionPool;
 
     protected static final List<SortParameter<JobSortParameter>> DEFAULT_JOB_SORT_PARAMS = Arrays.asList(new SortParameter<>(JobSortParameter.STATE,
                                                                                                                              SortOrder.ASC),
                                                                                                          new SortParameter<>(JobSortParameter.ID,
                                                                                                                              SortOrder.DESC));
 
-    /**
-     * Init a gateway to the ProActive Scheduler
-     * @param paUrl ProActive URL (exp: http://try.activeeon.com:8080/)
-     */
-    public void init(String paUrl) {
-        SchedulerConnectionHelper.init(paUrl);
-    }
-
     /**
      * Submit a ProActive job to the scheduler
+     * @param sessionId A valid session id
      * @param job A ProActive job
      * @return JobId
      */
-    public JobId submit(Job job) {
-        reconnectIfDisconnected();
+    public JobId submit(String sessionId, Job job) {
         JobId jobId = null;
         LOGGER.debug("Submitting job: " + job.toString());
         try {
-            jobId = restSmartProxy.submit(job);
+            jobId = getRestSmartProxy(sessionId).submit(job);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to submit the job due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -75,15 +68,15 @@ public class PASchedulerGateway {
 
     /**
      * Submit a ProActive job to the scheduler
+     * @param sessionId A valid session id
      * @param xmlFile A ProActive job xml file
      * @return JobId
      */
-    public JobId submit(File xmlFile) {
-        reconnectIfDisconnected();
+    public JobId submit(String sessionId, File xmlFile) {
         JobId jobId = null;
         LOGGER.debug("Submitting job: " + xmlFile.toString());
         try {
-            jobId = restSmartProxy.submit(xmlFile);
+            jobId = getRestSmartProxy(sessionId).submit(xmlFile);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to submit the job due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -98,17 +91,17 @@ public class PASchedulerGateway {
 
     /**
      * Submit a ProActive job to the scheduler
+     * @param sessionId A valid session id
      * @param xmlFile   A ProActive job xml file
      * @param variables A variables map
      * @return JobId
      */
-    public JobId submit(File xmlFile, Map<String, String> variables) {
-        reconnectIfDisconnected();
+    public JobId submit(String sessionId, File xmlFile, Map<String, String> variables) {
         JobId jobId = null;
         LOGGER.debug("Submitting job: " + xmlFile.toString());
         LOGGER.debug("  with variables: " + variables.toString());
         try {
-            jobId = restSmartProxy.submit(xmlFile, variables);
+            jobId = getRestSmartProxy(sessionId).submit(xmlFile, variables);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to submit the job due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -123,15 +116,15 @@ public class PASchedulerGateway {
 
     /**
      * Get a ProActive job state
+     * @param sessionId A valid session id
      * @param jobId A ProActive job ID
      * @return The job state
      */
-    public JobState getJobState(String jobId) {
-        reconnectIfDisconnected();
+    public JobState getJobState(String sessionId, String jobId) {
         JobState jobState = null;
         try {
             LOGGER.info("Getting job " + jobId + " state.");
-            jobState = restSmartProxy.getJobState(jobId);
+            jobState = getRestSmartProxy(sessionId).getJobState(jobId);
             LOGGER.info("Job " + jobId + " is in state: " + jobState.getStatus().toString());
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to get the job state due to a NotConnectedException: " + nce.toString());
@@ -145,15 +138,15 @@ public class PASchedulerGateway {
 
     /**
      * Wait for a job
+     * @param sessionId A valid session id
      * @param jobId   A ProActive job ID
      * @param timeout The waiting timeout
      * @return The job result
      */
-    public JobResult waitForJob(String jobId, long timeout) {
-        reconnectIfDisconnected();
+    public JobResult waitForJob(String sessionId, String jobId, long timeout) {
         JobResult jobResult = null;
         try {
-            jobResult = restSmartProxy.waitForJob(jobId, timeout);
+            jobResult = getRestSmartProxy(sessionId).waitForJob(jobId, timeout);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to wait for the job due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -168,14 +161,14 @@ public class PASchedulerGateway {
 
     /**
      * Get job results map
+     * @param sessionId A valid session id
      * @param jobsId A list of ProActive jobs ID
      * @return The jobs results map
      */
-    public Map<Long, Map<String, Serializable>> getJobResultMaps(List<String> jobsId) {
-        reconnectIfDisconnected();
+    public Map<Long, Map<String, Serializable>> getJobResultMaps(String sessionId, List<String> jobsId) {
         Map<Long, Map<String, Serializable>> jobResults = null;
         try {
-            jobResults = restSmartProxy.getJobResultMaps(jobsId);
+            jobResults = getRestSmartProxy(sessionId).getJobResultMaps(jobsId);
         } catch (SchedulerException se) {
             LOGGER.error("ERROR: Not able to get jobs results due to : " + se.toString());
         }
@@ -184,15 +177,15 @@ public class PASchedulerGateway {
 
     /**
      * Kill the job represented by jobId
+     * @param sessionId A valid session id
      * @param jobId A ProActive job ID
      * @return true if success, false if not.
      */
-    public boolean killJob(String jobId) {
-        reconnectIfDisconnected();
+    public boolean killJob(String sessionId, String jobId) {
         boolean result = false;
         LOGGER.debug("Killing ProActive job: " + jobId);
         try {
-            result = restSmartProxy.killJob(jobId);
+            result = getRestSmartProxy(sessionId).killJob(jobId);
             LOGGER.info("ProActive job " + jobId + " killed successfully.");
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to kill the job due to a NotConnectedException: " + nce.toString());
@@ -206,15 +199,15 @@ public class PASchedulerGateway {
 
     /**
      * Delete a job
+     * @param sessionId A valid session id
      * @param jobId The ID of the job to delete
      * @return true if success, false if the job not yet finished (not removed, kill the job then remove it
      */
-    public boolean removeJob(String jobId) {
-        reconnectIfDisconnected();
+    public boolean removeJob(String sessionId, String jobId) {
         boolean result = false;
         LOGGER.debug("Removing ProActive job: " + jobId);
         try {
-            result = restSmartProxy.removeJob(jobId);
+            result = getRestSmartProxy(sessionId).removeJob(jobId);
             LOGGER.info("ProActive job " + jobId + " removed successfully.");
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to remove the job due to a NotConnectedException: " +
@@ -231,25 +224,26 @@ public class PASchedulerGateway {
     /**
      * Retrieves a job list of the scheduler.
      *
+     * @param sessionId A valid session id
      * @param index says to start from this job is
      * @param limit max number of jobs to retrieve
      * @return jobs list according to all criteria
      */
-    public Page<JobInfo> getJobs(int index, int limit) {
+    public Page<JobInfo> getJobs(String sessionId, int index, int limit) {
         Page<JobInfo> jobInfos = null;
         LOGGER.debug("Retrieving from ProActive Scheduler the list of " + limit + " active jobs, starting from index " +
                      index);
         try {
-            jobInfos = restSmartProxy.getJobs(index,
-                                              limit,
-                                              new JobFilterCriteriaBuilder().myJobsOnly(false)
-                                                                            .pending(true)
-                                                                            .running(true)
-                                                                            .finished(true)
-                                                                            .withIssuesOnly(false)
-                                                                            .childJobs(true)
-                                                                            .build(),
-                                              DEFAULT_JOB_SORT_PARAMS);
+            jobInfos = getRestSmartProxy(sessionId).getJobs(index,
+                                                            limit,
+                                                            new JobFilterCriteriaBuilder().myJobsOnly(false)
+                                                                                          .pending(true)
+                                                                                          .running(true)
+                                                                                          .finished(true)
+                                                                                          .withIssuesOnly(false)
+                                                                                          .childJobs(true)
+                                                                                          .build(),
+                                                            DEFAULT_JOB_SORT_PARAMS);
             LOGGER.info("List of jobs retrieved: " + jobInfos.toString());
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to retrieve jobs due to a NotConnectedException: " +
@@ -264,12 +258,13 @@ public class PASchedulerGateway {
     /**
      * Retrieves a job list of the scheduler.
      *
+     * @param sessionId A valid session id
      * @param index says to start from this job is
      * @param limit max number of jobs to retrieve
      * @return jobs list according to all criteria
      */
-    public List<JobInfo> getActiveJobs(int index, int limit) {
-        List<JobInfo> activeJobInfos = this.getJobs(index, limit)
+    public List<JobInfo> getActiveJobs(String sessionId, int index, int limit) {
+        List<JobInfo> activeJobInfos = this.getJobs(sessionId, index, limit)
                                            .getList()
                                            .stream()
                                            .filter(activeJobInfo -> activeJobInfo.getStatus().isJobAlive())
@@ -280,16 +275,16 @@ public class PASchedulerGateway {
 
     /**
      * Wait for a task
+     * @param sessionId A valid session id
      * @param jobId    A ProActive job ID
      * @param taskName A task name
      * @param timeout  The waiting timeout
      * @return The task result
      */
-    public TaskResult waitForTask(String jobId, String taskName, long timeout) {
-        reconnectIfDisconnected();
+    public TaskResult waitForTask(String sessionId, String jobId, String taskName, long timeout) {
         TaskResult taskResult = null;
         try {
-            taskResult = restSmartProxy.waitForTask(jobId, taskName, timeout);
+            taskResult = getRestSmartProxy(sessionId).waitForTask(jobId, taskName, timeout);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to wait for the task due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -306,15 +301,15 @@ public class PASchedulerGateway {
 
     /**
      * Get a task result
+     * @param sessionId A valid session id
      * @param jobId    A ProActive job ID
      * @param taskName A task name
      * @return The task result
      */
-    public TaskResult getTaskResult(String jobId, String taskName) {
-        reconnectIfDisconnected();
+    public TaskResult getTaskResult(String sessionId, String jobId, String taskName) {
         TaskResult taskResult = null;
         try {
-            taskResult = restSmartProxy.getTaskResult(jobId, taskName);
+            taskResult = getRestSmartProxy(sessionId).getTaskResult(jobId, taskName);
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to wait for the task due to a NotConnectedException: " + nce.toString());
         } catch (PermissionException pe) {
@@ -329,65 +324,40 @@ public class PASchedulerGateway {
 
     /**
      * Add a secret to ProActive vault
+     * @param sessionId A valid session id
      * @param key The key to be defined
      * @param value The value to be assigned to the key
      */
-    public void putThirdPartyCredential(String key, String value) throws SchedulerException {
-        restSmartProxy.putThirdPartyCredential(key, value);
+    public void putThirdPartyCredential(String sessionId, String key, String value) throws SchedulerException {
+        getRestSmartProxy(sessionId).putThirdPartyCredential(key, value);
     }
 
     /**
      * Get all secrets names from ProActive vault
+     * @param sessionId A valid session id
      * @return A set of keys as strings
      */
-    public Set<String> thirdPartyCredentialsKeySet() throws SchedulerException {
-        reconnectIfDisconnected();
-        return restSmartProxy.thirdPartyCredentialsKeySet();
+    public Set<String> thirdPartyCredentialsKeySet(String sessionId) throws SchedulerException {
+        return getRestSmartProxy(sessionId).thirdPartyCredentialsKeySet();
     }
 
     /**
      * remove a secret from the ProActive vault
+     * @param sessionId A valid session id
      * @param key The key to be defined
      */
-    public void removeThirdPartyCredential(String key) throws SchedulerException {
-        restSmartProxy.removeThirdPartyCredential(key);
-    }
-
-    /**
-     * Connect to the ProActive server
-     * @param username The user's username
-     * @param password The user's password
-     */
-    public void connect(String username, String password) {
-        // Connect to the Scheduler API
-        restSmartProxy = SchedulerConnectionHelper.connect(username, password);
+    public void removeThirdPartyCredential(String sessionId, String key) throws SchedulerException {
+        getRestSmartProxy(sessionId).removeThirdPartyCredential(key);
     }
 
     /**
-     * Disconnect from the ProActive server
+     * Renew the Scheduler session of a user
+     * @param sessionId A valid session id
      */
-    public void disconnect() {
-        restSmartProxy = SchedulerConnectionHelper.disconnect();
-    }
-
-    private synchronized void reconnectIfDisconnected() {
-        if (!restSmartProxy.isConnected()) {
-            try {
-                LOGGER.warn("WARNING: Not connected to the scheduler. Reconnecting to Scheduler ...");
-                restSmartProxy.reconnect();
-                LOGGER.info("Reconnected to ProActive Scheduler.");
-            } catch (SchedulerException | LoginException e) {
-                LOGGER.error("ERROR: Not able to reconnect to Scheduler due to: " + Arrays.toString(e.getStackTrace()));
-            }
-        } else {
-            LOGGER.info("The Scheduler is already connected.");
-        }
-    }
-
-    public void renewSession() {
+    public void renewSession(String sessionId) {
         try {
             LOGGER.debug("Renewing connexion ...");
-            restSmartProxy.renewSession();
+            getRestSmartProxy(sessionId).renewSession();
             LOGGER.info("Connexion to ProActive Scheduler renewed.");
         } catch (NotConnectedException nce) {
             LOGGER.error("ERROR: Not able to renew connexion to Scheduler due to: " +
@@ -395,12 +365,13 @@ public class PASchedulerGateway {
         }
     }
 
-    // For testing purpose
-    public RestSmartProxyImpl getRestSmartProxy() {
-        return restSmartProxy;
-    }
-
-    public void setRestSmartProxy(RestSmartProxyImpl restSmartProxy) {
-        this.restSmartProxy = restSmartProxy;
+    private RestSmartProxyImpl getRestSmartProxy(String sessionId) throws NotConnectedException {
+        // an expired or disconnected session is not reopened, its user has to connect again, as for an adopted
+        // session, which has no Scheduler client
+        PASession session = sessionPool.getSession(sessionId);
+        if (session == null || session.getRestSmartProxy() == null || !session.getRestSmartProxy().isConnected()) {
+            throw new NotConnectedException("The session is not connected to the ProActive Scheduler.");
+        }
+        return session.getRestSmartProxy();
     }
 }
@@ -19,9 +19,9 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.http.client.utils.URIBuilder;
 import org.jboss.netty.handler.codec.http.HttpMethod;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.ow2.proactive.sal.model.PACloud;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorImage;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.ConnectorNodeCandidatesPage;
 import org.ow2.proactive.sal.service.util.ConnectionHelper;
 import org.springframework.stereotype.Service;
 
@@ -46,12 +46,13 @@ public class PAConnectorIaasGateway {
     }
 
     @SneakyThrows
-    public JSONObject getNodeCandidates(String nodeSourceName, String region, String imageReq, String token) {
+    public ConnectorNodeCandidatesPage getNodeCandidates(String nodeSourceName, String region, String imageReq,
+            String token) {
         Validate.notNull(nodeSourceName, "nodeSourceName must not be null");
         Validate.notNull(region, "region must not be null");
         LOGGER.info("Retrieving node candidates for cloud " + nodeSourceName + " region " + region + " and imageReq " +
                     imageReq);
-        JSONObject nodeCandidates;
+        ConnectorNodeCandidatesPage nodeCandidates;
 
         URIBuilder uriBuilder = new URIBuilder(new URL(paURL).toURI());
         URI requestUri = uriBuilder.setPath(CONNECTOR_IAAS_PATH + "/infrastructures/" + nodeSourceName +
@@ -63,28 +64,29 @@ public class PAConnectorIaasGateway {
             requestUri = uriBuilder.addParameter("nextToken", token).build();
         }
 
-        nodeCandidates = ConnectionHelper.sendGetRequestAndReturnObjectResponse(requestUri);
-        LOGGER.info("Node candidates retrieved for successfully: {}", nodeCandidates);
+        nodeCandidates = ConnectionHelper.sendGetRequestAndReadObjectResponse(requestUri,
+                                                                              ConnectorNodeCandidatesPage.class);
+        LOGGER.info("{} node candidates retrieved successfully", nodeCandidates.getNodeCandidates().size());
 
         return nodeCandidates;
     }
 
     @SneakyThrows
-    public JSONArray getImages(String nodeSourceName) {
+    public List<ConnectorImage> getImages(String nodeSourceName) {
         Validate.notNull(nodeSourceName, "nodeSourceName must not be null");
         LOGGER.info("Retrieving images for cloud " + nodeSourceName);
-        JSONArray images = new JSONArray();
+        List<ConnectorImage> images;
 
         try {
             URIBuilder uriBuilder = new URIBuilder(new URL(paURL).toURI());
             URI requestUri = uriBuilder.setPath(CONNECTOR_IAAS_PATH + "/infrastructures/" + nodeSourceName + "/images")
                                        .build();
 
-            images = ConnectionHelper.sendGetArrayRequestAndReturnArrayResponse(requestUri);
+            images = ConnectionHelper.sendGetRequestAndReadArrayResponse(requestUri, ConnectorImage.class);
             if (images.isEmpty()) {
                 LOGGER.info("No images found for cloud {}", nodeSourceName);
             } else {
-                LOGGER.info("Images retrieved for cloud {}. Images: {}", nodeSourceName, images);
+                LOGGER.info("{} images retrieved for cloud {}", images.size(), nodeSourceName);
             }
         } catch (IOException e) {
             LOGGER.error("An error occurred while retrieving images for cloud {}: {}",
@@ -98,17 +100,17 @@ public class PAConnectorIaasGateway {
     }
 
     @SneakyThrows
-    public JSONArray getRegions(String nodeSourceName) {
+    public List<String> getRegions(String nodeSourceName) {
         Validate.notNull(nodeSourceName, "nodeSourceName must not be null");
         LOGGER.debug("Retrieving regions for cloud " + nodeSourceName);
-        JSONArray regions = null;
+        List<String> regions;
 
         URIBuilder uriBuilder = new URIBuilder(new URL(paURL).toURI());
         URI requestUri = uriBuilder.setPath(CONNECTOR_IAAS_PATH + "/infrastructures/" + nodeSourceName + "/regions")
                                    .build();
 
-        regions = ConnectionHelper.sendGetArrayRequestAndReturnArrayResponse(requestUri);
-        LOGGER.debug("Regions retrieved for cloud {}. Images: {}", nodeSourceName, regions);
+        regions = ConnectionHelper.sendGetRequestAndReadArrayResponse(requestUri, String.class);
+        LOGGER.debug("Regions retrieved for cloud {}. Regions: {}", nodeSourceName, regions);
 
         return regions;
     }
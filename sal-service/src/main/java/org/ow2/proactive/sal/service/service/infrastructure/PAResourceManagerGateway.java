@@ -5,25 +5,26 @@
  */
 package org.ow2.proactive.sal.service.service.infrastructure;
 
-import java.security.KeyException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
-import javax.security.auth.login.LoginException;
+import javax.annotation.PostConstruct;
 
-import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.util.InetAddressUtils;
 import org.ow2.proactive.resourcemanager.common.NSState;
 import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
 import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
-import org.ow2.proactive.resourcemanager.common.event.dto.RMStateFull;
-import org.ow2.proactive.resourcemanager.exception.RMException;
+import org.ow2.proactive.resourcemanager.common.event.dto.RMStateDelta;
 import org.ow2.proactive.resourcemanager.exception.RMNodeException;
 import org.ow2.proactive.sal.model.Deployment;
 import org.ow2.proactive.sal.model.IpAddress;
 import org.ow2.proactive.sal.model.IpAddressType;
 import org.ow2.proactive.sal.model.IpVersion;
+import org.ow2.proactive.sal.service.service.AsyncWaiter;
+import org.ow2.proactive.sal.service.service.AsyncWaiter.Backoff;
+import org.ow2.proactive.sal.service.service.PASession;
+import org.ow2.proactive.sal.service.service.PASessionPool;
 import org.ow2.proactive.sal.service.service.RepositoryService;
 import org.ow2.proactive.sal.service.service.ServiceConfiguration;
 import org.ow2.proactive.sal.service.service.application.PAFactory;
@@ -38,8 +39,12 @@ import org.ow2.proactive_grid_cloud_portal.common.RMRestInterface;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.RestException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import lombok.extern.log4j.Log4j2;
 
 
@@ -47,181 +52,91 @@ import lombok.extern.log4j.Log4j2;
 @Service("PAResourceManagerGatewayService")
 public class PAResourceManagerGateway {
 
-    private RMRestInterface rmRestInterface;
-
-    private String username;
+    // the nodes of a node source are awaited as long as with the former fixed retries
+    private static final long DEPLOYED_NODES_TIMEOUT = (ServiceConfiguration.MAX_CONNECTION_RETRIES + 1L) *
+                                                       ServiceConfiguration.INTERVAL;
 
-    private String password;
+    private static final Backoff DEPLOYED_NODES_BACKOFF = new Backoff(1000,
+                                                                      ServiceConfiguration.INTERVAL,
+                                                                      0,
+                                                                      DEPLOYED_NODES_TIMEOUT);
 
     @Autowired
     private RepositoryService repositoryService;
 
-    /**
-     * Get, in an asynchronous way, deployed nodes names
-     * @param nodeSource The name of the node source
-     * @return List of deployed nodes names
-     * @throws InterruptedException In case the process is interrupted
-     */
-    public List<String> getAsyncDeployedNodesInformation(String nodeSource, String option) throws InterruptedException {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+    @Autowired
+    private PASessionPool sessionPool;
 
-        Callable<List<String>> callable = () -> {
-            int retries = 0;
+    @Autowired
+    private AsyncWaiter asyncWaiter;
 
-            List<String> deployedNodes = null;
-            boolean gotResponse = false;
+    @Value("${pa.rm-state.max-staleness-ms:2000}")
+    private long rmStateMaxStalenessMillis;
 
-            while (!gotResponse && retries <= ServiceConfiguration.MAX_CONNECTION_RETRIES) {
-                try {
-                    Thread.sleep(ServiceConfiguration.INTERVAL);
-                    deployedNodes = getDeployedNodesInformation(nodeSource, option);
-                    if (!deployedNodes.isEmpty()) {
-                        gotResponse = true;
-                    } else {
-                        retries++;
-                    }
-                } catch (Exception e) {
-                    if (e.getClass().getSimpleName().equals("IllegalArgumentException")) {
-                        throw e;
-                    } else {
-                        retries++;
-                    }
-                }
-            }
-            if (gotResponse) {
-                LOGGER.info("Got nodes names after " + retries + " failed attempts.");
-                return deployedNodes;
-            }
-            throw new ConnectTimeoutException("Impossible to get deployed nodes names from RM.");
-        };
+    @Value("${pa.rm-state.full-refresh-minutes:10}")
+    private long rmStateFullRefreshMinutes;
 
-        Future<List<String>> connectionResponse = executorService.submit(callable);
-        List<String> deployedNodes = null;
-        try {
-            deployedNodes = connectionResponse.get();
-        } catch (ExecutionException ee) {
-            LOGGER.error("ExecutionException: " + ee);
-        }
-        executorService.shutdown();
-        return deployedNodes;
-
-        /*
-         * TODO
-         * This method throws an error if a node source is deployed with no nodes attached.
-         * The better approach should be returning an empty list instead of connectTimeoutException.
-         */
+    // one mirror per user, as the RM only shows to a user the nodes and node sources it is allowed to see
+    private Cache<String, RMStateMirror> rmStateMirrors;
+
+    @PostConstruct
+    private void initRMStateMirrors() {
+        // a mirror unread for a full refresh interval would fetch the whole RM state on its next read anyway
+        rmStateMirrors = CacheBuilder.newBuilder()
+                                     .expireAfterAccess(rmStateFullRefreshMinutes, TimeUnit.MINUTES)
+                                     .build();
     }
 
     /**
-     * Init a gateway to the ProActive Resource Manager
-     * @param paURL ProActive URL (exp: https://try.activeeon.com:8443/)
+     * Wait, in an asynchronous way, for the nodes of a node source to be deployed
+     * @param sessionId A valid session id
+     * @param nodeSource The name of the node source
+     * @return The nodes of the node source, or a future completed with a TimeoutException if the node source is still
+     *         not deployed or has no nodes after the retries
      */
-    public void init(String paURL) {
-        // Initialize the gateway from the RMConnectionHelper class
-        rmRestInterface = RMConnectionHelper.init(paURL);
+    public CompletableFuture<List<RMNodeInformation>> getAsyncDeployedNodesInformation(String sessionId,
+            String nodeSource) {
+        return asyncWaiter.waitFor("Nodes of the node source " + nodeSource,
+                                   () -> getDeployedNodeSourceNodes(sessionId,
+                                                                    nodeSource).filter(nodes -> !nodes.isEmpty()),
+                                   DEPLOYED_NODES_BACKOFF);
     }
 
     /**
      * Get the available VMs at the proactive server
+     * @param sessionId A valid session id
      * @return rmNodeEvents the list of the available VMs
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public List<RMNodeEvent> getListOfNodesEvents() throws NotConnectedException, PermissionRestException {
-        reconnectIfDisconnected();
-        RMStateFull rmStateFull = rmRestInterface.getRMStateFull(RMConnectionHelper.getSessionId());
-        List<RMNodeEvent> rmNodeEvents = rmStateFull.getNodesEvents();
-        return rmNodeEvents;
-    }
-
-    /**
-     * Connect to the ProActive server
-     * @param username Username
-     * @param password Password
-     * @throws LoginException In case the login is not valid
-     * @throws KeyException In case the password is not valid
-     * @throws RMException In case an error happens in the RM
-     */
-    public void connect(String username, String password) throws LoginException, KeyException, RMException {
-        this.username = username;
-        this.password = password;
-        RMConnectionHelper.connect(this.username, this.password);
-    }
-
-    /**
-     * Disconnect from the ProActive server
-     */
-    public void disconnect() {
-        RMConnectionHelper.disconnect();
+    public List<RMNodeEvent> getListOfNodesEvents(String sessionId)
+            throws NotConnectedException, PermissionRestException {
+        return rmStateMirrorOf(requireSession(sessionId)).getNodes(sessionId);
     }
 
     /**
      * Verify that the provided sessionId corresponds to an active session
-     * * @param sessionId A session id
-     * @return True if the connexion session is active, false otherwise
+     * @param sessionId A session id
+     * @return True if the connexion session is active, false otherwise, e.g. when the RM does not know the session
      * @throws NotConnectedException In case the user is not connected
      */
     public Boolean isActive(String sessionId) throws NotConnectedException {
-        return RMConnectionHelper.isActive(sessionId);
+        PASession session = sessionPool.getSession(sessionId);
+        return session != null && RMConnectionHelper.isActive(session.getRmRestInterface(), sessionId);
     }
 
-    /**
-     * Get deployed nodes names
-     * @param nodeSource The name of the node source
-     * @param option needed (either "hostname" or "name")
-     * @return List of deployed nodes names
-     * @throws NotConnectedException In case the user is not connected
-     * @throws PermissionRestException In case the user does not have valid permissions
-     * @throws IllegalArgumentException if the option passed was not supported
-     */
-    private List<String> getDeployedNodesInformation(String nodeSource, String option)
-            throws IllegalArgumentException, NotConnectedException, PermissionRestException {
-        reconnectIfDisconnected();
-        List<String> deployedNodes = new ArrayList<>();
-        RMStateFull rmState = getFullMonitoring();
-        String nodeInfo = "none";
-        LOGGER.debug("Searching for deployed nodes information ...");
-        for (RMNodeEvent rmNodeEvent : rmState.getNodesEvents()) {
-            if (rmNodeEvent.getNodeSource().equals(nodeSource)) {
-                if (option.equals("name")) {
-                    nodeInfo = rmNodeEvent.getNodeUrl();
-                }
-                if (option.equals("hostname")) {
-                    nodeInfo = rmNodeEvent.getHostName();
-                }
-                if (option.equals("state")) {
-                    nodeInfo = rmNodeEvent.getNodeState().toString();
-                }
-                if (nodeInfo.equals("none")) {
-                    LOGGER.error("A wrong option was passed and the nodeInfo was now changed");
-                    throw new IllegalArgumentException("The option passed \"" + option + "\" is not found!");
-                } else {
-                    deployedNodes.add(nodeInfo.substring(nodeInfo.lastIndexOf('/') + 1));
-                }
-            }
-        }
-        LOGGER.info(deployedNodes.size() + " nodes found!");
-
-        return deployedNodes;
-
-        /*
-         * TODO
-         * This method can be improved to including all RMNodeEvent variables.
-         * For now, all what we need are the name and Hostname, but later it can include other
-         * variables.
-         */
-    }
-
-    private RMStateFull getFullMonitoring() throws NotConnectedException, PermissionRestException {
-        reconnectIfDisconnected();
-        LOGGER.debug("Getting full RM state ...");
-        RMStateFull rmState = rmRestInterface.getRMStateFull(RMConnectionHelper.getSessionId());
-        LOGGER.debug("Full monitoring got.");
-        return rmState;
+    private RMStateDelta getRMStateDelta(String sessionId, long counter) throws NotConnectedException {
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
+        LOGGER.debug("Getting the RM state changes since the event {} ...", counter);
+        RMStateDelta rmStateDelta = rmRestInterface.getRMStateDelta(sessionId, String.valueOf(counter));
+        LOGGER.debug("RM state changes got.");
+        return rmStateDelta;
     }
 
     /**
-     * Search the nodes with specific tags.
+     * Search the nodes with specific tags. The search is done by the RM, not in the mirrored RM state, as its callers
+     * act on the nodes found.
+     * @param sessionId A valid session id
      * @param tags a list of tags which the nodes should contain. When not specified or an empty list, all the nodes known urls are returned
      * @param all When true, the search return nodes which contain all tags;
      *            when false, the search return nodes which contain any tag among the list tags.
@@ -229,131 +144,123 @@ public class PAResourceManagerGateway {
      * @throws NotConnectedException In case the user is not connected
      * @throws RestException In case a Rest exception is thrown
      */
-    public List<String> searchNodes(List<String> tags, boolean all) throws NotConnectedException, RestException {
-        reconnectIfDisconnected();
+    public List<String> searchNodes(String sessionId, List<String> tags, boolean all)
+            throws NotConnectedException, RestException {
         LOGGER.debug("Search for nodes with tags " + tags + " ...");
-        List<String> nodesUrls = new ArrayList<>(rmRestInterface.searchNodes(RMConnectionHelper.getSessionId(),
-                                                                             tags,
-                                                                             all));
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
+        List<String> nodesUrls = new ArrayList<>(rmRestInterface.searchNodes(sessionId, tags, all));
         LOGGER.debug("Nodes found: " + nodesUrls);
         return nodesUrls;
     }
 
     /**
      * Undeploy a node source
+     * @param sessionId A valid session id
      * @param nodeSourceName The name of the node source to undeploy
      * @param preempt If true undeploy node source immediately without waiting for nodes to be freed
      * @return The result of the action, possibly containing the error message
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public NSState undeployNodeSource(String nodeSourceName, Boolean preempt)
+    public NSState undeployNodeSource(String sessionId, String nodeSourceName, Boolean preempt)
             throws NotConnectedException, PermissionRestException {
-        reconnectIfDisconnected();
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
         LOGGER.debug("Undeploying node source ...");
-        NSState nsState = rmRestInterface.undeployNodeSource(RMConnectionHelper.getSessionId(),
-                                                             nodeSourceName,
-                                                             preempt);
+        NSState nsState = rmRestInterface.undeployNodeSource(sessionId, nodeSourceName, preempt);
+        invalidateRMStateMirrors();
         LOGGER.info("Node source undeployed!");
         return nsState;
     }
 
     /**
      * Remove a node source
+     * @param sessionId A valid session id
      * @param nodeSourceName The name of the node source to remove
      * @param preempt If true remove node source immediately without waiting for nodes to be freed
      * @return True if the node source is removed successfully, false or exception otherwise
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public Boolean removeNodeSource(String nodeSourceName, Boolean preempt)
+    public Boolean removeNodeSource(String sessionId, String nodeSourceName, Boolean preempt)
             throws NotConnectedException, PermissionRestException, IllegalArgumentException {
-        reconnectIfDisconnected();
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
         LOGGER.debug("Removing node source ...");
-        Boolean result = rmRestInterface.removeNodeSource(RMConnectionHelper.getSessionId(), nodeSourceName, preempt);
+        Boolean result = rmRestInterface.removeNodeSource(sessionId, nodeSourceName, preempt);
+        invalidateRMStateMirrors();
         LOGGER.info("Node source removed!");
         return result;
     }
 
     /**
      * Release a node
+     * @param sessionId A valid session id
      * @param nodeUrl The URL of the node to remove
      * @return True if the node is removed successfully, false or exception otherwise
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      * @throws RMNodeException In case the RM throws a Node exception
      */
-    public Boolean releaseNode(String nodeUrl) throws NotConnectedException, PermissionRestException, RMNodeException {
-        reconnectIfDisconnected();
+    public Boolean releaseNode(String sessionId, String nodeUrl)
+            throws NotConnectedException, PermissionRestException, RMNodeException {
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
         LOGGER.debug("Releasing node ...");
-        Boolean result = rmRestInterface.releaseNode(RMConnectionHelper.getSessionId(), nodeUrl);
+        Boolean result = rmRestInterface.releaseNode(sessionId, nodeUrl);
+        invalidateRMStateMirrors();
         LOGGER.info("Node released!");
         return result;
     }
 
     /**
      * Remove a node
+     * @param sessionId A valid session id
      * @param nodeUrl The URL of the node to remove
      * @param preempt If true remove node immediately without waiting for node to be freed
      * @return True if the node is removed successfully, false or exception otherwise
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public Boolean removeNode(String nodeUrl, Boolean preempt) throws NotConnectedException, PermissionRestException {
-        reconnectIfDisconnected();
+    public Boolean removeNode(String sessionId, String nodeUrl, Boolean preempt)
+            throws NotConnectedException, PermissionRestException {
+        RMRestInterface rmRestInterface = requireSession(sessionId).getRmRestInterface();
         LOGGER.debug("Removing node \'" + nodeUrl + "\' ...");
-        Boolean result = rmRestInterface.removeNode(RMConnectionHelper.getSessionId(), nodeUrl, preempt);
+        Boolean result = rmRestInterface.removeNode(sessionId, nodeUrl, preempt);
+        invalidateRMStateMirrors();
         LOGGER.info("Node removed!");
         return result;
     }
 
-    void reconnectIfDisconnected() {
-        try {
-            if (RMConnectionHelper.isActive()) {
-                LOGGER.info("Connexion to ProActive RM is active.");
-            } else {
-                LOGGER.warn("WARNING: ProActive Resource Manager is not reachable.");
-            }
-            LOGGER.debug("Connexion to ProActive RM renewed.");
-        } catch (NotConnectedException | RuntimeException nce) {
-            try {
-                LOGGER.info("Reconnecting to ProActive RM ...");
-                RMConnectionHelper.connect(this.username, this.password);
-            } catch (LoginException | KeyException | RMException e) {
-                LOGGER.error("ERROR: Not able to reconnect to RM due to: " + Arrays.toString(e.getStackTrace()));
-            }
-        }
-    }
-
-    private void renewSession() {
-        try {
-            LOGGER.debug("Renewing connexion ...");
-            if (RMConnectionHelper.isActive()) {
-                LOGGER.debug("Connexion to ProActive RM is active.");
-            } else {
-                LOGGER.warn("WARNING: ProActive Resource Manager is not reachable.");
-            }
-            LOGGER.info("Connexion to ProActive RM renewed.");
-        } catch (NotConnectedException | RuntimeException nce) {
-            LOGGER.error("ERROR: Not able to renew connexion to RM due to: " + Arrays.toString(nce.getStackTrace()));
-        }
-    }
-
-    // For testing purpose only
-
-    public RMRestInterface getRmRestInterface() {
-        return rmRestInterface;
+    /**
+     * Get the pooled session of a caller. The mirrored RM state is only read with such a session, even when it is
+     * fresh enough to need no call to the RM.
+     * @param sessionId A session id
+     * @return The session
+     * @throws NotConnectedException In case the session is not in the pool, e.g. it expired or was disconnected
+     */
+    private RMStateMirror rmStateMirrorOf(PASession session) {
+        // an adopted session has no known user, so it gets its own mirror
+        String owner = session.getUsername() != null ? session.getUsername() : session.getSessionId();
+        return rmStateMirrors.asMap()
+                             .computeIfAbsent(owner,
+                                              key -> new RMStateMirror(this::getRMStateDelta,
+                                                                       rmStateMaxStalenessMillis,
+                                                                       rmStateFullRefreshMinutes));
     }
 
-    public void setRmRestInterface(RMRestInterface rmRestInterface) {
-        this.rmRestInterface = rmRestInterface;
+    private void invalidateRMStateMirrors() {
+        // an action on the RM may change what every user sees
+        rmStateMirrors.asMap().values().forEach(RMStateMirror::invalidate);
     }
 
-    public String getSessionId() {
-        return RMConnectionHelper.getSessionId();
+    private PASession requireSession(String sessionId) throws NotConnectedException {
+        // an expired or disconnected session is not reopened, its user has to connect again
+        PASession session = sessionPool.getSession(sessionId);
+        if (session == null) {
+            throw new NotConnectedException("The session is not connected to the ProActive Resource Manager.");
+        }
+        return session;
     }
 
-    public void synchronizeDeploymentsIPAddresses(PASchedulerGateway schedulerGateway) {
+    public void synchronizeDeploymentsIPAddresses(String sessionId, PASchedulerGateway schedulerGateway) {
         List<Deployment> deployments = repositoryService.listDeployments();
 
         deployments.parallelStream().forEach(deployment -> {
@@ -363,13 +270,16 @@ public class PAResourceManagerGateway {
                         LOGGER.info("Deployment " + deployment.getNodeName() + "already synchronized. IP: " +
                                     deployment.getIpAddress());
                     } else {
-                        List<String> nodeURLs = searchNodes(Collections.singletonList(deployment.getNodeName()), true);
+                        List<String> nodeURLs = searchNodes(sessionId,
+                                                            Collections.singletonList(deployment.getNodeName()),
+                                                            true);
                         if (!nodeURLs.isEmpty()) {
                             TaskFlowJob paIPJob = createIPAddrGetterWorkflow(deployment);
                             if (!paIPJob.getTasks().isEmpty()) {
-                                long submittedJobId = schedulerGateway.submit(paIPJob).longValue();
+                                long submittedJobId = schedulerGateway.submit(sessionId, paIPJob).longValue();
                                 LOGGER.info("Public ip getter job submitted successfully. ID = " + submittedJobId);
-                                TaskResult taskResult = schedulerGateway.waitForTask(Long.toString(submittedJobId),
+                                TaskResult taskResult = schedulerGateway.waitForTask(sessionId,
+                                                                                     Long.toString(submittedJobId),
                                                                                      "get_ip_addr_task",
                                                                                      60000);
                                 String publicIPAddr = taskResult.getValue().toString();
@@ -424,7 +334,7 @@ public class PAResourceManagerGateway {
         return paJob;
     }
 
-    public void synchronizeDeploymentsInstanceIDs() {
+    public void synchronizeDeploymentsInstanceIDs(String sessionId) {
         List<Deployment> deployments = repositoryService.listDeployments();
 
         deployments.parallelStream().forEach(deployment -> {
@@ -434,7 +344,9 @@ public class PAResourceManagerGateway {
                         LOGGER.info("Deployment " + deployment.getNodeName() + " already synchronized. Instance ID: " +
                                     deployment.getInstanceId());
                     } else {
-                        List<String> nodeURLs = searchNodes(Collections.singletonList(deployment.getNodeName()), true);
+                        List<String> nodeURLs = searchNodes(sessionId,
+                                                            Collections.singletonList(deployment.getNodeName()),
+                                                            true);
                         if (!nodeURLs.isEmpty()) {
                             String instanceId = nodeURLs.get(0).substring(nodeURLs.get(0).lastIndexOf("__") + 2);
                             deployment.setInstanceId(instanceId);
@@ -458,66 +370,41 @@ public class PAResourceManagerGateway {
 
     /**
      * Get a list of node source names in a given status from the ProActive Resource Manager
+     * @param sessionId A valid session id
      * @param status defines the status of node sources to be returned, can take ["deployed", "undeployed", "all"]
      * @return listNodeSourceNames a string list of names of the deployed node sources
      * @throws NotConnectedException In case the user is not connected
      * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public List<String> getNodeSourceNames(String status) throws NotConnectedException, PermissionRestException {
+    public List<String> getNodeSourceNames(String sessionId, String status)
+            throws NotConnectedException, PermissionRestException {
         LOGGER.info("Getting the node sources names from the resource manager");
         if (!Arrays.asList("deployed", "undeployed", "all").contains(status)) {
             LOGGER.error("The passed status \"" + status + "\" is incorrect");
             throw new IllegalArgumentException("The passed status \"" + status + "\" is incorrect");
         }
-        return getFullMonitoring().getNodeSource()
-                                  .stream()
-                                  .filter(nodeSourceEvent -> nodeSourceEvent.getNodeSourceStatus().equals(status) ||
-                                                             status.equals("all"))
-                                  .map(RMNodeSourceEvent::getNodeSourceName)
-                                  .collect(Collectors.toList());
-    }
-
-    /**
-     * Get a list of deployed nodes hostnames from the ProActive Resource Manager
-     * @param nsName a String of the node source name
-     * @return nodeHostNames a string list of names of the deployed nodes hostnames
-     */
-    public List<String> getNodeHostNames(String nsName) {
-        List<String> nodeHostNames = new LinkedList<>();
-        try {
-            nodeHostNames = getAsyncDeployedNodesInformation(nsName, "hostname");
-        } catch (Exception e) {
-            LOGGER.error(" resourceManagerGateway threw an exception: " + e);
-        }
-        return nodeHostNames;
+        RMStateMirror rmStateMirror = rmStateMirrorOf(requireSession(sessionId));
+        return rmStateMirror.getNodeSources(sessionId)
+                            .stream()
+                            .filter(nodeSourceEvent -> nodeSourceEvent.getNodeSourceStatus().equals(status) ||
+                                                       status.equals("all"))
+                            .map(RMNodeSourceEvent::getNodeSourceName)
+                            .collect(Collectors.toList());
     }
 
     /**
-     * Get a list of deployed nodes states from the ProActive Resource Manager
-     * @param nsName a String of the node source name
-     * @return nodeStates a string list of names of the deployed node states
-     */
-    public List<String> getNodeStates(String nsName) {
-        List<String> nodeStates = new LinkedList<>();
-        try {
-            nodeStates = getAsyncDeployedNodesInformation(nsName, "state");
-        } catch (Exception e) {
-            LOGGER.error(" resourceManagerGateway threw an exception: " + e);
-        }
-        return nodeStates;
-    }
-
-    /**
-     * Get a list of deployed nodes sources from the ProActive Resource Manager
-     * @return nodeSourcesNames a string list of names of the deployed node sources
+     * Get the nodes of a deployed node source from the ProActive Resource Manager, in a single lookup
+     * @param sessionId A valid session id
+     * @param nodeSourceName The name of the node source
+     * @return The name, host name, state and url of the nodes of the node source, or empty if the node source is not
+     *         deployed
+     * @throws NotConnectedException In case the user is not connected
+     * @throws PermissionRestException In case the user does not have valid permissions
      */
-    public List<String> getDeployedNodeSourcesNames() {
-        List<String> nodeSourcesNames = new LinkedList<>();
-        try {
-            nodeSourcesNames = getNodeSourceNames("deployed");
-        } catch (NotConnectedException | PermissionRestException e) {
-            LOGGER.error(Arrays.toString(e.getStackTrace()));
-        }
-        return nodeSourcesNames;
+    public Optional<List<RMNodeInformation>> getDeployedNodeSourceNodes(String sessionId, String nodeSourceName)
+            throws NotConnectedException, PermissionRestException {
+        RMStateMirror rmStateMirror = rmStateMirrorOf(requireSession(sessionId));
+        return rmStateMirror.getNodesOfNodeSource(sessionId, nodeSourceName, "deployed")
+                            .map(nodes -> nodes.stream().map(RMNodeInformation::new).collect(Collectors.toList()));
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service.infrastructure;
+
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * The information of a node of the Resource Manager needed to deploy tasks on it
+ */
+@Getter
+@ToString
+public class RMNodeInformation {
+
+    // the last part of the node url
+    private final String name;
+
+    private final String hostname;
+
+    private final String state;
+
+    private final String url;
+
+    RMNodeInformation(RMNodeEvent rmNodeEvent) {
+        this.url = rmNodeEvent.getNodeUrl();
+        this.name = url.substring(url.lastIndexOf('/') + 1);
+        this.hostname = rmNodeEvent.getHostName();
+        this.state = rmNodeEvent.getNodeState().toString();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service.infrastructure;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.dto.RMStateDelta;
+import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * In-memory mirror of the nodes and node sources of the Resource Manager, with the nodes indexed by node source.
+ * The mirror follows the RM events: when it is older than its staleness bound, the next lookup fetches the events
+ * that happened since the last one, instead of the whole RM state. The whole state is still fetched periodically,
+ * so that an event missed by the RM event window cannot be kept for long.
+ * The changes are fetched with the session of the reader, so a reader without an active session gets a
+ * NotConnectedException when the mirror needs a refresh, and a mirror is only shared by the sessions of a same user,
+ * which all see the same part of the RM state.
+ */
+@Log4j2
+class RMStateMirror {
+
+    /**
+     * Fetches with a session the RM state changes that happened after an event counter, -1 for the whole state
+     */
+    interface DeltaSource {
+        RMStateDelta fetch(String sessionId, long counter) throws NotConnectedException, PermissionRestException;
+    }
+
+    private final DeltaSource deltaSource;
+
+    private final long maxStalenessNanos;
+
+    private final long fullRefreshNanos;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, RMNodeEvent> nodesByUrl = new HashMap<>();
+
+    private final Map<String, RMNodeSourceEvent> nodeSourcesByName = new LinkedHashMap<>();
+
+    private final Map<String, Set<String>> nodeUrlsByNodeSource = new HashMap<>();
+
+    // counter of the last applied RM event, -1 until the whole state is fetched
+    private long counter = -1;
+
+    private volatile long lastRefresh;
+
+    private long lastFullRefresh;
+
+    private volatile boolean stale = true;
+
+    /**
+     * @param deltaSource Fetches the RM state changes
+     * @param maxStalenessMillis Maximum age of the mirror when it is read, 0 to fetch the changes on every read
+     * @param fullRefreshMinutes Interval between two fetches of the whole RM state
+     */
+    RMStateMirror(DeltaSource deltaSource, long maxStalenessMillis, long fullRefreshMinutes) {
+        this.deltaSource = deltaSource;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        this.fullRefreshNanos = TimeUnit.MINUTES.toNanos(fullRefreshMinutes);
+    }
+
+    /**
+     * Mark the mirror as stale, so that the next lookup fetches the RM changes, e.g. after an action on the RM
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    List<RMNodeEvent> getNodes(String sessionId) throws NotConnectedException, PermissionRestException {
+        return read(sessionId, () -> new ArrayList<>(nodesByUrl.values()));
+    }
+
+    List<RMNodeSourceEvent> getNodeSources(String sessionId) throws NotConnectedException, PermissionRestException {
+        return read(sessionId, () -> new ArrayList<>(nodeSourcesByName.values()));
+    }
+
+    /**
+     * Get the nodes of a node source with a given status, reading the node source and its nodes at once
+     * @param sessionId The session to fetch the RM changes with
+     * @param nodeSourceName The name of the node source
+     * @param status The status of the node source (e.g. "deployed")
+     * @return The nodes of the node source, or empty if there is no node source with this name and status
+     */
+    Optional<List<RMNodeEvent>> getNodesOfNodeSource(String sessionId, String nodeSourceName, String status)
+            throws NotConnectedException, PermissionRestException {
+        return read(sessionId, () -> {
+            RMNodeSourceEvent nodeSource = nodeSourcesByName.get(nodeSourceName);
+            if (nodeSource == null || !status.equals(nodeSource.getNodeSourceStatus())) {
+                return Optional.empty();
+            }
+            return Optional.of(nodesOf(nodeUrlsByNodeSource.get(nodeSourceName)));
+        });
+    }
+
+    private <T> T read(String sessionId, Supplier<T> lookup) throws NotConnectedException, PermissionRestException {
+        refreshIfStale(sessionId);
+        lock.readLock().lock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refreshIfStale(String sessionId) throws NotConnectedException, PermissionRestException {
+        if (!isStale()) {
+            return;
+        }
+        // one caller fetches the changes, the concurrent ones wait for them
+        synchronized (this) {
+            if (!isStale()) {
+                return;
+            }
+            long now = System.nanoTime();
+            boolean full = counter < 0 || now - lastFullRefresh >= fullRefreshNanos;
+            stale = false;
+            RMStateDelta delta;
+            try {
+                delta = deltaSource.fetch(sessionId, full ? -1 : counter);
+            } catch (NotConnectedException | PermissionRestException | RuntimeException e) {
+                stale = true;
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                if (full) {
+                    clear();
+                    lastFullRefresh = now;
+                }
+                apply(delta);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastRefresh = now;
+        }
+    }
+
+    private boolean isStale() {
+        return stale || System.nanoTime() - lastRefresh >= maxStalenessNanos;
+    }
+
+    private void clear() {
+        nodesByUrl.clear();
+        nodeSourcesByName.clear();
+        nodeUrlsByNodeSource.clear();
+    }
+
+    private void apply(RMStateDelta delta) {
+        if (delta.getNodeSource() != null) {
+            for (RMNodeSourceEvent nodeSourceEvent : delta.getNodeSource()) {
+                if (nodeSourceEvent.getEventType() == RMEventType.NODESOURCE_REMOVED) {
+                    nodeSourcesByName.remove(nodeSourceEvent.getNodeSourceName());
+                } else {
+                    nodeSourcesByName.put(nodeSourceEvent.getNodeSourceName(), nodeSourceEvent);
+                }
+            }
+        }
+        if (delta.getNodesEvents() != null) {
+            for (RMNodeEvent nodeEvent : delta.getNodesEvents()) {
+                RMNodeEvent previous = nodesByUrl.remove(nodeEvent.getNodeUrl());
+                if (previous != null) {
+                    unindex(previous);
+                }
+                if (nodeEvent.getEventType() != RMEventType.NODE_REMOVED) {
+                    nodesByUrl.put(nodeEvent.getNodeUrl(), nodeEvent);
+                    index(nodeEvent);
+                }
+            }
+        }
+        counter = Math.max(counter, delta.getLatestCounter());
+        LOGGER.debug("RM state mirror updated up to the event {}: {} node sources, {} nodes",
+                     counter,
+                     nodeSourcesByName.size(),
+                     nodesByUrl.size());
+    }
+
+    private void index(RMNodeEvent nodeEvent) {
+        String nodeUrl = nodeEvent.getNodeUrl();
+        nodeUrlsByNodeSource.computeIfAbsent(nodeEvent.getNodeSource(), key -> new LinkedHashSet<>()).add(nodeUrl);
+    }
+
+    private void unindex(RMNodeEvent nodeEvent) {
+        String nodeUrl = nodeEvent.getNodeUrl();
+        removeFromIndex(nodeUrlsByNodeSource, nodeEvent.getNodeSource(), nodeUrl);
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String nodeUrl) {
+        Set<String> nodeUrls = index.get(key);
+        if (nodeUrls != null) {
+            nodeUrls.remove(nodeUrl);
+            if (nodeUrls.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private List<RMNodeEvent> nodesOf(Set<String> nodeUrls) {
+        List<RMNodeEvent> nodes = new ArrayList<>();
+        if (nodeUrls != null) {
+            nodeUrls.forEach(nodeUrl -> nodes.add(nodesByUrl.get(nodeUrl)));
+        }
+        return nodes;
+    }
+}
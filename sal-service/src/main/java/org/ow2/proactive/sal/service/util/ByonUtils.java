@@ -6,16 +6,19 @@
 package org.ow2.proactive.sal.service.util;
 
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.service.AsyncWaiter;
+import org.ow2.proactive.sal.service.service.AsyncWaiter.Backoff;
 import org.ow2.proactive.sal.service.service.RepositoryService;
 import org.ow2.proactive.sal.service.service.infrastructure.PAResourceManagerGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.RMNodeInformation;
 import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,12 +35,17 @@ public class ByonUtils {
 
     private static RepositoryService repositoryService;
 
+    private static AsyncWaiter asyncWaiter;
+
     @Autowired
     private PAResourceManagerGateway tempResourceManagerGateway;
 
     @Autowired
     private RepositoryService tempRepositoryService;
 
+    @Autowired
+    private AsyncWaiter tempAsyncWaiter;
+
     private ByonUtils() {
     }
 
@@ -45,12 +53,19 @@ public class ByonUtils {
     private void initStaticAttributes() {
         resourceManagerGateway = this.tempResourceManagerGateway;
         repositoryService = this.tempRepositoryService;
+        asyncWaiter = this.tempAsyncWaiter;
     }
 
     static final int MAX_CONNECTION_RETRIES = 10;
 
     static final int INTERVAL = 20000;
 
+    // the first polls are close to each other, as a node is often deployed quickly
+    private static final Backoff BYON_HOSTNAME_BACKOFF = new Backoff(2000,
+                                                                     INTERVAL,
+                                                                     0,
+                                                                     (long) MAX_CONNECTION_RETRIES * INTERVAL);
+
     /**
      * @param np an Object of class NodeProperties that contains all the nodes properties needed for the candidate declaration
      * @param jobId a String identifier of the node candidate job
@@ -66,6 +81,7 @@ public class ByonUtils {
         nc.setMemoryPrice(0.0);
         nc.setPricePerInvocation(0.0);
         nc.setNodeId(nodeId);
+        nc.setDeployable(true);
 
         //create a dummy cloud definition for BYON nodes
         Cloud dummyCloud = ByonUtils.getOrCreateDummyCloud(nodeType);
@@ -169,80 +185,79 @@ public class ByonUtils {
     }
 
     /**
+     * Wait, in an asynchronous way, for the host name of the node of a BYON or EDGE node source
+     * @param sessionId A valid session id
      * @param nsName A valid Node Source name
-     * @return The BYON Host Name
+     * @return The BYON Host Name, or a future completed with an IllegalStateException if it is not retrieved
      */
-    public static String getBYONHostname(String nsName) {
+    public static CompletableFuture<String> getBYONHostname(String sessionId, String nsName) {
         LOGGER.info("Getting the byon node host name for: " + nsName);
-        List<String> nodeSourcesNames = new LinkedList<>();
-        List<String> nodeHostNames = new LinkedList<>();
-        List<String> nodeStates = new LinkedList<>();
-        int retries = 0;
-        while (retries < MAX_CONNECTION_RETRIES) {
-            retries++;
-            //Check if the node source exist
-            nodeSourcesNames = resourceManagerGateway.getDeployedNodeSourcesNames();
-            if (!nodeSourcesNames.contains(nsName)) {
-                LOGGER.warn("The node source " + nsName + " is not deployed");
-            } else {
-                LOGGER.info("Found the node source");
-                //check if the node source have nodes
-                nodeHostNames = resourceManagerGateway.getNodeHostNames(nsName);
-                if (nodeHostNames == null) {
-                    LOGGER.warn("The node Source " + nsName + " Does not have any nodes");
-                } else {
-                    LOGGER.info("List of node names is returned successfully");
-                    //check the number of nodes
-                    if (nodeHostNames.size() != 1) {
-                        if (nodeHostNames.size() == 0) {
-                            LOGGER.warn("The node Source " + nsName + " Does not have any nodes");
-                        } else {
-                            LOGGER.error("The node Source " + nsName + " has more than one node");
-                            throw new IllegalStateException("Node source has multiple nodes");
-                        }
-                    } else {
-                        LOGGER.info("One node name was returned");
-                        //check if the host name is not empty
-                        if (nodeHostNames.get(0).equals("")) {
-                            nodeStates = resourceManagerGateway.getNodeStates(nsName);
-                            LOGGER.warn("The node is in " + nodeStates.get(0) +
-                                        " state => host name is empty, retrying to get node information");
-                        } else {
-                            return nodeHostNames.get(0);
-                        }
-                    }
-                }
-            }
-            try {
-                Thread.sleep(INTERVAL);
-            } catch (InterruptedException e) {
-                LOGGER.error("The sleep thread was interrupted");
-            }
-        }
-        LOGGER.error("The node host name is not retrieved after " + retries + " retries");
-        throw new IllegalStateException("Node hostname is empty");
+        CompletableFuture<String> hostname = new CompletableFuture<>();
+        asyncWaiter.waitFor("Host name of the node source " + nsName,
+                            () -> lookupBYONHostname(sessionId, nsName),
+                            BYON_HOSTNAME_BACKOFF)
+                   .whenComplete((name, failure) -> {
+                       if (failure == null) {
+                           hostname.complete(name);
+                       } else if (failure instanceof IllegalStateException) {
+                           hostname.completeExceptionally(failure);
+                       } else {
+                           LOGGER.error("The node host name is not retrieved: " + failure.getMessage());
+                           hostname.completeExceptionally(new IllegalStateException("Node hostname is empty",
+                                                                                    failure));
+                       }
+                   });
+        return hostname;
+    }
 
-        /*
-         * TODO
-         * change the get getNodeStates and getNodeHostNames to getNodeEvents
-         * to limit the number of connections to the RM
-         * nodeStates.get(0) may lead to IndexOutOfRangeException => to be changed
-         */
+    /**
+     * Look once for the host name of the single node of a BYON node source, with a single lookup of the RM state
+     * @param sessionId A valid session id
+     * @param nsName A valid Node Source name
+     * @return The BYON Host Name, or empty if the node source or its node is not deployed yet
+     * @throws NotConnectedException In case the user is not connected
+     * @throws PermissionRestException In case the user does not have valid permissions
+     */
+    private static Optional<String> lookupBYONHostname(String sessionId, String nsName)
+            throws NotConnectedException, PermissionRestException {
+        Optional<List<RMNodeInformation>> nodes = resourceManagerGateway.getDeployedNodeSourceNodes(sessionId,
+                                                                                                    nsName);
+        if (!nodes.isPresent()) {
+            LOGGER.warn("The node source " + nsName + " is not deployed");
+            return Optional.empty();
+        }
+        if (nodes.get().isEmpty()) {
+            LOGGER.warn("The node Source " + nsName + " Does not have any nodes");
+            return Optional.empty();
+        }
+        if (nodes.get().size() > 1) {
+            LOGGER.error("The node Source " + nsName + " has more than one node");
+            throw new IllegalStateException("Node source has multiple nodes");
+        }
+        RMNodeInformation node = nodes.get().get(0);
+        //check if the host name is not empty
+        if (node.getHostname() == null || node.getHostname().isEmpty()) {
+            LOGGER.warn("The node " + node.getName() + " is in " + node.getState() +
+                        " state => host name is empty, retrying to get node information");
+            return Optional.empty();
+        }
+        return Optional.of(node.getHostname());
     }
 
     /**
      * Undeploy or remove the node source of BYON or Edge node
+     * @param sessionId A valid session id
      * @param nodeSourceName of ByonNode or EdgeNode to be undeployed or removed.
      * @param preempt If true undeploy or remove node source immediately without waiting for nodes to be freed
      * @param remove If true completely remove the node source, if false only undeply the node source
      * @return  true if the resourceManagerGateway return no errors, false otherwise
      */
-    public static Boolean undeployNs(String nodeSourceName, Boolean preempt, Boolean remove) {
+    public static Boolean undeployNs(String sessionId, String nodeSourceName, Boolean preempt, Boolean remove) {
         if (remove) {
             try {
                 LOGGER.info("Removing node source " + nodeSourceName + " from the ProActive server");
-                if (resourceManagerGateway.getNodeSourceNames("all").contains(nodeSourceName)) {
-                    resourceManagerGateway.removeNodeSource(nodeSourceName, preempt);
+                if (resourceManagerGateway.getNodeSourceNames(sessionId, "all").contains(nodeSourceName)) {
+                    resourceManagerGateway.removeNodeSource(sessionId, nodeSourceName, preempt);
                 } else {
                     LOGGER.warn("The node source \"" + nodeSourceName + "\" does not exist in the RM");
                 }
@@ -253,8 +268,8 @@ public class ByonUtils {
         } else {
             try {
                 LOGGER.info("Undeploying node source " + nodeSourceName + " from the ProActive server");
-                if (resourceManagerGateway.getNodeSourceNames("deployed").contains(nodeSourceName)) {
-                    resourceManagerGateway.undeployNodeSource(nodeSourceName, preempt);
+                if (resourceManagerGateway.getNodeSourceNames(sessionId, "deployed").contains(nodeSourceName)) {
+                    resourceManagerGateway.undeployNodeSource(sessionId, nodeSourceName, preempt);
                 } else {
                     LOGGER.warn("The node source \"" + nodeSourceName + "\" is not deployed in the RM");
                 }
@@ -7,9 +7,12 @@ package org.ow2.proactive.sal.service.util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jboss.netty.handler.codec.http.HttpMethod;
 import org.json.JSONArray;
@@ -17,6 +20,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
@@ -24,12 +32,20 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class ConnectionHelper {
 
+    private static final ObjectMapper STREAMING_MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                                                                                      false);
+
     private ConnectionHelper() {
     }
 
     @SneakyThrows
     private static BufferedReader sendGetRequestAndReturnBufferedResponse(HttpURLConnection connection)
             throws IOException {
+        return new BufferedReader(new InputStreamReader(sendGetRequestAndReturnStreamResponse(connection)));
+    }
+
+    private static InputStream sendGetRequestAndReturnStreamResponse(HttpURLConnection connection)
+            throws IOException {
         int responseCode = connection.getResponseCode();
         if (responseCode != HttpURLConnection.HTTP_OK) {
             String errorMessage = "Failed: HTTP error code: " + responseCode;
@@ -37,7 +53,7 @@ public class ConnectionHelper {
             throw new IOException(errorMessage);
         }
 
-        return new BufferedReader(new InputStreamReader(connection.getInputStream()));
+        return connection.getInputStream();
     }
 
     @SneakyThrows
@@ -101,4 +117,48 @@ public class ConnectionHelper {
         return result;
     }
 
+    /**
+     * Send a GET request and bind its JSON object response to a typed object, parsing it as it is received
+     * @param requestUri The URI of the request
+     * @param valueType The type of the response
+     * @return The response
+     */
+    public static <T> T sendGetRequestAndReadObjectResponse(URI requestUri, Class<T> valueType) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) requestUri.toURL().openConnection();
+        connection.setRequestMethod(HttpMethod.GET.toString());
+        LOGGER.debug("requestUri = {}", requestUri);
+        try (JsonParser parser = STREAMING_MAPPER.getFactory()
+                                                 .createParser(sendGetRequestAndReturnStreamResponse(connection))) {
+            return STREAMING_MAPPER.readValue(parser, valueType);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Send a GET request and bind the elements of its JSON array response to typed objects, one by one as they are
+     * received, without building the whole JSON tree
+     * @param requestUri The URI of the request
+     * @param elementType The type of the elements of the response
+     * @return The elements of the response
+     */
+    public static <T> List<T> sendGetRequestAndReadArrayResponse(URI requestUri, Class<T> elementType)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) requestUri.toURL().openConnection();
+        connection.setRequestMethod(HttpMethod.GET.toString());
+        LOGGER.debug("requestUri = {}", requestUri);
+        List<T> result = new ArrayList<>();
+        try (JsonParser parser = STREAMING_MAPPER.getFactory()
+                                                 .createParser(sendGetRequestAndReturnStreamResponse(connection))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("A JSON array was expected in the response of " + requestUri);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                result.add(STREAMING_MAPPER.readValue(parser, elementType));
+            }
+        } finally {
+            connection.disconnect();
+        }
+        return result;
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.util;
+
+import java.util.*;
+
+import org.ow2.proactive.sal.model.GeoLocationData;
+
+
+/**
+ * Static k-d tree over geo locations. The latitudes and longitudes are projected on the unit sphere, so that the
+ * euclidean (chord) distance between two points grows with their great-circle distance and the tree can be
+ * searched without any special handling of the poles or of the antimeridian.
+ */
+class GeoLocationIndex {
+
+    private static final int DIMENSIONS = 3;
+
+    private final GeoLocationData[] geoLocations;
+
+    private final double[][] points;
+
+    /**
+     * Build the index
+     * @param geoLocations The geo locations to index. The ones without coordinates are ignored.
+     */
+    GeoLocationIndex(Collection<GeoLocationData> geoLocations) {
+        List<GeoLocationData> located = new ArrayList<>(geoLocations.size());
+        geoLocations.stream()
+                    .filter(geoLocation -> geoLocation.getLatitude() != null && geoLocation.getLongitude() != null)
+                    .forEach(located::add);
+        this.geoLocations = located.toArray(new GeoLocationData[0]);
+        this.points = new double[this.geoLocations.length][];
+        for (int i = 0; i < this.geoLocations.length; i++) {
+            points[i] = toPoint(this.geoLocations[i].getLatitude(), this.geoLocations[i].getLongitude());
+        }
+        build(0, this.geoLocations.length, 0);
+    }
+
+    /**
+     * Find the geo locations within a great-circle distance of a point
+     * @return The geo locations found, in no particular order
+     */
+    List<GeoLocationData> findWithin(double latitude, double longitude, double radiusKm) {
+        List<GeoLocationData> found = new ArrayList<>();
+        if (radiusKm < 0) {
+            return found;
+        }
+        double chord = toChord(radiusKm);
+        searchWithin(0, geoLocations.length, 0, toPoint(latitude, longitude), chord * chord, found);
+        return found;
+    }
+
+    /**
+     * Find the k geo locations nearest to a point
+     * @return The geo locations found, from the nearest to the farthest
+     */
+    List<GeoLocationData> findNearest(double latitude, double longitude, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        // max-heap on the squared distance, so that the farthest of the k best is evicted first
+        PriorityQueue<double[]> nearest = new PriorityQueue<>(k, (a, b) -> Double.compare(b[1], a[1]));
+        searchNearest(0, geoLocations.length, 0, toPoint(latitude, longitude), k, nearest);
+        List<double[]> sorted = new ArrayList<>(nearest);
+        sorted.sort(Comparator.comparingDouble(entry -> entry[1]));
+        List<GeoLocationData> found = new ArrayList<>(sorted.size());
+        sorted.forEach(entry -> found.add(geoLocations[(int) entry[0]]));
+        return found;
+    }
+
+    /**
+     * Sort the [from, to) range so that its median is at its middle along the given axis, and recurse on both halves
+     */
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        select(from, to - 1, median, axis);
+        build(from, median, (axis + 1) % DIMENSIONS);
+        build(median + 1, to, (axis + 1) % DIMENSIONS);
+    }
+
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points[(left + right) >>> 1][axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[i][axis] < pivot) {
+                    i++;
+                }
+                while (points[j][axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        double[] point = points[i];
+        points[i] = points[j];
+        points[j] = point;
+        GeoLocationData geoLocation = geoLocations[i];
+        geoLocations[i] = geoLocations[j];
+        geoLocations[j] = geoLocation;
+    }
+
+    private void searchWithin(int from, int to, int axis, double[] target, double maxSquaredChord,
+            List<GeoLocationData> found) {
+        if (from >= to) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        if (squaredDistance(points[median], target) <= maxSquaredChord) {
+            found.add(geoLocations[median]);
+        }
+        double delta = target[axis] - points[median][axis];
+        int nextAxis = (axis + 1) % DIMENSIONS;
+        if (delta <= 0 || delta * delta <= maxSquaredChord) {
+            searchWithin(from, median, nextAxis, target, maxSquaredChord, found);
+        }
+        if (delta >= 0 || delta * delta <= maxSquaredChord) {
+            searchWithin(median + 1, to, nextAxis, target, maxSquaredChord, found);
+        }
+    }
+
+    private void searchNearest(int from, int to, int axis, double[] target, int k, PriorityQueue<double[]> nearest) {
+        if (from >= to) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        double squaredDistance = squaredDistance(points[median], target);
+        if (nearest.size() < k) {
+            nearest.add(new double[] { median, squaredDistance });
+        } else if (squaredDistance < nearest.peek()[1]) {
+            nearest.poll();
+            nearest.add(new double[] { median, squaredDistance });
+        }
+        double delta = target[axis] - points[median][axis];
+        int nextAxis = (axis + 1) % DIMENSIONS;
+        // visit the side of the target first, then the other side only if it can still hold a nearer point
+        if (delta <= 0) {
+            searchNearest(from, median, nextAxis, target, k, nearest);
+        } else {
+            searchNearest(median + 1, to, nextAxis, target, k, nearest);
+        }
+        if (nearest.size() < k || delta * delta < nearest.peek()[1]) {
+            if (delta <= 0) {
+                searchNearest(median + 1, to, nextAxis, target, k, nearest);
+            } else {
+                searchNearest(from, median, nextAxis, target, k, nearest);
+            }
+        }
+    }
+
+    private static double[] toPoint(double latitude, double longitude) {
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        return new double[] { Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi) };
+    }
+
+    private static double toChord(double distanceKm) {
+        double angle = Math.min(distanceKm / GeoLocationUtils.EARTH_RADIUS_KM, Math.PI);
+        return 2 * Math.sin(angle / 2);
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -5,13 +5,11 @@
  */
 package org.ow2.proactive.sal.service.util;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.io.InputStream;
+import java.util.*;
 
+import org.ow2.proactive.sal.model.CloudProviderType;
 import org.ow2.proactive.sal.model.GeoLocationData;
 
 import com.fasterxml.jackson.databind.MappingIterator;
@@ -20,28 +18,53 @@ import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 
 
+/**
+ * Geo locations of the cloud regions, loaded once from the classpath.
+ * The regions are indexed by (cloud, region) for the lookups, and by coordinates for the spatial queries.
+ */
 @Getter
-@Setter
 @Log4j2
 public class GeoLocationUtils {
 
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final String CLOUD_REGIONS_RESOURCE = "/db_cloud_regions.csv";
+
     private final List<GeoLocationData> cloudsGeoLocationData;
 
-    public GeoLocationUtils() {
-        cloudsGeoLocationData = chargeCloudGLsDB();
+    private final Map<String, GeoLocationData> cloudRegionIndex;
+
+    private final GeoLocationIndex spatialIndex;
+
+    private GeoLocationUtils() {
+        cloudsGeoLocationData = Collections.unmodifiableList(chargeCloudGLsDB());
+        cloudRegionIndex = new HashMap<>(cloudsGeoLocationData.size() * 2);
+        // the first entry of a (cloud, region) pair wins, as with the former linear lookup
+        cloudsGeoLocationData.forEach(cloudGL -> cloudRegionIndex.putIfAbsent(cloudRegionKey(cloudGL.getCloud(),
+                                                                                             cloudGL.getRegion()),
+                                                                              cloudGL));
+        spatialIndex = new GeoLocationIndex(cloudsGeoLocationData);
         LOGGER.debug("Clouds GeoLocation Database loaded successfully.");
     }
 
+    /**
+     * Get the geo locations database, loading it on the first call
+     * @return The shared instance
+     */
+    public static GeoLocationUtils getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
     private List<GeoLocationData> chargeCloudGLsDB() {
         LOGGER.info("Charging Cloud GeoLocations DB ...");
-        List<GeoLocationData> cloudsGLDB = new LinkedList<>();
-        File input = null;
-        try {
-            input = TemporaryFilesHelper.createTempFileFromResource(File.separator + "db_cloud_regions.csv");
+        List<GeoLocationData> cloudsGLDB = new ArrayList<>();
+        try (InputStream input = GeoLocationUtils.class.getResourceAsStream(CLOUD_REGIONS_RESOURCE)) {
+            if (input == null) {
+                throw new IOException("Resource " + CLOUD_REGIONS_RESOURCE + " not found");
+            }
             CsvSchema csv = CsvSchema.emptySchema().withHeader().withColumnSeparator(' ').withNullValue("");
             CsvMapper csvMapper = new CsvMapper();
             ObjectReader objectReader = csvMapper.readerFor(Map.class).with(csv);
@@ -55,22 +78,80 @@ public class GeoLocationUtils {
                                                                    Double.valueOf(map.get("LONGITUDE").toString()),
                                                                    map.get("REGION").toString(),
                                                                    map.get("CLOUD").toString())));
-            LOGGER.info("Cloud GeoLocations DB loaded successfully: " + cloudsGLDB);
+            LOGGER.info("Cloud GeoLocations DB loaded successfully: {} regions", cloudsGLDB.size());
         } catch (IOException ioe) {
             LOGGER.error("Charging the Geolocation database failed due to: " + Arrays.toString(ioe.getStackTrace()));
         } catch (Exception e) {
             LOGGER.error("An unexpected error occurred while processing GeoLocation data: " + e.getMessage(), e);
         }
-
-        TemporaryFilesHelper.delete(input);
         return cloudsGLDB;
     }
 
     public GeoLocationData findGeoLocation(String cloud, String region) {
-        return cloudsGeoLocationData.stream()
-                                    .filter(cloudGL -> cloud.equals(cloudGL.getCloud()) &&
-                                                       region.equals(cloudGL.getRegion()))
-                                    .findAny()
-                                    .orElse(new GeoLocationData());
+        GeoLocationData cloudGL = cloudRegionIndex.get(cloudRegionKey(cloud, region));
+        return cloudGL == null ? new GeoLocationData() : cloudGL;
+    }
+
+    /**
+     * Find the cloud regions within a distance of a point
+     * @param latitude The latitude of the point, in degrees
+     * @param longitude The longitude of the point, in degrees
+     * @param radiusKm The maximum great-circle distance, in kilometers
+     * @return The regions found, in no particular order
+     */
+    public List<GeoLocationData> findGeoLocationsWithin(double latitude, double longitude, double radiusKm) {
+        return spatialIndex.findWithin(latitude, longitude, radiusKm);
+    }
+
+    /**
+     * Find the cloud regions nearest to a point
+     * @param latitude The latitude of the point, in degrees
+     * @param longitude The longitude of the point, in degrees
+     * @param k The number of regions to find
+     * @return At most k regions, from the nearest to the farthest
+     */
+    public List<GeoLocationData> findNearestGeoLocations(double latitude, double longitude, int k) {
+        return spatialIndex.findNearest(latitude, longitude, k);
+    }
+
+    /**
+     * Get the cloud of the regions of a cloud provider in the database
+     * @param cloudProvider The cloud provider
+     * @return The cloud, as in {@link #findGeoLocation(String, String)}, or null if its regions are not known
+     */
+    public static String getRegionsCloud(CloudProviderType cloudProvider) {
+        switch (cloudProvider) {
+            case AWS_EC2:
+                return "AWS";
+            case AZURE:
+                return "Azure";
+            case GCE:
+                return "GCE";
+            case OPENSTACK:
+                return "OVH";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Compute the great-circle distance between two points, with the haversine formula
+     * @return The distance, in kilometers
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinHalfDeltaLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinHalfDeltaLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinHalfDeltaLatitude * sinHalfDeltaLatitude +
+                   Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinHalfDeltaLongitude *
+                                                         sinHalfDeltaLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static String cloudRegionKey(String cloud, String region) {
+        return cloud + '\n' + region;
+    }
+
+    private static class InstanceHolder {
+        private static final GeoLocationUtils INSTANCE = new GeoLocationUtils();
     }
 }
@@ -12,60 +12,45 @@ import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
 import lombok.extern.log4j.Log4j2;
 
 
+/**
+ * Stateless helpers to open and close Scheduler sessions. The sessions themselves are kept by
+ * {@link org.ow2.proactive.sal.service.service.PASessionPool}.
+ */
 @Log4j2
 public class SchedulerConnectionHelper {
 
     private static final String SCHEDULER_REST_PATH = "/rest";
 
-    private static RestSmartProxyImpl restSmartProxy = new RestSmartProxyImpl();
-
-    private static String paURL;
-
-    // For testing purpose only
-    private static boolean isActive;
-
-    /**
-     * Initialize the gateway URL
-     *
-     * @param url URL for the ProActive Rest service
-     */
-    public static void init(String url) {
-        paURL = url;
+    private SchedulerConnectionHelper() {
+        throw new IllegalStateException("Utility class");
     }
 
     /**
-     * Connect to the Scheduler gateway
+     * Connect to the Scheduler with a new proxy
      *
+     * @param paURL URL for the ProActive Rest service
      * @param username Username
      * @param password Password
-     * @return The initialized Scheduler gateway
+     * @return The connected Scheduler proxy
      */
-    public static synchronized RestSmartProxyImpl connect(String username, String password) {
-        //LOGGER.debug("Connecting to Scheduler ...");
+    public static RestSmartProxyImpl connect(String paURL, String username, String password) {
         //TODO: TO improve the concatenation of URLs
         ConnectionInfo connectionInfo = new ConnectionInfo(paURL + SCHEDULER_REST_PATH, username, password, null, true);
-        // Check if the proxy is connected
-        // If not make a new connection
-        if (!restSmartProxy.isConnected()) {
-            restSmartProxy.init(connectionInfo);
-            LOGGER.info("Connected to Scheduler");
-        } else {
-            //LOGGER.info("Already connected to Scheduler");
-        }
-        isActive = true;
+        RestSmartProxyImpl restSmartProxy = new RestSmartProxyImpl();
+        restSmartProxy.init(connectionInfo);
+        LOGGER.info("Connected to Scheduler as {}", username);
         return restSmartProxy;
     }
 
     /**
-     * Disconnect from the Scheduler
+     * Disconnect a proxy from the Scheduler
      *
-     * @return The disconnected Scheduler gateway
+     * @param restSmartProxy The Scheduler proxy to disconnect
      */
-    public static synchronized RestSmartProxyImpl disconnect() {
+    public static void disconnect(RestSmartProxyImpl restSmartProxy) {
         try {
             if (restSmartProxy.isConnected()) {
                 restSmartProxy.disconnect();
-                isActive = false;
                 LOGGER.info("Disconnected from Scheduler");
             } else {
                 LOGGER.info("Already disconnected from Scheduler");
@@ -73,19 +58,5 @@ public class SchedulerConnectionHelper {
         } catch (PermissionException e) {
             LOGGER.warn("WARNING: Not able to disconnect due to: " + e.toString());
         }
-        return restSmartProxy;
-    }
-
-    // All of the following methods are used for Test Driven Dev
-    public static boolean getIsActive() {
-        return isActive;
-    }
-
-    public static String getPaURL() {
-        return paURL;
-    }
-
-    public static void setRestSmartProxy(RestSmartProxyImpl restSmartProxy) {
-        SchedulerConnectionHelper.restSmartProxy = restSmartProxy;
     }
 }
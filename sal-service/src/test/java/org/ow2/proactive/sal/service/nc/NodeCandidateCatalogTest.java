@@ -0,0 +1,225 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.repository.NodeCandidateRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class NodeCandidateCatalogTest {
+
+    private static final String[] REGIONS = { "eu-west-3", "us-east-1", "ap-south-1" };
+
+    private static final String[] COUNTRIES = { "France", "US", "India" };
+
+    private final NodeCandidateCatalog catalog = new NodeCandidateCatalog();
+
+    // the node candidates that should be held by the catalog, to be filtered linearly
+    private final Map<String, NodeCandidate> expected = new TreeMap<>();
+
+    @Before
+    public void init() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            NodeCandidate nodeCandidate = nodeCandidate(String.format("nc-%03d", 199 - i), random);
+            expected.put(nodeCandidate.getId(), nodeCandidate);
+        }
+        NodeCandidateRepository nodeCandidateRepository = mock(NodeCandidateRepository.class);
+        when(nodeCandidateRepository.findAll()).thenReturn(new ArrayList<>(expected.values()));
+        ReflectionTestUtils.setField(catalog, "nodeCandidateRepository", nodeCandidateRepository);
+    }
+
+    @Test
+    public void testIndexesMatchLinearFilter() {
+        assertIndexesMatchLinearFilter();
+    }
+
+    @Test
+    public void testResultsInIdOrder() {
+        List<String> ids = ids(catalog.findNodeCandidates(null));
+        assertThat(ids, is(new ArrayList<>(expected.keySet())));
+        List<String> selectedIds = ids(catalog.findNodeCandidates(Collections.singletonList(requirement("hardware",
+                                                                                                        "cores",
+                                                                                                        RequirementOperator.GEQ,
+                                                                                                        "4"))));
+        List<String> sortedIds = new ArrayList<>(selectedIds);
+        Collections.sort(sortedIds);
+        assertThat(selectedIds, is(sortedIds));
+    }
+
+    @Test
+    public void testPutAndRemoveUpdateIndexes() {
+        catalog.size();
+        Random random = new Random(7);
+        long version = catalog.getVersion();
+        // replaced node candidates must leave their former index entries
+        for (int i = 0; i < 50; i++) {
+            NodeCandidate nodeCandidate = nodeCandidate(String.format("nc-%03d", i * 3), random);
+            catalog.put(nodeCandidate);
+            expected.put(nodeCandidate.getId(), nodeCandidate);
+        }
+        NodeCandidate added = nodeCandidate("nc-new", random);
+        catalog.put(added);
+        expected.put(added.getId(), added);
+        for (int i = 0; i < 20; i++) {
+            String id = String.format("nc-%03d", i * 7);
+            catalog.remove(id);
+            expected.remove(id);
+        }
+        assertThat(catalog.getVersion(), not(version));
+        assertIndexesMatchLinearFilter();
+    }
+
+    @Test
+    public void testUpdateAtomically() {
+        catalog.size();
+        long version = catalog.getVersion();
+        catalog.updateAtomically(() -> {
+            catalog.remove("nc-000");
+            catalog.remove("nc-001");
+            // the updates are only seen once the work is done
+            assertThat(catalog.size(), is(expected.size()));
+            assertThat(catalog.getVersion(), is(version));
+        });
+        expected.remove("nc-000");
+        expected.remove("nc-001");
+        assertThat(catalog.getVersion(), is(version + 1));
+        assertIndexesMatchLinearFilter();
+    }
+
+    @Test
+    public void testInvalidateReloads() {
+        catalog.size();
+        long version = catalog.getVersion();
+        catalog.invalidate();
+        assertThat(catalog.isLoaded(), is(false));
+        assertThat(catalog.getVersion(), is(version + 1));
+        assertThat(catalog.size(), is(expected.size()));
+    }
+
+    @Test
+    public void testWalkFrom() {
+        List<String> walked = new ArrayList<>();
+        catalog.walkFrom("nc-099", nodeCandidate -> {
+            walked.add(nodeCandidate.getId());
+            return walked.size() < 3;
+        });
+        assertThat(walked, is(Arrays.asList("nc-100", "nc-101", "nc-102")));
+        walked.clear();
+        catalog.walkFrom(null, nodeCandidate -> walked.add(nodeCandidate.getId()));
+        assertThat(walked, is(new ArrayList<>(expected.keySet())));
+    }
+
+    @Test
+    public void testStatisticsIgnoreMissingPrices() {
+        catalog.size();
+        NodeCandidate unpriced = nodeCandidate("nc-unpriced", new Random(3));
+        unpriced.setPrice(Double.NaN);
+        catalog.put(unpriced);
+        List<Double> prices = expected.values()
+                                      .stream()
+                                      .map(NodeCandidate::getPrice)
+                                      .sorted()
+                                      .collect(Collectors.toList());
+
+        NodeCandidateStatistics statistics = catalog.getStatistics();
+        assertThat(statistics.getCount(), is((long) expected.size() + 1));
+        assertThat(statistics.getMinPrice(), is(prices.get(0)));
+        assertThat(statistics.getMaxPrice(), is(prices.get(prices.size() - 1)));
+        assertThat(statistics.getMedianPrice(), is(prices.get((prices.size() - 1) / 2)));
+    }
+
+    private void assertIndexesMatchLinearFilter() {
+        for (Requirement requirement : indexedRequirements()) {
+            List<Requirement> requirements = Collections.singletonList(requirement);
+            Predicate<NodeCandidate> filter = RequirementCompiler.compile(requirements);
+            List<String> linearIds = ids(expected.values().stream().filter(filter).collect(Collectors.toList()));
+            assertThat(requirement.toString(), ids(catalog.findNodeCandidates(requirements)), is(linearIds));
+        }
+        List<Requirement> combined = Arrays.asList(requirement("hardware", "cores", RequirementOperator.GEQ, "4"),
+                                                   requirement("location", "name", RequirementOperator.EQ, REGIONS[0]),
+                                                   new NodeTypeRequirement(Collections.singletonList(NodeType.IAAS),
+                                                                           null,
+                                                                           null));
+        Predicate<NodeCandidate> filter = RequirementCompiler.compile(combined);
+        assertThat(ids(catalog.findNodeCandidates(combined)),
+                   is(ids(expected.values().stream().filter(filter).collect(Collectors.toList()))));
+    }
+
+    private static List<Requirement> indexedRequirements() {
+        List<Requirement> requirements = new ArrayList<>();
+        for (RequirementOperator operator : Arrays.asList(RequirementOperator.EQ,
+                                                          RequirementOperator.GEQ,
+                                                          RequirementOperator.GT,
+                                                          RequirementOperator.LEQ,
+                                                          RequirementOperator.LT)) {
+            requirements.add(requirement("hardware", "cores", operator, "4"));
+            requirements.add(requirement("hardware", "ram", operator, "8192"));
+            requirements.add(requirement("hardware", "disk", operator, "16.0"));
+            requirements.add(requirement("hardware", "gpu", operator, "1"));
+        }
+        requirements.add(requirement("location", "name", RequirementOperator.EQ, REGIONS[1]));
+        requirements.add(requirement("location", "geoLocation.country", RequirementOperator.EQ, COUNTRIES[2]));
+        requirements.add(requirement("image", "operatingSystem.family", RequirementOperator.EQ, "UBUNTU"));
+        requirements.add(requirement("cloud", "id", RequirementOperator.EQ, "cloud-0"));
+        requirements.add(new NodeTypeRequirement(Arrays.asList(NodeType.BYON, NodeType.EDGE), null, null));
+        return requirements;
+    }
+
+    private static AttributeRequirement requirement(String requirementClass, String attribute,
+            RequirementOperator operator, String value) {
+        return new AttributeRequirement(requirementClass, attribute, operator, value);
+    }
+
+    private static NodeCandidate nodeCandidate(String id, Random random) {
+        Hardware hardware = new Hardware();
+        hardware.setCores(1 << random.nextInt(4));
+        hardware.setRam(1024L << random.nextInt(5));
+        hardware.setDisk(8.0 * (1 + random.nextInt(3)));
+        hardware.setGpu(random.nextInt(3));
+
+        int region = random.nextInt(REGIONS.length);
+        Location location = new Location();
+        location.setName(REGIONS[region]);
+        location.setGeoLocation(new GeoLocation("", COUNTRIES[region], 0.0, 0.0));
+
+        OperatingSystem operatingSystem = new OperatingSystem();
+        operatingSystem.setOperatingSystemFamily(random.nextBoolean() ? OperatingSystemFamily.UBUNTU
+                                                                      : OperatingSystemFamily.CENTOS);
+        Image image = new Image();
+        image.setOperatingSystem(operatingSystem);
+
+        Cloud cloud = new Cloud();
+        cloud.setId("cloud-" + random.nextInt(3));
+
+        NodeCandidate nodeCandidate = new NodeCandidate();
+        nodeCandidate.setId(id);
+        nodeCandidate.setNodeCandidateType(NodeCandidate.NodeCandidateTypeEnum.values()[random.nextInt(NodeCandidate.NodeCandidateTypeEnum.values().length)]);
+        nodeCandidate.setHardware(hardware);
+        nodeCandidate.setLocation(location);
+        nodeCandidate.setImage(image);
+        nodeCandidate.setCloud(cloud);
+        nodeCandidate.setPrice(random.nextInt(10) * 0.1);
+        return nodeCandidate;
+    }
+
+    private static List<String> ids(List<NodeCandidate> nodeCandidates) {
+        return nodeCandidates.stream().map(NodeCandidate::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.ow2.proactive.sal.model.*;
+
+
+public class NodeCandidateQueryCacheTest {
+
+    private final AttributeRequirement cores = new AttributeRequirement("hardware",
+                                                                        "cores",
+                                                                        RequirementOperator.GEQ,
+                                                                        "2");
+
+    private final AttributeRequirement country = new AttributeRequirement("location",
+                                                                          "geoLocation.country",
+                                                                          RequirementOperator.EQ,
+                                                                          "France");
+
+    @Test
+    public void testOrderAndDuplicatesDoNotMatter() {
+        NodeTypeRequirement nodeTypes = new NodeTypeRequirement(Arrays.asList(NodeType.IAAS, NodeType.BYON),
+                                                                null,
+                                                                null);
+        NodeTypeRequirement sameNodeTypes = new NodeTypeRequirement(Arrays.asList(NodeType.BYON,
+                                                                                  NodeType.IAAS,
+                                                                                  NodeType.IAAS),
+                                                                    null,
+                                                                    null);
+        assertThat(NodeCandidateQueryCache.canonicalForm(Arrays.asList(nodeTypes, cores, country)),
+                   is(NodeCandidateQueryCache.canonicalForm(Arrays.asList(country, sameNodeTypes, cores, cores))));
+    }
+
+    @Test
+    public void testValuesMatter() {
+        AttributeRequirement moreCores = new AttributeRequirement("hardware", "cores", RequirementOperator.GEQ, "4");
+        assertThat(NodeCandidateQueryCache.canonicalForm(Collections.singletonList(cores)),
+                   not(NodeCandidateQueryCache.canonicalForm(Collections.singletonList(moreCores))));
+    }
+
+    @Test
+    public void testNoRequirements() {
+        assertThat(NodeCandidateQueryCache.canonicalForm(null),
+                   is(NodeCandidateQueryCache.canonicalForm(Collections.emptyList())));
+    }
+}
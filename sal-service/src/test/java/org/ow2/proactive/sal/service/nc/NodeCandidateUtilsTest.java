@@ -0,0 +1,280 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ow2.proactive.sal.model.*;
+import org.ow2.proactive.sal.service.repository.NodeCandidateRepository;
+import org.ow2.proactive.sal.service.service.RepositoryService;
+import org.ow2.proactive.sal.service.service.infrastructure.PAConnectorIaasGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.connector.*;
+import org.ow2.proactive.sal.service.util.GeoLocationUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class NodeCandidateUtilsTest {
+
+    private static final String CLOUD_ID = "cloud-1";
+
+    private static final String REGION = "eu-west-3";
+
+    private static final String IMAGE_ID = REGION + "/ami-1";
+
+    private final NodeCandidateUtils nodeCandidateUtils = new NodeCandidateUtils();
+
+    private final RepositoryService repositoryService = mock(RepositoryService.class);
+
+    private final PAConnectorIaasGateway connectorIaasGateway = mock(PAConnectorIaasGateway.class);
+
+    private final Map<String, Hardware> storedHardware = new HashMap<>();
+
+    private Location storedLocation;
+
+    private Image storedImage;
+
+    private Cloud storedCloud;
+
+    @Before
+    public void setUp() {
+        NodeCandidateCatalog nodeCandidateCatalog = new NodeCandidateCatalog();
+        NodeCandidateRepository nodeCandidateRepository = mock(NodeCandidateRepository.class);
+        when(nodeCandidateRepository.findAll()).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(nodeCandidateCatalog, "nodeCandidateRepository", nodeCandidateRepository);
+
+        ReflectionTestUtils.setField(nodeCandidateUtils, "repositoryService", repositoryService);
+        ReflectionTestUtils.setField(nodeCandidateUtils, "connectorIaasGateway", connectorIaasGateway);
+        ReflectionTestUtils.setField(nodeCandidateUtils, "connectorResponseCache", mock(ConnectorResponseCache.class));
+        ReflectionTestUtils.setField(nodeCandidateUtils, "nodeCandidateCatalog", nodeCandidateCatalog);
+        ReflectionTestUtils.setField(nodeCandidateUtils, "refreshThreads", 2);
+        ReflectionTestUtils.setField(nodeCandidateUtils, "maxPendingPages", 2);
+        ReflectionTestUtils.invokeMethod(nodeCandidateUtils, "init");
+
+        PACloud paCloud = new PACloud();
+        paCloud.setCloudId(CLOUD_ID);
+        paCloud.setCloudProvider(CloudProviderType.AWS_EC2);
+        paCloud.setBlacklist("");
+        paCloud.setDummyInfrastructureName("dummy");
+        when(repositoryService.getPACloud(CLOUD_ID)).thenReturn(paCloud);
+
+        storedCloud = new Cloud();
+        storedCloud.setId(CLOUD_ID);
+        storedCloud.setApi(new Api("aws-ec2"));
+        storedLocation = new Location();
+        storedLocation.setId(CLOUD_ID + "/" + REGION);
+        storedLocation.setName(REGION);
+        storedLocation.setProviderId(REGION);
+        storedLocation.setGeoLocation(new GeoLocation(GeoLocationUtils.getInstance().findGeoLocation("AWS", REGION)));
+        storedImage = new Image();
+        storedImage.setId(CLOUD_ID + "/" + IMAGE_ID);
+        storedImage.setName("ubuntu");
+        storedImage.setProviderId("ami-1");
+        OperatingSystem operatingSystem = new OperatingSystem();
+        operatingSystem.setOperatingSystemFamily(OperatingSystemFamily.UBUNTU);
+        operatingSystem.setOperatingSystemArchitecture(OperatingSystemArchitecture.AMD64);
+        operatingSystem.setOperatingSystemVersion(BigDecimal.valueOf(0));
+        storedImage.setOperatingSystem(operatingSystem);
+        storedImage.setLocation(storedLocation);
+
+        when(repositoryService.getCloud(CLOUD_ID)).thenReturn(storedCloud);
+        when(repositoryService.getLocation(storedLocation.getId())).thenReturn(storedLocation);
+        when(repositoryService.getImage(storedImage.getId())).thenReturn(storedImage);
+        when(repositoryService.getHardware(anyString())).thenAnswer(invocation -> {
+            return storedHardware.get(invocation.getArguments()[0]);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(nodeCandidateUtils, "shutdownRefreshExecutor");
+    }
+
+    @Test
+    public void testSyncCounts() {
+        // stored: one unchanged, one whose price changed, one whose hardware changed and one that is gone
+        List<NodeCandidate> stored = Arrays.asList(storedNodeCandidate("nc-1", "t2.micro", 1, 0.1),
+                                                   storedNodeCandidate("nc-2", "t2.small", 1, 0.2),
+                                                   storedNodeCandidate("nc-3", "m5.large", 2, 0.3),
+                                                   storedNodeCandidate("nc-4", "c5.xlarge", 4, 0.4));
+        when(repositoryService.listIaasNodeCandidates(CLOUD_ID)).thenReturn(stored);
+        Hardware m5Large = storedHardware.get(CLOUD_ID + "/" + REGION + "/m5.large");
+        // fetched: the same unchanged one, the new prices and cores, and a new one
+        mockConnector(connectorNodeCandidate("t2.micro", 1, 0.1),
+                      connectorNodeCandidate("t2.small", 1, 0.25),
+                      connectorNodeCandidate("m5.large", 4, 0.3),
+                      connectorNodeCandidate("t3.large", 2, 0.5));
+
+        assertThat(nodeCandidateUtils.syncCloudNodeCandidates(CLOUD_ID), is(true));
+
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeNew)).size(), is(1));
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeChanged)), is(Arrays.asList("nc-2", "nc-3")));
+        assertThat(ids(captured(NodeCandidateUtilsTest::delete)), is(Collections.singletonList("nc-4")));
+        assertThat(stored.get(1).getPrice(), is(0.25));
+        // the stored hardware is updated in place, and kept by its node candidate
+        verify(repositoryService).saveHardware(m5Large);
+        assertThat(stored.get(2).getHardware(), sameInstance(m5Large));
+        assertThat(m5Large.getCores(), is(4));
+        verify(repositoryService, never()).saveLocation(any(Location.class));
+        verify(repositoryService, never()).saveImage(any(Image.class));
+    }
+
+    @Test
+    public void testLocationChangeUpdatesItsNodeCandidates() {
+        List<NodeCandidate> stored = Arrays.asList(storedNodeCandidate("nc-1", "t2.micro", 1, 0.1),
+                                                   storedNodeCandidate("nc-2", "t2.small", 1, 0.2));
+        when(repositoryService.listIaasNodeCandidates(CLOUD_ID)).thenReturn(stored);
+        storedLocation.setGeoLocation(new GeoLocation("Paris", "FR", 0.0, 0.0));
+        mockConnector(connectorNodeCandidate("t2.micro", 1, 0.1), connectorNodeCandidate("t2.small", 1, 0.2));
+
+        nodeCandidateUtils.syncCloudNodeCandidates(CLOUD_ID);
+
+        verify(repositoryService).saveLocation(storedLocation);
+        assertThat(storedLocation.getGeoLocation(),
+                   is(new GeoLocation(GeoLocationUtils.getInstance().findGeoLocation("AWS", REGION))));
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeNew)).size(), is(0));
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeChanged)), is(Arrays.asList("nc-1", "nc-2")));
+        assertThat(ids(captured(NodeCandidateUtilsTest::delete)).size(), is(0));
+    }
+
+    @Test
+    public void testFailedFetchKeepsTheStoredNodeCandidates() {
+        List<NodeCandidate> stored = Arrays.asList(storedNodeCandidate("nc-1", "t2.micro", 1, 0.1),
+                                                   storedNodeCandidate("nc-2", "t2.small", 1, 0.2));
+        when(repositoryService.listIaasNodeCandidates(CLOUD_ID)).thenReturn(stored);
+        mockConnector(connectorNodeCandidate("t2.micro", 1, 0.1));
+        ConnectorNodeCandidatesPage firstPage = connectorIaasGateway.getNodeCandidates("dummy", REGION, "Linux", "");
+        firstPage.setNextToken("page-2");
+        when(connectorIaasGateway.getNodeCandidates("dummy",
+                                                    REGION,
+                                                    "Linux",
+                                                    "page-2")).thenThrow(new RuntimeException("connector down"));
+
+        assertThat(nodeCandidateUtils.syncCloudNodeCandidates(CLOUD_ID), is(true));
+
+        // the fetched page is still stored, but the node candidates that were not fetched are not deleted
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeNew)).size(), is(0));
+        assertThat(ids(captured(NodeCandidateUtilsTest::storeChanged)).size(), is(0));
+        assertThat(ids(captured(NodeCandidateUtilsTest::delete)).size(), is(0));
+    }
+
+    @Test
+    public void testRegionStoredInOneTransaction() {
+        when(repositoryService.listIaasNodeCandidates(CLOUD_ID)).thenReturn(Collections.emptyList());
+        mockConnector(connectorNodeCandidate("t2.micro", 1, 0.1));
+        connectorIaasGateway.getNodeCandidates("dummy", REGION, "Linux", "").setNextToken("page-2");
+        ConnectorNodeCandidatesPage secondPage = new ConnectorNodeCandidatesPage();
+        secondPage.setNodeCandidates(Collections.singletonList(connectorNodeCandidate("t2.small", 1, 0.2)));
+        when(connectorIaasGateway.getNodeCandidates("dummy", REGION, "Linux", "page-2")).thenReturn(secondPage);
+
+        nodeCandidateUtils.syncCloudNodeCandidates(CLOUD_ID);
+
+        // the pages of the region are stored together
+        verify(repositoryService).storeIaasNodeCandidates(anyListOf(NodeCandidate.class),
+                                                          anyListOf(NodeCandidate.class));
+        assertThat(captured(NodeCandidateUtilsTest::storeNew).size(), is(2));
+    }
+
+    private void mockConnector(ConnectorNodeCandidate... nodeCandidates) {
+        ConnectorOperatingSystem operatingSystem = new ConnectorOperatingSystem();
+        operatingSystem.setFamily("ubuntu");
+        operatingSystem.set64Bit(true);
+        ConnectorImage image = new ConnectorImage();
+        image.setId(IMAGE_ID);
+        image.setName("ubuntu");
+        image.setLocation(REGION);
+        image.setOperatingSystem(operatingSystem);
+        when(connectorIaasGateway.getImages("dummy")).thenReturn(Collections.singletonList(image));
+        ConnectorNodeCandidatesPage page = new ConnectorNodeCandidatesPage();
+        page.setNodeCandidates(Arrays.asList(nodeCandidates));
+        when(connectorIaasGateway.getNodeCandidates("dummy", REGION, "Linux", "")).thenReturn(page);
+    }
+
+    private static ConnectorNodeCandidate connectorNodeCandidate(String type, int cores, double price) {
+        ConnectorHardware hardware = new ConnectorHardware();
+        hardware.setType(type);
+        hardware.setMinCores(String.valueOf(cores));
+        hardware.setMinRam("2048");
+        hardware.setMinFreq("2.5");
+        ConnectorNodeCandidate nodeCandidate = new ConnectorNodeCandidate();
+        nodeCandidate.setCloud("aws-ec2");
+        nodeCandidate.setRegion(REGION);
+        nodeCandidate.setPrice(price);
+        nodeCandidate.setHw(hardware);
+        return nodeCandidate;
+    }
+
+    private NodeCandidate storedNodeCandidate(String id, String type, int cores, double price) {
+        Hardware hardware = new Hardware();
+        hardware.setId(CLOUD_ID + "/" + REGION + "/" + type);
+        hardware.setName(type);
+        hardware.setProviderId(type);
+        hardware.setCores(cores);
+        hardware.setRam(2048L);
+        hardware.setCpuFrequency(2.5);
+        hardware.setCloudFpga(CloudProviderType.AWS_EC2, type);
+        hardware.setCloudGpu(CloudProviderType.AWS_EC2, type);
+        hardware.setDisk(8.0);
+        hardware.setLocation(storedLocation);
+        storedHardware.put(hardware.getId(), hardware);
+
+        NodeCandidate nodeCandidate = new NodeCandidate();
+        nodeCandidate.setId(id);
+        nodeCandidate.setNodeCandidateType(NodeCandidate.NodeCandidateTypeEnum.IAAS);
+        nodeCandidate.setCloud(storedCloud);
+        nodeCandidate.setLocation(storedLocation);
+        nodeCandidate.setImage(storedImage);
+        nodeCandidate.setHardware(hardware);
+        nodeCandidate.setPrice(price);
+        nodeCandidate.setPricePerInvocation(0.0);
+        nodeCandidate.setMemoryPrice(0.0);
+        return nodeCandidate;
+    }
+
+    /**
+     * @return The node candidates given to all the calls of a repository method, whether there was any call or not
+     */
+    @SuppressWarnings("unchecked")
+    private List<NodeCandidate> captured(BiConsumer<RepositoryService, ArgumentCaptor<List>> method) {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        method.accept(verify(repositoryService, atLeast(0)), captor);
+        List<NodeCandidate> nodeCandidates = new ArrayList<>();
+        captor.getAllValues().forEach(nodeCandidates::addAll);
+        return nodeCandidates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void storeNew(RepositoryService repositoryService, ArgumentCaptor<List> captor) {
+        repositoryService.storeIaasNodeCandidates(captor.capture(), anyListOf(NodeCandidate.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void storeChanged(RepositoryService repositoryService, ArgumentCaptor<List> captor) {
+        repositoryService.storeIaasNodeCandidates(anyListOf(NodeCandidate.class), captor.capture());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void delete(RepositoryService repositoryService, ArgumentCaptor<List> captor) {
+        repositoryService.deleteNodeCandidates(captor.capture());
+    }
+
+    private static List<String> ids(List<NodeCandidate> nodeCandidates) {
+        return nodeCandidates.stream().map(NodeCandidate::getId).sorted().collect(Collectors.toList());
+    }
+}
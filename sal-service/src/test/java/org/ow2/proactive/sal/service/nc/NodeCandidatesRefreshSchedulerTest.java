@@ -0,0 +1,136 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ow2.proactive.sal.model.PACloud;
+import org.ow2.proactive.sal.service.service.RepositoryService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class NodeCandidatesRefreshSchedulerTest {
+
+    private final NodeCandidatesRefreshScheduler refreshScheduler = new NodeCandidatesRefreshScheduler();
+
+    private final NodeCandidateUtils nodeCandidateUtils = mock(NodeCandidateUtils.class);
+
+    private final RepositoryService repositoryService = mock(RepositoryService.class);
+
+    // released at the end of every test, so that no refresh stays blocked
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger runningRefreshes = new AtomicInteger();
+
+    private final AtomicInteger maxRunningRefreshes = new AtomicInteger();
+
+    private final CountDownLatch startedRefreshes = new CountDownLatch(2);
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(refreshScheduler, "nodeCandidateUtils", nodeCandidateUtils);
+        ReflectionTestUtils.setField(refreshScheduler, "repositoryService", repositoryService);
+        ReflectionTestUtils.setField(refreshScheduler, "intervalMinutes", 60L);
+        ReflectionTestUtils.setField(refreshScheduler, "jitterSeconds", 0L);
+        ReflectionTestUtils.setField(refreshScheduler, "maxConcurrentClouds", 2);
+        when(repositoryService.getPACloud(anyString())).thenReturn(new PACloud());
+        when(nodeCandidateUtils.syncCloudNodeCandidates(anyString())).thenAnswer(invocation -> {
+            maxRunningRefreshes.accumulateAndGet(runningRefreshes.incrementAndGet(), Math::max);
+            startedRefreshes.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } finally {
+                runningRefreshes.decrementAndGet();
+            }
+            return true;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "shutdown");
+    }
+
+    @Test
+    public void testJitter() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        ReflectionTestUtils.setField(refreshScheduler, "scheduler", scheduler);
+        ReflectionTestUtils.setField(refreshScheduler, "jitterSeconds", 300L);
+        mockClouds(20);
+
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "scheduleRefreshes");
+
+        ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler, times(20)).schedule(any(Runnable.class), delays.capture(), eq(TimeUnit.MILLISECONDS));
+        assertTrue(delays.getAllValues()
+                         .stream()
+                         .allMatch(delay -> delay >= 0 && delay < TimeUnit.SECONDS.toMillis(300)));
+        assertTrue(delays.getAllValues().stream().distinct().count() > 1);
+    }
+
+    @Test
+    public void testMaxConcurrentClouds() throws Exception {
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "init");
+        mockClouds(4);
+
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "scheduleRefreshes");
+
+        assertTrue(startedRefreshes.await(10, TimeUnit.SECONDS));
+        // leave the time to the other refreshes to start if they were not capped
+        Thread.sleep(200);
+        assertThat(maxRunningRefreshes.get(), is(2));
+        verify(nodeCandidateUtils, times(2)).syncCloudNodeCandidates(anyString());
+
+        release.countDown();
+        verify(nodeCandidateUtils, timeout(10000).times(4)).syncCloudNodeCandidates(anyString());
+        assertThat(maxRunningRefreshes.get(), is(2));
+    }
+
+    @Test
+    public void testScheduledCloudsNotQueuedAgain() throws Exception {
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "init");
+        mockClouds(2);
+
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "scheduleRefreshes");
+        assertTrue(startedRefreshes.await(10, TimeUnit.SECONDS));
+        // the refreshes of the previous run are not finished
+        ReflectionTestUtils.invokeMethod(refreshScheduler, "scheduleRefreshes");
+        release.countDown();
+
+        verify(nodeCandidateUtils, timeout(10000)).syncCloudNodeCandidates("cloud-0");
+        verify(nodeCandidateUtils, timeout(10000)).syncCloudNodeCandidates("cloud-1");
+        Thread.sleep(200);
+        verify(nodeCandidateUtils, times(2)).syncCloudNodeCandidates(anyString());
+    }
+
+    private void mockClouds(int count) {
+        List<PACloud> clouds = IntStream.range(0, count).mapToObj(i -> {
+            PACloud paCloud = new PACloud();
+            paCloud.setCloudId("cloud-" + i);
+            return paCloud;
+        }).collect(Collectors.toList());
+        when(repositoryService.listPACloud()).thenReturn(clouds);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.nc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.sal.model.*;
+
+
+public class RequirementCompilerTest {
+
+    private NodeCandidate nodeCandidate;
+
+    @Before
+    public void init() {
+        Hardware hardware = new Hardware();
+        hardware.setName("t3.large");
+        hardware.setCores(2);
+        hardware.setRam(8192L);
+        hardware.setDisk(8.0);
+
+        OperatingSystem operatingSystem = new OperatingSystem();
+        operatingSystem.setOperatingSystemFamily(OperatingSystemFamily.UBUNTU);
+        Image image = new Image();
+        image.setOperatingSystem(operatingSystem);
+
+        Cloud cloud = new Cloud();
+        cloud.setId("aws-cloud");
+        cloud.setCloudType(CloudType.PUBLIC);
+        cloud.setApi(new Api("aws-ec2"));
+
+        Location location = new Location();
+        location.setName("eu-west-3");
+        location.setGeoLocation(new GeoLocation("Paris", "France", 48.8566, 2.3522));
+
+        nodeCandidate = new NodeCandidate();
+        nodeCandidate.setNodeCandidateType(NodeCandidate.NodeCandidateTypeEnum.IAAS);
+        nodeCandidate.setHardware(hardware);
+        nodeCandidate.setImage(image);
+        nodeCandidate.setCloud(cloud);
+        nodeCandidate.setLocation(location);
+    }
+
+    @Test
+    public void testEmptyRequirements() {
+        assertThat(RequirementCompiler.compile(null).test(nodeCandidate), is(true));
+        assertThat(RequirementCompiler.compile(Collections.emptyList()).test(nodeCandidate), is(true));
+    }
+
+    @Test
+    public void testHardwareRequirements() {
+        assertThat(RequirementCompiler.compile(Arrays.asList(new AttributeRequirement("hardware",
+                                                                                      "cores",
+                                                                                      RequirementOperator.GEQ,
+                                                                                      "2"),
+                                                             new AttributeRequirement("hardware",
+                                                                                      "ram",
+                                                                                      RequirementOperator.LT,
+                                                                                      "16384")))
+                                      .test(nodeCandidate),
+                   is(true));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("hardware",
+                                                                                                  "cores",
+                                                                                                  RequirementOperator.GT,
+                                                                                                  "2")))
+                                      .test(nodeCandidate),
+                   is(false));
+    }
+
+    @Test
+    public void testMissingHardwareAttributeDoesNotMatch() {
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("hardware",
+                                                                                                  "gpu",
+                                                                                                  RequirementOperator.GEQ,
+                                                                                                  "1")))
+                                      .test(nodeCandidate),
+                   is(false));
+    }
+
+    @Test
+    public void testEnumRequirements() {
+        assertThat(RequirementCompiler.compile(Arrays.asList(new AttributeRequirement("image",
+                                                                                      "operatingSystem.family",
+                                                                                      RequirementOperator.EQ,
+                                                                                      "UBUNTU"),
+                                                             new AttributeRequirement("Cloud",
+                                                                                      "type",
+                                                                                      RequirementOperator.NEQ,
+                                                                                      "PRIVATE")))
+                                      .test(nodeCandidate),
+                   is(true));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("cloud",
+                                                                                                  "type",
+                                                                                                  RequirementOperator.IN,
+                                                                                                  "PRIVATE,EDGE")))
+                                      .test(nodeCandidate),
+                   is(false));
+    }
+
+    @Test
+    public void testNodeTypeRequirement() {
+        NodeTypeRequirement iaas = new NodeTypeRequirement(Collections.singletonList(NodeType.IAAS), null, null);
+        NodeTypeRequirement byon = new NodeTypeRequirement(Collections.singletonList(NodeType.BYON), null, null);
+        assertThat(RequirementCompiler.compile(Collections.singletonList(iaas)).test(nodeCandidate), is(true));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(byon)).test(nodeCandidate), is(false));
+    }
+
+    @Test
+    public void testCompileEach() {
+        List<Predicate<NodeCandidate>> predicates = RequirementCompiler.compileEach(Arrays.asList(new AttributeRequirement("hardware",
+                                                                                                                         "cores",
+                                                                                                                         RequirementOperator.GEQ,
+                                                                                                                         "64"),
+                                                                                                new AttributeRequirement("hardware",
+                                                                                                                         "unknown",
+                                                                                                                         RequirementOperator.EQ,
+                                                                                                                         "1"),
+                                                                                                new NodeTypeRequirement(Collections.singletonList(NodeType.IAAS),
+                                                                                                                        null,
+                                                                                                                        null)));
+        assertThat(predicates.size(), is(3));
+        assertThat(predicates.get(0).test(nodeCandidate), is(false));
+        assertThat(predicates.get(1).test(nodeCandidate), is(true));
+        assertThat(predicates.get(2).test(nodeCandidate), is(true));
+    }
+
+    @Test
+    public void testUnknownRequirementIsIgnored() {
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("hardware",
+                                                                                                  "unknown",
+                                                                                                  RequirementOperator.EQ,
+                                                                                                  "1")))
+                                      .test(nodeCandidate),
+                   is(true));
+    }
+
+    @Test
+    public void testDistanceRequirement() {
+        // Paris is about 480 km away from Frankfurt
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("location",
+                                                                                                  RequirementCompiler.GEO_DISTANCE,
+                                                                                                  RequirementOperator.LEQ,
+                                                                                                  "50.1109,8.6821,500")))
+                                      .test(nodeCandidate),
+                   is(true));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("location",
+                                                                                                  RequirementCompiler.GEO_DISTANCE,
+                                                                                                  RequirementOperator.LEQ,
+                                                                                                  "50.1109,8.6821,400")))
+                                      .test(nodeCandidate),
+                   is(false));
+    }
+
+    @Test
+    public void testNearestRegionsRequirement() {
+        // from Orleans, Paris holds the nearest regions; from Tokyo, the nearest regions are all in Asia
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("location",
+                                                                                                  RequirementCompiler.GEO_NEAREST,
+                                                                                                  RequirementOperator.EQ,
+                                                                                                  "47.9030,1.9093,1")))
+                                      .test(nodeCandidate),
+                   is(true));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("location",
+                                                                                                  RequirementCompiler.GEO_NEAREST,
+                                                                                                  RequirementOperator.EQ,
+                                                                                                  "35.6762,139.6503,3")))
+                                      .test(nodeCandidate),
+                   is(false));
+        // the Paris region of another cloud is as near, but the node candidate is not in it
+        nodeCandidate.getCloud().setApi(new Api("google-compute-engine"));
+        assertThat(RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("location",
+                                                                                                  RequirementCompiler.GEO_NEAREST,
+                                                                                                  RequirementOperator.EQ,
+                                                                                                  "47.9030,1.9093,1")))
+                                      .test(nodeCandidate),
+                   is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalOperator() {
+        RequirementCompiler.compile(Collections.singletonList(new AttributeRequirement("hardware",
+                                                                                       "cores",
+                                                                                       RequirementOperator.INC,
+                                                                                       "2")));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.sal.service.service.AsyncWaiter.Backoff;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class AsyncWaiterTest {
+
+    private final AsyncWaiter asyncWaiter = new AsyncWaiter();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(asyncWaiter, "threads", 2);
+        ReflectionTestUtils.invokeMethod(asyncWaiter, "init");
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(asyncWaiter, "shutdown");
+    }
+
+    @Test
+    public void testRetriedUntilAvailable() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = asyncWaiter.waitFor("value", () -> {
+            if (attempts.incrementAndGet() == 2) {
+                throw new RuntimeException("not reachable");
+            }
+            return attempts.get() < 4 ? Optional.empty() : Optional.of("ready");
+        }, new Backoff(1, 10, 0, 0));
+        assertThat(result.get(), is("ready"));
+        assertThat(attempts.get(), is(4));
+    }
+
+    @Test
+    public void testAttemptsExhausted() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = asyncWaiter.waitFor("value", () -> {
+            attempts.incrementAndGet();
+            return Optional.empty();
+        }, new Backoff(1, 10, 3, 0));
+        try {
+            result.get();
+            fail("The wait should time out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    public void testIllegalStateEndsTheWait() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = asyncWaiter.waitFor("value", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("multiple nodes");
+        }, new Backoff(1, 10, 0, 0));
+        try {
+            result.get();
+            fail("The wait should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    public void testCancelStopsTheAttempts() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = asyncWaiter.waitFor("value", () -> {
+            attempts.incrementAndGet();
+            return Optional.empty();
+        }, new Backoff(50, 50, 0, 0));
+        Thread.sleep(20);
+        result.cancel(false);
+        int attemptsWhenCancelled = attempts.get();
+        Thread.sleep(200);
+        assertThat(attempts.get(), is(attemptsWhenCancelled));
+    }
+
+    @Test
+    public void testBlockingAttemptsDoNotHoldTheScheduler() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> blockedWaits = new ArrayList<>();
+        // more blocked attempts than scheduler threads
+        for (int i = 0; i < 3; i++) {
+            blockedWaits.add(asyncWaiter.waitForBlocking("blocked value", () -> {
+                release.await();
+                return Optional.of("connected");
+            }, new Backoff(1, 10, 0, 0)));
+        }
+
+        CompletableFuture<String> result = asyncWaiter.waitFor("value",
+                                                               () -> Optional.of("ready"),
+                                                               new Backoff(1, 10, 0, 0));
+        assertThat(result.get(5, TimeUnit.SECONDS), is("ready"));
+
+        release.countDown();
+        for (CompletableFuture<String> blockedWait : blockedWaits) {
+            assertThat(blockedWait.get(5, TimeUnit.SECONDS), is("connected"));
+        }
+    }
+}
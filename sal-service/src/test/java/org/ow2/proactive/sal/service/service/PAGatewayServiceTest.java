@@ -0,0 +1,139 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.sal.service.service.application.PASchedulerGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.PAResourceManagerGateway;
+import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class PAGatewayServiceTest {
+
+    private static final String USERNAME = "user";
+
+    private static final String PASSWORD = "password";
+
+    private final PAGatewayService gatewayService = new PAGatewayService();
+
+    private final PAResourceManagerGateway resourceManagerGateway = mock(PAResourceManagerGateway.class);
+
+    private final PASchedulerGateway schedulerGateway = mock(PASchedulerGateway.class);
+
+    private final PASessionPool sessionPool = mock(PASessionPool.class);
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(gatewayService, "resourceManagerGateway", resourceManagerGateway);
+        ReflectionTestUtils.setField(gatewayService, "schedulerGateway", schedulerGateway);
+        ReflectionTestUtils.setField(gatewayService, "sessionPool", sessionPool);
+        ReflectionTestUtils.setField(gatewayService, "sessionTtlSeconds", 1L);
+        ReflectionTestUtils.setField(gatewayService, "invalidSessionTtlSeconds", 1L);
+        ReflectionTestUtils.setField(gatewayService, "maxCachedSessions", 100L);
+        ReflectionTestUtils.setField(gatewayService, "sessionRenewalIntervalSeconds", 300L);
+        gatewayService.init();
+        mockSession("session-1", null);
+        mockSession("session-2", null);
+        when(resourceManagerGateway.isActive("session-1")).thenReturn(true);
+        when(resourceManagerGateway.isActive("session-2")).thenReturn(true);
+        when(resourceManagerGateway.isActive("unknown")).thenReturn(false);
+    }
+
+    @Test
+    public void testValidityCachedUntilItsTtl() throws Exception {
+        assertThat(gatewayService.isConnectionActive("session-1"), is(true));
+        assertThat(gatewayService.isConnectionActive("session-1"), is(true));
+        verify(resourceManagerGateway, times(1)).isActive("session-1");
+
+        Thread.sleep(1100);
+        assertThat(gatewayService.isConnectionActive("session-1"), is(true));
+        verify(resourceManagerGateway, times(2)).isActive("session-1");
+    }
+
+    @Test
+    public void testInvalidSessionCached() throws Exception {
+        assertThat(gatewayService.isConnectionActive("unknown"), is(false));
+        assertThat(gatewayService.isConnectionActive("unknown"), is(false));
+        verify(resourceManagerGateway, times(1)).isActive("unknown");
+
+        // a session id unknown for a short time only, as it may be opened meanwhile
+        Thread.sleep(1100);
+        when(resourceManagerGateway.isActive("unknown")).thenReturn(true);
+        assertThat(gatewayService.isConnectionActive("unknown"), is(true));
+    }
+
+    @Test
+    public void testInvalidSessionNotCachedWithoutNegativeTtl() throws Exception {
+        ReflectionTestUtils.setField(gatewayService, "invalidSessionTtlSeconds", 0L);
+        assertThat(gatewayService.isConnectionActive("unknown"), is(false));
+        assertThat(gatewayService.isConnectionActive("unknown"), is(false));
+        verify(resourceManagerGateway, times(2)).isActive("unknown");
+    }
+
+    @Test
+    public void testRenewalThrottled() throws Exception {
+        ReflectionTestUtils.setField(gatewayService, "sessionTtlSeconds", 30L);
+        ReflectionTestUtils.setField(gatewayService, "sessionRenewalIntervalSeconds", 1L);
+        for (int i = 0; i < 5; i++) {
+            gatewayService.isConnectionActive("session-1");
+        }
+        verify(schedulerGateway, never()).renewSession("session-1");
+
+        Thread.sleep(1100);
+        for (int i = 0; i < 5; i++) {
+            gatewayService.isConnectionActive("session-1");
+        }
+        verify(schedulerGateway, times(1)).renewSession("session-1");
+    }
+
+    @Test
+    public void testDisconnectInvalidatesOnlyItsSession() throws Exception {
+        ReflectionTestUtils.setField(gatewayService, "sessionTtlSeconds", 30L);
+        gatewayService.isConnectionActive("session-1");
+        gatewayService.isConnectionActive("session-2");
+
+        gatewayService.disconnect("session-1");
+        when(resourceManagerGateway.isActive("session-1")).thenReturn(false);
+
+        assertThat(gatewayService.isConnectionActive("session-1"), is(false));
+        assertThat(gatewayService.isConnectionActive("session-2"), is(true));
+        verify(resourceManagerGateway, times(2)).isActive("session-1");
+        verify(resourceManagerGateway, times(1)).isActive("session-2");
+    }
+
+    @Test
+    public void testConnectInvalidatesTheReplacedSession() throws Exception {
+        ReflectionTestUtils.setField(gatewayService, "sessionTtlSeconds", 30L);
+        gatewayService.isConnectionActive("session-1");
+        gatewayService.isConnectionActive("session-2");
+
+        PASession newSession = mockSession("session-3", "session-1");
+        when(sessionPool.connect(USERNAME, PASSWORD)).thenReturn(newSession);
+        assertThat(gatewayService.connect(USERNAME, PASSWORD), is("session-3"));
+        when(resourceManagerGateway.isActive("session-1")).thenReturn(false);
+
+        assertThat(gatewayService.isConnectionActive("session-1"), is(false));
+        assertThat(gatewayService.isConnectionActive("session-2"), is(true));
+        verify(resourceManagerGateway, times(1)).isActive("session-2");
+    }
+
+    private PASession mockSession(String sessionId, String replacedSessionId) {
+        PASession session = new PASession(USERNAME,
+                                          PASSWORD,
+                                          sessionId,
+                                          null,
+                                          mock(RestSmartProxyImpl.class),
+                                          replacedSessionId);
+        when(sessionPool.getSession(sessionId)).thenReturn(session);
+        return session;
+    }
+}
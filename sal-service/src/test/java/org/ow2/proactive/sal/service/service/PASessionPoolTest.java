@@ -0,0 +1,199 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive_grid_cloud_portal.common.RMRestInterface;
+import org.ow2.proactive_grid_cloud_portal.smartproxy.RestSmartProxyImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class PASessionPoolTest {
+
+    private static final String PA_URL = "http://localhost:8080";
+
+    private final RMRestInterface rmRestInterface = mock(RMRestInterface.class);
+
+    private final RestSmartProxyImpl restSmartProxy = mock(RestSmartProxyImpl.class);
+
+    private final AtomicInteger openedSessions = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private PASessionPool sessionPool;
+
+    @Before
+    public void setUp() throws Exception {
+        ServiceConfiguration serviceConfiguration = mock(ServiceConfiguration.class);
+        when(serviceConfiguration.getPaUrl()).thenReturn(PA_URL);
+        sessionPool = spy(new PASessionPool());
+        ReflectionTestUtils.setField(sessionPool, "serviceConfiguration", serviceConfiguration);
+        ReflectionTestUtils.setField(sessionPool, "idleMinutes", 60L);
+        doReturn(rmRestInterface).when(sessionPool).createRmClient(PA_URL);
+        doReturn(restSmartProxy).when(sessionPool).connectScheduler(eq(PA_URL), anyString(), anyString());
+        when(rmRestInterface.rmConnect(anyString(), anyString())).thenAnswer(invocation -> {
+            // slow enough for the concurrent connections to overlap
+            Thread.sleep(50);
+            return "session-" + openedSessions.incrementAndGet();
+        });
+        when(rmRestInterface.isActive(anyString())).thenAnswer(invocation -> invocation.getArguments()[0].toString()
+                                                                                  .startsWith("session-"));
+        when(restSmartProxy.isConnected()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSessionReused() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+
+        assertThat(sessionPool.connect("user", "password"), is(sameInstance(session)));
+        assertThat(sessionPool.getSession(session.getSessionId()), is(sameInstance(session)));
+        verify(rmRestInterface, times(1)).rmConnect("user", "password");
+    }
+
+    @Test
+    public void testPasswordMismatch() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+
+        PASession newSession = sessionPool.connect("user", "new-password");
+
+        assertThat(newSession, is(not(sameInstance(session))));
+        assertThat(newSession.getReplacedSessionId(), is(nullValue()));
+        // the previous session stays available to its clients
+        assertThat(sessionPool.getSession(session.getSessionId()), is(sameInstance(session)));
+        assertThat(sessionPool.connect("user", "new-password"), is(sameInstance(newSession)));
+        verify(rmRestInterface, never()).rmDisconnect(anyString());
+    }
+
+    @Test
+    public void testExpiredSessionReplaced() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+        when(rmRestInterface.isActive(session.getSessionId())).thenReturn(false);
+
+        PASession newSession = sessionPool.connect("user", "password");
+
+        assertThat(newSession, is(not(sameInstance(session))));
+        assertThat(newSession.getReplacedSessionId(), is(session.getSessionId()));
+        assertThat(sessionPool.getSession(session.getSessionId()), is(nullValue()));
+    }
+
+    @Test
+    public void testFailedLoginKeepsTheSession() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+        when(rmRestInterface.rmConnect("user", "wrong-password")).thenThrow(new RuntimeException("invalid login"));
+
+        try {
+            sessionPool.connect("user", "wrong-password");
+            fail("The login should fail");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), is("invalid login"));
+        }
+
+        assertThat(sessionPool.connect("user", "password"), is(sameInstance(session)));
+    }
+
+    @Test
+    public void testDisconnectClosesTheUnusedSession() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+        sessionPool.connect("user", "password");
+
+        sessionPool.disconnect(session);
+        verify(rmRestInterface, never()).rmDisconnect(anyString());
+        assertThat(sessionPool.getSession(session.getSessionId()), is(sameInstance(session)));
+
+        sessionPool.disconnect(session);
+        verify(rmRestInterface).rmDisconnect(session.getSessionId());
+        verify(restSmartProxy).disconnect();
+        assertThat(session.acquire(), is(false));
+    }
+
+    @Test
+    public void testIdleSessionDropped() throws Exception {
+        PASession session = sessionPool.connect("user", "password");
+        ReflectionTestUtils.setField(sessionPool, "idleMinutes", 0L);
+        Thread.sleep(1);
+
+        ReflectionTestUtils.invokeMethod(sessionPool, "closeIdleSessions");
+
+        // only the local Scheduler client is closed, the RM session is left to its other clients
+        verify(restSmartProxy).disconnect();
+        verify(rmRestInterface, never()).rmDisconnect(anyString());
+        assertThat(sessionPool.connect("user", "password"), is(not(sameInstance(session))));
+    }
+
+    @Test
+    public void testUnknownSessionAdopted() throws Exception {
+        PASession session = sessionPool.getSession("session-opened-elsewhere");
+
+        assertThat(session.getSessionId(), is("session-opened-elsewhere"));
+        assertThat(session.getRestSmartProxy(), is(nullValue()));
+        assertThat(session.hasPassword("password"), is(false));
+        assertThat(sessionPool.getSession("session-opened-elsewhere"), is(sameInstance(session)));
+        assertThat(sessionPool.getSession("unknown"), is(nullValue()));
+        verify(rmRestInterface, never()).rmConnect(anyString(), anyString());
+    }
+
+    @Test
+    public void testConcurrentConnectsOfTheSameUser() throws Exception {
+        List<PASession> sessions = connectConcurrently("user", "user", "user", "user", "user", "user", "user", "user");
+
+        assertTrue(sessions.stream().allMatch(session -> session == sessions.get(0)));
+        verify(rmRestInterface, times(1)).rmConnect("user", "password");
+    }
+
+    @Test
+    public void testConcurrentConnectsOfDifferentUsers() throws Exception {
+        CountDownLatch blockedLogin = new CountDownLatch(1);
+        when(rmRestInterface.rmConnect("blocked", "password")).thenAnswer(invocation -> {
+            blockedLogin.await(10, TimeUnit.SECONDS);
+            return "session-blocked";
+        });
+        Future<PASession> blockedSession = executor.submit(() -> sessionPool.connect("blocked", "password"));
+
+        // the login of a user does not wait for the one of another user
+        List<PASession> sessions = connectConcurrently("user-1", "user-2");
+        assertThat(blockedSession.isDone(), is(false));
+        blockedLogin.countDown();
+
+        assertThat(blockedSession.get(10, TimeUnit.SECONDS).getSessionId(), is("session-blocked"));
+        assertThat(sessions.get(0), is(not(sameInstance(sessions.get(1)))));
+    }
+
+    private List<PASession> connectConcurrently(String... usernames) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PASession>> futures = new ArrayList<>();
+        for (String username : usernames) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return sessionPool.connect(username, "password");
+            }));
+        }
+        start.countDown();
+        List<PASession> sessions = new ArrayList<>();
+        for (Future<PASession> future : futures) {
+            sessions.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return sessions;
+    }
+}
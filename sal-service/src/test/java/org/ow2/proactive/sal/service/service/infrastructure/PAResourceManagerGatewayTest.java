@@ -0,0 +1,92 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service.infrastructure;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.dto.RMStateDelta;
+import org.ow2.proactive.sal.service.service.PASession;
+import org.ow2.proactive.sal.service.service.PASessionPool;
+import org.ow2.proactive_grid_cloud_portal.common.RMRestInterface;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class PAResourceManagerGatewayTest {
+
+    private final PAResourceManagerGateway resourceManagerGateway = new PAResourceManagerGateway();
+
+    private final PASessionPool sessionPool = mock(PASessionPool.class);
+
+    private final RMRestInterface rmRestInterface = mock(RMRestInterface.class);
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(resourceManagerGateway, "sessionPool", sessionPool);
+        ReflectionTestUtils.setField(resourceManagerGateway, "rmStateMaxStalenessMillis", 60000L);
+        ReflectionTestUtils.setField(resourceManagerGateway, "rmStateFullRefreshMinutes", 10L);
+        ReflectionTestUtils.invokeMethod(resourceManagerGateway, "initRMStateMirrors");
+        // each session sees the node sources of its user only
+        mockSession("session-a1", "user-a", "ns-a");
+        mockSession("session-a2", "user-a", "ns-a");
+        mockSession("session-b", "user-b", "ns-b");
+        mockSession("session-adopted", null, "ns-c");
+    }
+
+    @Test
+    public void testMirrorPerUser() throws Exception {
+        assertThat(resourceManagerGateway.getNodeSourceNames("session-a1", "all"),
+                   is(Collections.singletonList("ns-a")));
+        assertThat(resourceManagerGateway.getNodeSourceNames("session-b", "all"),
+                   is(Collections.singletonList("ns-b")));
+        assertThat(resourceManagerGateway.getNodeSourceNames("session-adopted", "all"),
+                   is(Collections.singletonList("ns-c")));
+
+        // the sessions of a same user share its mirror
+        assertThat(resourceManagerGateway.getNodeSourceNames("session-a2", "all"),
+                   is(Collections.singletonList("ns-a")));
+        verify(rmRestInterface, never()).getRMStateDelta(eq("session-a2"), anyString());
+    }
+
+    @Test
+    public void testActionInvalidatesTheMirrorOfEveryUser() throws Exception {
+        resourceManagerGateway.getNodeSourceNames("session-a1", "all");
+        resourceManagerGateway.getNodeSourceNames("session-b", "all");
+
+        resourceManagerGateway.removeNodeSource("session-a1", "ns-a", false);
+        resourceManagerGateway.getNodeSourceNames("session-a1", "all");
+        resourceManagerGateway.getNodeSourceNames("session-b", "all");
+
+        verify(rmRestInterface, times(2)).getRMStateDelta(eq("session-a1"), anyString());
+        verify(rmRestInterface, times(2)).getRMStateDelta(eq("session-b"), anyString());
+    }
+
+    private void mockSession(String sessionId, String username, String nodeSourceName) throws Exception {
+        PASession session = mock(PASession.class);
+        when(session.getSessionId()).thenReturn(sessionId);
+        when(session.getUsername()).thenReturn(username);
+        when(session.getRmRestInterface()).thenReturn(rmRestInterface);
+        when(sessionPool.getSession(sessionId)).thenReturn(session);
+
+        RMNodeSourceEvent nodeSource = mock(RMNodeSourceEvent.class);
+        when(nodeSource.getNodeSourceName()).thenReturn(nodeSourceName);
+        when(nodeSource.getEventType()).thenReturn(RMEventType.NODESOURCE_CREATED);
+        when(nodeSource.getNodeSourceStatus()).thenReturn("deployed");
+        RMStateDelta delta = mock(RMStateDelta.class);
+        when(delta.getNodeSource()).thenReturn(Collections.singletonList(nodeSource));
+        when(delta.getLatestCounter()).thenReturn(1L);
+        when(rmRestInterface.getRMStateDelta(eq(sessionId), anyString())).thenReturn(delta);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.service.infrastructure;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.dto.RMStateDelta;
+
+
+public class RMStateMirrorTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    // the next deltas returned by the RM, and the counters they are fetched after
+    private final Deque<RMStateDelta> deltas = new ArrayDeque<>();
+
+    private final List<Long> fetchedCounters = new ArrayList<>();
+
+    private RMStateMirror mirror;
+
+    @Before
+    public void setUp() {
+        // no staleness, so that every read fetches the next delta, or no change when there is none
+        mirror = new RMStateMirror((sessionId, counter) -> {
+            fetchedCounters.add(counter);
+            return deltas.isEmpty() ? delta(null, null, counter) : deltas.poll();
+        }, 0, 60);
+        deltas.add(delta(Arrays.asList(nodeSource("ns-1", RMEventType.NODESOURCE_CREATED),
+                                       nodeSource("ns-2", RMEventType.NODESOURCE_CREATED)),
+                         Arrays.asList(node("ns-1", "node-1", RMEventType.NODE_ADDED),
+                                       node("ns-1", "node-2", RMEventType.NODE_ADDED),
+                                       node("ns-2", "node-3", RMEventType.NODE_ADDED)),
+                         10));
+    }
+
+    @Test
+    public void testFullState() throws Exception {
+        assertThat(nodeSourceNames(), is(Arrays.asList("ns-1", "ns-2")));
+        assertThat(nodeUrlsOfNodeSource("ns-1"), is(Arrays.asList("node-1", "node-2")));
+        assertThat(nodeUrlsOfNodeSource("ns-3"), is(Collections.emptyList()));
+        assertThat(fetchedCounters, is(Arrays.asList(-1L, 10L, 10L)));
+    }
+
+    @Test
+    public void testNodeAdded() throws Exception {
+        mirror.getNodes(SESSION_ID);
+        deltas.add(delta(null, Collections.singletonList(node("ns-2", "node-4", RMEventType.NODE_ADDED)), 11));
+
+        assertThat(nodeUrls(mirror.getNodes(SESSION_ID)), is(Arrays.asList("node-1", "node-2", "node-3", "node-4")));
+        assertThat(nodeUrlsOfNodeSource("ns-2"), is(Arrays.asList("node-3", "node-4")));
+        assertThat(fetchedCounters, is(Arrays.asList(-1L, 10L, 11L)));
+    }
+
+    @Test
+    public void testNodeRemoved() throws Exception {
+        mirror.getNodes(SESSION_ID);
+        deltas.add(delta(null, Collections.singletonList(node("ns-1", "node-1", RMEventType.NODE_REMOVED)), 11));
+
+        assertThat(nodeUrls(mirror.getNodes(SESSION_ID)), is(Arrays.asList("node-2", "node-3")));
+        assertThat(nodeUrlsOfNodeSource("ns-1"), is(Collections.singletonList("node-2")));
+    }
+
+    @Test
+    public void testNodeSourceRemoved() throws Exception {
+        mirror.getNodes(SESSION_ID);
+        deltas.add(delta(Collections.singletonList(nodeSource("ns-2", RMEventType.NODESOURCE_REMOVED)),
+                         Collections.singletonList(node("ns-2", "node-3", RMEventType.NODE_REMOVED)),
+                         12));
+
+        assertThat(nodeSourceNames(), is(Collections.singletonList("ns-1")));
+        assertThat(nodeUrlsOfNodeSource("ns-2"), is(Collections.emptyList()));
+        assertThat(nodeUrls(mirror.getNodes(SESSION_ID)), is(Arrays.asList("node-1", "node-2")));
+    }
+
+    private List<String> nodeSourceNames() throws Exception {
+        return mirror.getNodeSources(SESSION_ID)
+                     .stream()
+                     .map(RMNodeSourceEvent::getNodeSourceName)
+                     .collect(Collectors.toList());
+    }
+
+    private List<String> nodeUrlsOfNodeSource(String nodeSourceName) throws Exception {
+        return mirror.getNodesOfNodeSource(SESSION_ID, nodeSourceName, "deployed")
+                     .map(RMStateMirrorTest::nodeUrls)
+                     .orElse(Collections.emptyList());
+    }
+
+    private static List<String> nodeUrls(List<RMNodeEvent> nodes) {
+        return nodes.stream().map(RMNodeEvent::getNodeUrl).sorted().collect(Collectors.toList());
+    }
+
+    private static RMStateDelta delta(List<RMNodeSourceEvent> nodeSources, List<RMNodeEvent> nodes,
+            long latestCounter) {
+        RMStateDelta delta = mock(RMStateDelta.class);
+        when(delta.getNodeSource()).thenReturn(nodeSources);
+        when(delta.getNodesEvents()).thenReturn(nodes);
+        when(delta.getLatestCounter()).thenReturn(latestCounter);
+        return delta;
+    }
+
+    private static RMNodeSourceEvent nodeSource(String name, RMEventType eventType) {
+        RMNodeSourceEvent nodeSource = mock(RMNodeSourceEvent.class);
+        when(nodeSource.getNodeSourceName()).thenReturn(name);
+        when(nodeSource.getEventType()).thenReturn(eventType);
+        when(nodeSource.getNodeSourceStatus()).thenReturn("deployed");
+        return nodeSource;
+    }
+
+    private static RMNodeEvent node(String nodeSourceName, String url, RMEventType eventType) {
+        RMNodeEvent node = mock(RMNodeEvent.class);
+        when(node.getNodeSource()).thenReturn(nodeSourceName);
+        when(node.getNodeUrl()).thenReturn(url);
+        when(node.getEventType()).thenReturn(eventType);
+        return node;
+    }
+}
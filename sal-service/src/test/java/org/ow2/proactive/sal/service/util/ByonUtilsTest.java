@@ -0,0 +1,94 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package org.ow2.proactive.sal.service.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.sal.service.service.infrastructure.PAResourceManagerGateway;
+import org.ow2.proactive.sal.service.service.infrastructure.RMNodeInformation;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+public class ByonUtilsTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    private static final String NODE_SOURCE = "BYON_NS_1";
+
+    private final PAResourceManagerGateway resourceManagerGateway = mock(PAResourceManagerGateway.class);
+
+    private ByonUtils byonUtils;
+
+    @Before
+    public void setUp() {
+        byonUtils = BeanUtils.instantiateClass(ByonUtils.class);
+        ReflectionTestUtils.setField(byonUtils, "tempResourceManagerGateway", resourceManagerGateway);
+        ReflectionTestUtils.invokeMethod(byonUtils, "initStaticAttributes");
+    }
+
+    @Test
+    public void testNodeSourceNotDeployed() throws Exception {
+        mockNodes(null);
+        assertThat(lookupBYONHostname(), is(Optional.empty()));
+    }
+
+    @Test
+    public void testNoNodes() throws Exception {
+        mockNodes(Collections.emptyList());
+        assertThat(lookupBYONHostname(), is(Optional.empty()));
+    }
+
+    @Test
+    public void testSeveralNodes() throws Exception {
+        mockNodes(Arrays.asList(node("host-1"), node("host-2")));
+        try {
+            lookupBYONHostname();
+            fail("The lookup should fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Node source has multiple nodes"));
+        }
+    }
+
+    @Test
+    public void testEmptyHostname() throws Exception {
+        mockNodes(Collections.singletonList(node("")));
+        assertThat(lookupBYONHostname(), is(Optional.empty()));
+        mockNodes(Collections.singletonList(node(null)));
+        assertThat(lookupBYONHostname(), is(Optional.empty()));
+    }
+
+    @Test
+    public void testHostname() throws Exception {
+        mockNodes(Collections.singletonList(node("host-1")));
+        assertThat(lookupBYONHostname(), is(Optional.of("host-1")));
+    }
+
+    private Optional<String> lookupBYONHostname() {
+        return ReflectionTestUtils.invokeMethod(byonUtils, "lookupBYONHostname", SESSION_ID, NODE_SOURCE);
+    }
+
+    private void mockNodes(List<RMNodeInformation> nodes) throws Exception {
+        when(resourceManagerGateway.getDeployedNodeSourceNodes(SESSION_ID,
+                                                               NODE_SOURCE)).thenReturn(Optional.ofNullable(nodes));
+    }
+
+    private static RMNodeInformation node(String hostname) {
+        RMNodeInformation node = mock(RMNodeInformation.class);
+        when(node.getName()).thenReturn("node-" + hostname);
+        when(node.getHostname()).thenReturn(hostname);
+        when(node.getState()).thenReturn("CONFIGURING");
+        return node;
+    }
+}